@@ -13,16 +13,69 @@ dependencies {
     testImplementation("junit:junit:4.13")
 }
 
+// the vector kernel of bit-set facts uses the incubating Vector API;
+// it is compiled in its own source set, as javac always warns about
+// the incubating module, and is loaded reflectively by the main code
+val vectorModule = "--add-modules=jdk.incubator.vector"
+
+val vector: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output +
+            sourceSets.main.get().compileClasspath
+}
+
+// JMH benchmarks, run by task jmh (e.g., gradlew jmh --args="BitSetKernel")
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + vector.output +
+            sourceSets.main.get().compileClasspath
+    runtimeClasspath += compileClasspath
+}
+
+sourceSets.test {
+    runtimeClasspath += vector.output
+}
+
+val jmhVersion = "1.37"
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
 application {
     mainClass.set("pascal.taie.Assignment")
+    applicationDefaultJvmArgs = listOf(vectorModule)
 }
 
 tasks.compileJava { options.encoding = "UTF-8" }
 tasks.compileTestJava { options.encoding = "UTF-8" }
 
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+    options.encoding = "UTF-8"
+    options.compilerArgs.add(vectorModule)
+}
+tasks.named<JavaCompile>(jmh.compileJavaTaskName) {
+    options.encoding = "UTF-8"
+}
+
+tasks.jar {
+    from(vector.output)
+}
+tasks.named<JavaExec>("run") {
+    classpath += vector.output
+}
+
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
+    jvmArgs(vectorModule)
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks."
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs(vectorModule)
 }
 
 java {
@@ -0,0 +1,114 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vector {@link BitSetKernel}s on the
+ * operations of the meets and transfers of gen/kill analyses, over
+ * facts of different numbers of words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BitSetKernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"4", "16", "64", "1024"})
+    public int words;
+
+    private BitSetKernel bitSetKernel;
+
+    private long[] fact;
+
+    private long[] gen;
+
+    private long[] kill;
+
+    private long[] target;
+
+    @Setup
+    public void setUp() {
+        bitSetKernel = kernel.equals("vector") ?
+                BitSetKernel.vector() : BitSetKernel.scalar();
+        if (kernel.equals("vector") && bitSetKernel == BitSetKernel.scalar()) {
+            throw new IllegalStateException("Vector API is unavailable");
+        }
+        Random random = new Random(0);
+        fact = randomWords(random);
+        gen = randomWords(random);
+        kill = randomWords(random);
+        target = new long[words];
+    }
+
+    private long[] randomWords(Random random) {
+        long[] result = new long[words];
+        for (int i = 0; i < words; ++i) {
+            result[i] = random.nextLong();
+        }
+        return result;
+    }
+
+    /**
+     * Meet of a may analysis.
+     */
+    @Benchmark
+    public boolean or() {
+        return bitSetKernel.or(target, fact);
+    }
+
+    /**
+     * Meet of a must analysis.
+     */
+    @Benchmark
+    public boolean and() {
+        return bitSetKernel.and(target, fact);
+    }
+
+    /**
+     * Transfer of a gen/kill analysis.
+     */
+    @Benchmark
+    public boolean genKill() {
+        return bitSetKernel.genKill(target, fact, gen, kill);
+    }
+}
@@ -22,23 +22,36 @@
 
 package pascal.taie;
 
+import pascal.taie.analysis.MethodAnalysisScheduler;
+import pascal.taie.analysis.PlannedOptions;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Main class for assignments.
+ * <p>
+ * With option {@value #PIPELINE}, the consecutive method analyses of the
+ * plan run as one pipeline per method, see {@link MethodAnalysisScheduler}.
  */
 public class Assignment {
 
+    private static final String PIPELINE = "--pipeline";
+
     public static void main(String[] args) {
         if (args.length > 0) {
             List<String> argList = new ArrayList<>();
             Collections.addAll(argList, "-pp", "-p", "plan.yml");
             Collections.addAll(argList, args);
-            Main.main(argList.toArray(new String[0]));
+            if (argList.remove(PIPELINE)) {
+                Main.buildWorld(argList.toArray(new String[0]));
+                MethodAnalysisScheduler.executePlan(PlannedOptions.plan());
+            } else {
+                Main.main(argList.toArray(new String[0]));
+            }
         } else {
-            System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME>");
+            System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME> [" + PIPELINE + "]");
         }
     }
 }
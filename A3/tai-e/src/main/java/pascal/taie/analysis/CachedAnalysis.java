@@ -0,0 +1,51 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.Map;
+
+/**
+ * An analysis whose results may be cached by {@link ResultCache}.
+ * Besides its ID and options, the key of a cached result covers the
+ * semantics version of the analysis and the options of the analyses
+ * whose results it uses.
+ */
+public interface CachedAnalysis {
+
+    /**
+     * @return the version of the semantics of this analysis. It must be
+     * increased whenever a change of the analysis may change its results,
+     * so that the results cached by earlier versions are not reused.
+     */
+    int getSemanticsVersion();
+
+    /**
+     * @return the options of the analyses whose results this analysis
+     * uses, keyed by their IDs.
+     */
+    default Map<String, AnalysisOptions> getUpstreamOptions() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisPlanner;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.ConfigManager;
+import pascal.taie.config.PlanConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Runs a pipeline of method analyses over methods in parallel.
+ * <p>
+ * Each method is analyzed by a fork-join task, which runs all analyses
+ * of the pipeline on the IR of the method in the pipeline order and stores
+ * the results in the IR. Thus, an analysis can obtain the results of the
+ * analyses that it requires via {@link IR#getResult(String)}, as long as
+ * they precede it in the pipeline (e.g., the order planned by the
+ * analysis planner), and different methods never wait for each other.
+ * As the IR of a method is only accessed by the task of the method,
+ * the results are stored without synchronization. The IRs themselves are
+ * built before the tasks start, as building IRs is not thread-safe.
+ * <p>
+ * {@link #executePlan} runs a whole analysis plan, where the consecutive
+ * method analyses of the plan are run by a scheduler as one pipeline.
+ */
+public class MethodAnalysisScheduler {
+
+    private static final Logger logger = LogManager.getLogger(MethodAnalysisScheduler.class);
+
+    /**
+     * Maximum number of methods analyzed by a task without forking.
+     */
+    private static final int THRESHOLD = 8;
+
+    private final List<MethodAnalysis> analyses;
+
+    private final ForkJoinPool pool;
+
+    public MethodAnalysisScheduler(List<MethodAnalysis> analyses) {
+        this(analyses, ForkJoinPool.commonPool());
+    }
+
+    public MethodAnalysisScheduler(List<MethodAnalysis> analyses, ForkJoinPool pool) {
+        this.analyses = List.copyOf(analyses);
+        this.pool = pool;
+    }
+
+    /**
+     * Creates a scheduler for the method analyses of given configs,
+     * which must be ordered so that each analysis follows the analyses
+     * that it requires.
+     *
+     * @throws ConfigException if an analysis requires an analysis
+     *                         which does not precede it in the configs
+     */
+    public static MethodAnalysisScheduler of(List<AnalysisConfig> configs) {
+        checkOrder(configs);
+        return newScheduler(configs);
+    }
+
+    /**
+     * Executes given plan of analyses in order. Each run of consecutive
+     * method analyses in the plan is run by a scheduler on the methods in
+     * the scope of the current run, and the other analyses are executed
+     * by {@link AnalysisManager}.
+     *
+     * @throws ConfigException if an analysis requires an analysis
+     *                         which does not precede it in the plan
+     */
+    public static void executePlan(List<AnalysisConfig> plan) {
+        checkOrder(plan);
+        for (List<AnalysisConfig> stage : stagesOf(plan)) {
+            if (isMethodAnalysis(stage.get(0))) {
+                newScheduler(stage).run(getMethodScope());
+            } else {
+                new AnalysisManager().execute(stage);
+            }
+        }
+    }
+
+    /**
+     * Splits given plan into stages of consecutive analyses, which are
+     * either all method analyses or all other analyses.
+     */
+    static List<List<AnalysisConfig>> stagesOf(List<AnalysisConfig> plan) {
+        List<List<AnalysisConfig>> stages = new ArrayList<>();
+        List<AnalysisConfig> stage = new ArrayList<>();
+        for (AnalysisConfig config : plan) {
+            if (!stage.isEmpty() &&
+                    isMethodAnalysis(stage.get(0)) != isMethodAnalysis(config)) {
+                stages.add(List.copyOf(stage));
+                stage.clear();
+            }
+            stage.add(config);
+        }
+        if (!stage.isEmpty()) {
+            stages.add(List.copyOf(stage));
+        }
+        return stages;
+    }
+
+    /**
+     * @throws ConfigException if an analysis in given configs requires
+     *                         an analysis which does not precede it
+     */
+    private static void checkOrder(List<AnalysisConfig> configs) {
+        new AnalysisPlanner(new ConfigManager(configs)).makePlan(configs.stream()
+                .map(config -> new PlanConfig(config.getId(), config.getOptions()))
+                .toList(), false);
+    }
+
+    private static MethodAnalysisScheduler newScheduler(List<AnalysisConfig> configs) {
+        return new MethodAnalysisScheduler(configs.stream()
+                .map(MethodAnalysisScheduler::newAnalysis)
+                .toList());
+    }
+
+    private static boolean isMethodAnalysis(AnalysisConfig config) {
+        try {
+            return MethodAnalysis.class.isAssignableFrom(
+                    Class.forName(config.getAnalysisClass()));
+        } catch (ClassNotFoundException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+    }
+
+    /**
+     * @return the methods of the classes in the scope of the current run,
+     * i.e., the application classes for scope {@code app}, and all
+     * classes for scope {@code all}.
+     * @throws ConfigException if the scope is not supported
+     */
+    private static List<JMethod> getMethodScope() {
+        String scope = World.get().getOptions().getScope();
+        Stream<JClass> classes = switch (scope) {
+            case "app" -> World.get().getClassHierarchy().applicationClasses();
+            case "all" -> World.get().getClassHierarchy().allClasses();
+            default -> throw new ConfigException(
+                    "Scope " + scope + " is not supported by the scheduler");
+        };
+        return classes.map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .toList();
+    }
+
+    private static MethodAnalysis newAnalysis(AnalysisConfig config) {
+        try {
+            Class<?> clazz = Class.forName(config.getAnalysisClass());
+            Object analysis = clazz.getConstructor(AnalysisConfig.class)
+                    .newInstance(config);
+            if (analysis instanceof MethodAnalysis methodAnalysis) {
+                return methodAnalysis;
+            }
+            throw new AnalysisException(config.getAnalysisClass() +
+                    " is not a method analysis");
+        } catch (ReflectiveOperationException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+    }
+
+    /**
+     * Runs the pipeline on the non-abstract and non-native methods
+     * of application classes.
+     */
+    public void runOnApplicationMethods() {
+        run(World.get().getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .toList());
+    }
+
+    /**
+     * Runs the pipeline on the non-abstract and non-native methods
+     * in given methods.
+     */
+    public void run(Collection<JMethod> methods) {
+        List<JMethod> scope = methods.stream()
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .distinct()
+                .toList();
+        // IRs are built lazily by the frontend, which is not thread-safe
+        runOnIRs(scope.stream().map(JMethod::getIR).toList());
+    }
+
+    /**
+     * Runs the pipeline on given IRs.
+     */
+    public void runOnIRs(List<IR> irs) {
+        logger.info("{} methods are analyzed by {} with parallelism {}",
+                irs.size(), analyses, pool.getParallelism());
+        pool.invoke(new Task(irs, 0, irs.size()));
+    }
+
+    private void analyze(IR ir) {
+        for (MethodAnalysis analysis : analyses) {
+            ir.storeResult(analysis.getId(), analysis.analyze(ir));
+        }
+    }
+
+    /**
+     * Analyzes the IRs in range [from, to).
+     */
+    private class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<IR> irs;
+
+        private final int from;
+
+        private final int to;
+
+        private Task(List<IR> irs, int from, int to) {
+            this.irs = irs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; ++i) {
+                    analyze(irs.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Task(irs, from, mid), new Task(irs, mid, to));
+            }
+        }
+    }
+}
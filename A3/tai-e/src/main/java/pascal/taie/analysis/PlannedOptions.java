@@ -0,0 +1,139 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.AnalysisPlanner;
+import pascal.taie.config.ConfigManager;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Looks up the configurations of the analyses in the plan of the current
+ * run, so that an analysis can take into account the options of the
+ * analyses it depends on. The configurations are read once per run, in
+ * the same way as {@link pascal.taie.Main} reads them: the options given
+ * in the plan overwrite the default options of the analyses.
+ */
+public final class PlannedOptions {
+
+    /**
+     * Options of the run whose configurations are cached.
+     */
+    @Nullable
+    private static Options cachedOptions;
+
+    /**
+     * Map from analysis ID to its configuration in the run
+     * of {@link #cachedOptions}.
+     */
+    private static Map<String, AnalysisConfig> cachedConfigs = Map.of();
+
+    /**
+     * The analyses in the plan of the run of {@link #cachedOptions},
+     * in the order of execution.
+     */
+    private static List<AnalysisConfig> cachedPlan = List.of();
+
+    private PlannedOptions() {
+    }
+
+    /**
+     * @return the options of the analysis of given ID in the current run,
+     * i.e., its default options overwritten by the options given in the
+     * plan, or empty options if the analysis is unknown or no run
+     * has started.
+     */
+    public static AnalysisOptions of(String id) {
+        AnalysisConfig config = getConfigs().get(id);
+        return config != null ? config.getOptions() : new AnalysisOptions(Map.of());
+    }
+
+    /**
+     * @return the configuration of the analysis of given ID in the current
+     * run, or a configuration with empty options if no run has started.
+     * @throws IllegalStateException if the analysis is unknown
+     *                               in the current run.
+     */
+    public static AnalysisConfig configOf(String id) {
+        Map<String, AnalysisConfig> configs = getConfigs();
+        if (configs.isEmpty()) {
+            return new AnalysisConfig(id);
+        }
+        AnalysisConfig config = configs.get(id);
+        if (config == null) {
+            throw new IllegalStateException(
+                    "No configuration of analysis " + id + " in current run");
+        }
+        return config;
+    }
+
+    /**
+     * @return the configurations of the analyses in the plan of the
+     * current run, in the order of execution, or an empty list if no run
+     * has started. The analyses given by option {@code -a} are expanded
+     * with the analyses they require, as {@link pascal.taie.Main} does.
+     */
+    public static List<AnalysisConfig> plan() {
+        return getConfigs().isEmpty() ? List.of() : cachedPlan;
+    }
+
+    private static synchronized Map<String, AnalysisConfig> getConfigs() {
+        World world = World.get();
+        Options options = world != null ? world.getOptions() : null;
+        if (options == null) {
+            return Map.of();
+        }
+        if (options != cachedOptions) {
+            List<AnalysisConfig> configs = AnalysisConfig.parseConfigs(
+                    Configs.getAnalysisConfig());
+            ConfigManager manager = new ConfigManager(configs);
+            AnalysisPlanner planner = new AnalysisPlanner(manager);
+            boolean reachableScope = options.getScope().equals("reachable");
+            if (!options.getAnalyses().isEmpty()) {
+                List<PlanConfig> plan = PlanConfig.readConfigs(options);
+                manager.overwriteOptions(plan);
+                cachedPlan = planner.expandPlan(plan, reachableScope);
+            } else if (options.getPlanFile() != null) {
+                List<PlanConfig> plan = PlanConfig.readConfigs(options.getPlanFile());
+                manager.overwriteOptions(plan);
+                cachedPlan = planner.makePlan(plan, reachableScope);
+            } else {
+                cachedPlan = List.of();
+            }
+            cachedConfigs = configs.stream().collect(Collectors.toUnmodifiableMap(
+                    AnalysisConfig::getId, Function.identity()));
+            cachedOptions = options;
+        }
+        return cachedConfigs;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Persistent cache of the analysis results of methods, so that unchanged
+ * methods need not be re-analyzed across runs.
+ * <p>
+ * A result is keyed by the SHA-256 digest of the analysis ID, the analysis
+ * options and the IR of the method, including its exception entries.
+ * For a {@link CachedAnalysis}, the key also covers its semantics version
+ * and the options of its upstream analyses. The options which do not
+ * affect the results, i.e., {@link #IGNORED_OPTIONS}, are left out of
+ * the key, so that the results are shared by runs which differ only in
+ * them. The cache file is an append-only log
+ * of (key, encoded result) records: all records are loaded when the cache
+ * is opened, and each newly computed result is appended immediately,
+ * thus the file is always usable even if the run is interrupted. Later
+ * records of the same key override earlier ones.
+ */
+public class ResultCache {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    private static final int MAGIC = 0x54414943; // "TAIC"
+
+    private static final int VERSION = 1;
+
+    private static final int KEY_LENGTH = 32;
+
+    /**
+     * Options which do not affect the results of analyses, i.e., the paths
+     * of the outputs, and the options which only select how data-flow
+     * analyses are solved and how their facts are stored.
+     */
+    private static final Set<String> IGNORED_OPTIONS = Set.of(
+            "cache", "metrics", "solver", "blocks", "in-facts-only",
+            "parallel-threshold", "frozen-cfg", "intern-facts", "vector");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Opened caches, so that analyses using the same file share one cache.
+     */
+    private static final Map<Path, ResultCache> caches = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    private final Map<ByteBuffer, byte[]> entries = new ConcurrentHashMap<>();
+
+    private final DataOutputStream log;
+
+    private ResultCache(Path file) throws IOException {
+        this.file = file;
+        long validLength = load();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // drop the truncated record (if any) of an interrupted run
+            channel.truncate(validLength);
+        }
+        log = new DataOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        if (validLength == 0) {
+            log.writeInt(MAGIC);
+            log.writeInt(VERSION);
+            log.flush();
+        }
+    }
+
+    /**
+     * @return the cache stored in given file, which is created
+     * if it does not exist.
+     */
+    public static ResultCache open(Path file) {
+        return caches.computeIfAbsent(file.toAbsolutePath().normalize(), f -> {
+            try {
+                return new ResultCache(f);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open result cache " + f, e);
+            }
+        });
+    }
+
+    /**
+     * Loads the records of the cache file.
+     *
+     * @return the length of the valid prefix of the file.
+     */
+    private long load() throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    logger.warn("Ignored incompatible result cache {}", file);
+                    return 0;
+                }
+            } catch (EOFException e) {
+                return 0;
+            }
+            long validLength = 8;
+            while (true) {
+                try {
+                    byte[] key = new byte[KEY_LENGTH];
+                    in.readFully(key);
+                    int length = ResultCodec.readVarInt(in);
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    entries.put(ByteBuffer.wrap(key), data);
+                    validLength += KEY_LENGTH + varIntSize(length) + length;
+                } catch (EOFException e) {
+                    return validLength;
+                }
+            }
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            ++size;
+        }
+        return size;
+    }
+
+    /**
+     * @return the cached result of given analysis on given IR if it exists
+     * and can be decoded; otherwise, the result computed by {@code analyzer},
+     * which is then added to this cache.
+     */
+    public <R> R getOrAnalyze(IR ir, Analysis analysis, ResultCodec<R> codec,
+                              Supplier<R> analyzer) {
+        ByteBuffer key = ByteBuffer.wrap(keyOf(ir, analysis));
+        byte[] data = entries.get(key);
+        if (data != null) {
+            try {
+                return codec.read(ir, new DataInputStream(
+                        new ByteArrayInputStream(data)));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to decode cached {} result of {}: {}",
+                        analysis.getId(), ir.getMethod(), e.toString());
+            }
+        }
+        R result = analyzer.get();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            codec.write(ir, result, new DataOutputStream(bytes));
+            put(key, bytes.toByteArray());
+        } catch (IOException e) {
+            logger.warn("Failed to cache {} result of {}: {}",
+                    analysis.getId(), ir.getMethod(), e.toString());
+        }
+        return result;
+    }
+
+    private void put(ByteBuffer key, byte[] data) throws IOException {
+        entries.put(key, data);
+        synchronized (log) {
+            log.write(key.array());
+            ResultCodec.writeVarInt(log, data.length);
+            log.write(data);
+            log.flush();
+        }
+    }
+
+    /**
+     * @return the digest of the ID, version and options of given analysis,
+     * the options of its upstream analyses, and the signature, variables,
+     * statements and exception entries of given IR.
+     */
+    private static byte[] keyOf(IR ir, Analysis analysis) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+        StringBuilder builder = new StringBuilder()
+                .append(analysis.getId()).append('\n');
+        if (analysis instanceof CachedAnalysis cached) {
+            builder.append(cached.getSemanticsVersion()).append('\n')
+                    .append(keyOf(analysis.getOptions())).append('\n');
+            new TreeMap<>(cached.getUpstreamOptions()).forEach((id, options) ->
+                    builder.append(id).append(' ')
+                            .append(keyOf(options)).append('\n'));
+        } else {
+            builder.append(keyOf(analysis.getOptions())).append('\n');
+        }
+        builder.append(ir.getMethod()).append('\n');
+        for (Var var : ir.getVars()) {
+            builder.append(var.getType()).append(' ').append(var).append('\n');
+        }
+        for (Stmt stmt : ir) {
+            builder.append(stmt.getIndex()).append(": ").append(stmt).append('\n');
+        }
+        for (ExceptionEntry entry : ir.getExceptionEntries()) {
+            builder.append("catch ").append(entry.catchType())
+                    .append(" [").append(entry.start().getIndex())
+                    .append(", ").append(entry.end().getIndex())
+                    .append(") @").append(entry.handler().getIndex()).append('\n');
+        }
+        return digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the options which affect the results, sorted by their names.
+     */
+    private static String keyOf(AnalysisOptions options) {
+        Map<String, Object> values = new TreeMap<>(MAPPER.convertValue(
+                options, new TypeReference<Map<String, Object>>() {}));
+        values.keySet().removeAll(IGNORED_OPTIONS);
+        return values.toString();
+    }
+}
@@ -25,6 +25,8 @@ package pascal.taie.analysis;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.ResultQuery;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRPrinter;
@@ -182,6 +184,9 @@ public class ResultProcessor extends ProgramAnalysis {
         Object result = resultGetter.apply(method, id);
         if (result instanceof Set) {
             ((Set<?>) result).forEach(e -> out.println(toString(e)));
+        } else if (result instanceof NodeResult<?, ?> nodeResult) {
+            // stream the facts without building the lines as strings
+            ResultQuery.of(method.getIR(), asStmtResult(nodeResult)).print(out);
         } else if (result instanceof StmtResult<?> StmtResult) {
             IR ir = method.getIR();
             ir.forEach(stmt -> out.println(toString(stmt, StmtResult)));
@@ -191,6 +196,15 @@ public class ResultProcessor extends ProgramAnalysis {
         out.println();
     }
 
+    /**
+     * Data-flow results of methods stored in IRs are results over
+     * statements, i.e., their nodes are {@link Stmt}s.
+     */
+    @SuppressWarnings("unchecked")
+    private static NodeResult<Stmt, ?> asStmtResult(NodeResult<?, ?> result) {
+        return (NodeResult<Stmt, ?>) result;
+    }
+
     /**
      * Converts an object to string representation.
      * Here we specially handle Stmt by calling IRPrint.toString().
@@ -232,21 +246,15 @@ public class ResultProcessor extends ProgramAnalysis {
                             " should be included");
                 }
             });
+        } else if (result instanceof NodeResult<?, ?> nodeResult) {
+            // stream the facts, building the line of one statement at a time
+            ResultQuery.of(method.getIR(), asStmtResult(nodeResult))
+                    .forEach(cursor -> compareLine(method, inputResult,
+                            toString(cursor.getStmt()), cursor.toString()));
         } else if (result instanceof StmtResult<?> StmtResult) {
-            Set<String> lines = inputs.get(new Pair<>(method.toString(), id));
             IR ir = method.getIR();
-            ir.forEach(stmt -> {
-                String stmtStr = toString(stmt);
-                String given = toString(stmt, StmtResult);
-                for (String line : lines) {
-                    if (line.startsWith(stmtStr) && !line.equals(given)) {
-                        int idx = stmtStr.length();
-                        mismatches.add(String.format("%s %s expected: %s, given: %s",
-                                method, stmtStr, line.substring(idx + 1),
-                                given.substring(idx + 1)));
-                    }
-                }
-            });
+            ir.forEach(stmt -> compareLine(method, inputResult,
+                    toString(stmt), toString(stmt, StmtResult)));
         } else if (inputResult.size() == 1) {
             if (!toString(result).equals(getOne(inputResult))) {
                 mismatches.add(String.format("%s expected: %s, given: %s",
@@ -258,4 +266,20 @@ public class ResultProcessor extends ProgramAnalysis {
                     id, method, inputResult, result);
         }
     }
+
+    /**
+     * Compares the given line of a statement with the expected lines
+     * which start with the statement.
+     */
+    private void compareLine(JMethod method, Set<String> lines,
+                             String stmtStr, String given) {
+        for (String line : lines) {
+            if (line.startsWith(stmtStr) && !line.equals(given)) {
+                int idx = stmtStr.length();
+                mismatches.add(String.format("%s %s expected: %s, given: %s",
+                        method, stmtStr, line.substring(idx + 1),
+                        given.substring(idx + 1)));
+            }
+        }
+    }
 }
@@ -22,30 +22,125 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.CachedAnalysis;
 import pascal.taie.analysis.MethodAnalysis;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.ResultCodec;
+import pascal.taie.analysis.dataflow.fact.FactInterner;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.IR;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
-        implements DataflowAnalysis<Node, Fact> {
+        implements DataflowAnalysis<Node, Fact>, CachedAnalysis {
+
+    private final DataflowDriver driver;
 
     private final Solver<Node, Fact> solver;
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        driver = new DataflowDriver(this, config);
+        solver = driver.newSolver(this);
+    }
+
+    @Override
+    public NodeResult<Node, Fact> analyze(IR ir) {
+        return driver.analyze(ir, getResultCodec(), () -> solve(ir));
+    }
+
+    /**
+     * Solves this analysis on given IR.
+     */
+    protected NodeResult<Node, Fact> solve(IR ir) {
+        return driver.solve(getSolver(ir), getCFG(ir));
+    }
+
+    /**
+     * @return the solver of this analysis on given IR. By default, all IRs
+     * are solved by the same solver; an analysis whose transfers depend on
+     * the analyzed IR overrides this method to return a solver of
+     * the transfers bound to the IR, e.g., by {@link #newSolver}.
+     */
+    protected Solver<Node, Fact> getSolver(IR ir) {
+        return solver;
+    }
+
+    /**
+     * @return a new solver of the configured kind for given analysis.
+     */
+    protected Solver<Node, Fact> newSolver(DataflowAnalysis<Node, Fact> analysis) {
+        return driver.newSolver(analysis);
+    }
+
+    /**
+     * @return the CFG of given IR to solve this analysis on.
+     */
+    protected CFG<Node> getCFG(IR ir) {
+        return driver.getCFG(ir);
+    }
+
+    /**
+     * @return the codec for caching the results of this analysis on disk,
+     * or null if the results cannot be cached.
+     */
+    @Nullable
+    protected ResultCodec<NodeResult<Node, Fact>> getResultCodec() {
+        return null;
+    }
+
+    /**
+     * Re-analyzes given IR incrementally after some of its nodes changed,
+     * reusing the facts of the previous result of this analysis.
+     * The result is the same as the one of {@link #analyze(IR)}.
+     *
+     * @see Solver#resolve(CFG, NodeResult, Collection, boolean)
+     */
+    public NodeResult<Node, Fact> reanalyze(
+            IR ir, NodeResult<Node, Fact> previous, Collection<Node> changed) {
+        return driver.resolve(getSolver(ir), getCFG(ir), previous, changed);
+    }
+
+    /**
+     * Re-analyzes given IR after an edit of its method, reusing the
+     * previous result of this analysis on the IR before the edit.
+     * The statements of the two IRs are matched as {@link CFGMatching}
+     * describes, and only the changed statements and the statements they
+     * affect are recomputed. The result is the same as the one of
+     * {@link #analyze(IR)}.
+     * <p>
+     * As facts may refer to variables, the previous result is reused only
+     * if both IRs have the same {@link pascal.taie.ir.exp.Var} objects,
+     * e.g., when the edited IR is built on the variables of the previous
+     * one; otherwise, e.g., when the IR is rebuilt with new variables,
+     * the IR is analyzed from scratch.
+     */
+    public NodeResult<Node, Fact> reanalyze(
+            IR ir, IR previousIR, NodeResult<Node, Fact> previous) {
+        return DataflowDriver.haveSameVars(ir, previousIR) ?
+                driver.reanalyze(getSolver(ir), ir, previousIR, previous) :
+                analyze(ir);
+    }
+
+    /**
+     * @return the statistics of interning the facts of the results,
+     * accumulated over the analyzed methods.
+     */
+    public FactInterner.Statistics getInternStatistics() {
+        return driver.getInternStatistics();
     }
 
     @Override
-    public DataflowResult<Node, Fact> analyze(IR ir) {
-        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+    public Map<String, AnalysisOptions> getUpstreamOptions() {
+        return driver.getUpstreamOptions();
     }
 
     /**
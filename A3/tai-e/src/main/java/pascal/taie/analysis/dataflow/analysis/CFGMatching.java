@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Matching between the statements of a method before and after an edit,
+ * which maps the result of an analysis on the CFG before the edit onto
+ * the CFG after the edit.
+ * <p>
+ * The statements are matched by their positions in the longest common
+ * prefix and suffix of the two statement lists, where two statements are
+ * equal if they are the same statement apart from their jump targets;
+ * the targets are compared as the edges of the CFGs instead. The entries
+ * and the exits of the CFGs are always matched. A statement after the
+ * edit is changed if it is not matched, or if its incoming or outgoing
+ * edges differ from the ones of its matched statement.
+ */
+class CFGMatching {
+
+    /**
+     * Map from the statements after the edit to the matched ones before.
+     */
+    private final Map<Stmt, Stmt> previousOf;
+
+    private final Set<Stmt> changed;
+
+    private CFGMatching(CFG<Stmt> previousCFG, CFG<Stmt> cfg) {
+        List<Stmt> previousStmts = previousCFG.getIR().getStmts();
+        List<Stmt> stmts = cfg.getIR().getStmts();
+        previousOf = Maps.newMap(cfg.getNumberOfNodes());
+        previousOf.put(cfg.getEntry(), previousCFG.getEntry());
+        previousOf.put(cfg.getExit(), previousCFG.getExit());
+        int prefix = 0;
+        while (prefix < previousStmts.size() && prefix < stmts.size() &&
+                isEqual(previousStmts.get(prefix), stmts.get(prefix))) {
+            previousOf.put(stmts.get(prefix), previousStmts.get(prefix));
+            ++prefix;
+        }
+        for (int i = previousStmts.size() - 1, j = stmts.size() - 1;
+             i >= prefix && j >= prefix &&
+                     isEqual(previousStmts.get(i), stmts.get(j)); --i, --j) {
+            previousOf.put(stmts.get(j), previousStmts.get(i));
+        }
+        changed = Sets.newSet();
+        for (Stmt stmt : cfg) {
+            Stmt previous = previousOf.get(stmt);
+            if (previous == null ||
+                    !previousCFG.hasNode(previous) ||
+                    !getNeighbors(cfg.getInEdgesOf(stmt), true, true).equals(
+                            getNeighbors(previousCFG.getInEdgesOf(previous), true, false)) ||
+                    !getNeighbors(cfg.getOutEdgesOf(stmt), false, true).equals(
+                            getNeighbors(previousCFG.getOutEdgesOf(previous), false, false))) {
+                changed.add(stmt);
+            }
+        }
+    }
+
+    /**
+     * @return the matching from the CFG before an edit to the CFG after.
+     */
+    static CFGMatching of(CFG<Stmt> previousCFG, CFG<Stmt> cfg) {
+        return new CFGMatching(previousCFG, cfg);
+    }
+
+    /**
+     * @return the statements after the edit which are changed.
+     */
+    Set<Stmt> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return a view of given result on the CFG before the edit, which
+     * gives the facts of the matched statements to the statements after
+     * the edit. The view must be only queried on the unchanged statements.
+     */
+    <Node, Fact> NodeResult<Node, Fact> mapResult(NodeResult<Node, Fact> previous) {
+        return new NodeResult<>() {
+            @Override
+            public Fact getInFact(Node node) {
+                return previous.getInFact(getPrevious(node));
+            }
+
+            @Override
+            public Fact getOutFact(Node node) {
+                return previous.getOutFact(getPrevious(node));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Node> Node getPrevious(Node node) {
+        return (Node) Objects.requireNonNull(previousOf.get((Stmt) node));
+    }
+
+    private static boolean isEqual(Stmt previous, Stmt stmt) {
+        return previous.getClass() == stmt.getClass() &&
+                signatureOf(previous).equals(signatureOf(stmt));
+    }
+
+    /**
+     * @return the string of given statement without its jump targets.
+     */
+    private static String signatureOf(Stmt stmt) {
+        if (stmt instanceof If ifStmt) {
+            return "if " + ifStmt.getCondition();
+        } else if (stmt instanceof Goto) {
+            return "goto";
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            return switchStmt.getInsnString() + " " + switchStmt.getVar() +
+                    " " + switchStmt.getCaseValues();
+        } else {
+            return stmt.toString();
+        }
+    }
+
+    /**
+     * @param map whether the neighbors are mapped to the matched statements
+     * @return the neighbors of a statement via given edges, which are the
+     * sources of the edges if {@code incoming} is true, otherwise the targets.
+     */
+    private Set<Neighbor> getNeighbors(Set<Edge<Stmt>> edges, boolean incoming,
+                                       boolean map) {
+        Set<Neighbor> neighbors = Sets.newHybridSet();
+        for (Edge<Stmt> edge : edges) {
+            Stmt node = incoming ? edge.getSource() : edge.getTarget();
+            neighbors.add(new Neighbor(edge.getKind(),
+                    edge.isSwitchCase() ? edge.getCaseValue() : 0,
+                    map ? previousOf.get(node) : node));
+        }
+        return neighbors;
+    }
+
+    /**
+     * A node adjacent to a statement via an edge of given kind (and case
+     * value), where the node is null if it has no matched statement.
+     */
+    private record Neighbor(Edge.Kind kind, int caseValue, @Nullable Stmt node) {
+    }
+}
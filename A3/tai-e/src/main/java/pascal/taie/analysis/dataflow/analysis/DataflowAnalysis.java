@@ -49,6 +49,17 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of given CFG.
+     * By default, this method ignores the CFG and delegates to
+     * {@link #newInitialFact()}. Analyses whose facts depend on the
+     * analyzed method (e.g., bit-vector facts over the variables of
+     * the method) should override this method.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
@@ -0,0 +1,240 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.Analysis;
+import pascal.taie.analysis.PlannedOptions;
+import pascal.taie.analysis.ResultCache;
+import pascal.taie.analysis.ResultCodec;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactInterner;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Solves data-flow analyses on IRs as configured by the solver options
+ * of an analysis, i.e., {@code solver}, {@code blocks},
+ * {@code parallel-threshold}, {@code in-facts-only}, {@code frozen-cfg},
+ * {@code intern-facts}, {@code cache} and {@code metrics}.
+ *
+ * @see AbstractDataflowAnalysis
+ * @see GenKillAnalysis
+ */
+class DataflowDriver {
+
+    /**
+     * The analysis whose options configure this driver.
+     */
+    private final Analysis owner;
+
+    @Nullable
+    private final String solverKind;
+
+    private final boolean blocks;
+
+    /**
+     * Minimum number of statements of the methods which are solved
+     * in parallel, or 0 if no method is solved in parallel.
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Whether the results keep only IN facts.
+     */
+    private final boolean inFactsOnly;
+
+    /**
+     * Whether the CFGs are solved in their frozen form.
+     */
+    private final boolean frozenCFG;
+
+    /**
+     * Whether the facts of the results are interned.
+     */
+    private final boolean internFacts;
+
+    private final FactInterner.Statistics internStatistics =
+            new FactInterner.Statistics();
+
+    /**
+     * Cache of the results on disk, or null if the results are not cached.
+     */
+    @Nullable
+    private final ResultCache cache;
+
+    /**
+     * Collector of the metrics of the solver, or null if they are not recorded.
+     */
+    @Nullable
+    private final SolverMetrics metrics;
+
+    /**
+     * Options of the CFG builder, whose CFGs the analysis is solved on.
+     */
+    private final Map<String, AnalysisOptions> upstreamOptions;
+
+    DataflowDriver(Analysis owner, AnalysisConfig config) {
+        this.owner = owner;
+        solverKind = config.getOptions().getString("solver");
+        blocks = config.getOptions().getBooleanOrDefault("blocks", false);
+        parallelThreshold = config.getOptions().get("parallel-threshold") != null ?
+                config.getOptions().getInt("parallel-threshold") : 0;
+        inFactsOnly = config.getOptions().getBooleanOrDefault("in-facts-only", false);
+        frozenCFG = config.getOptions().getBooleanOrDefault("frozen-cfg", false);
+        internFacts = config.getOptions().getBooleanOrDefault("intern-facts", false);
+        String cacheFile = config.getOptions().getString("cache");
+        cache = cacheFile != null ? ResultCache.open(Path.of(cacheFile)) : null;
+        String metricsFile = config.getOptions().getString("metrics");
+        metrics = metricsFile != null ? SolverMetrics.open(Path.of(metricsFile)) : null;
+        upstreamOptions = Map.of(CFGBuilder.ID, PlannedOptions.of(CFGBuilder.ID));
+    }
+
+    /**
+     * @see pascal.taie.analysis.CachedAnalysis#getUpstreamOptions()
+     */
+    Map<String, AnalysisOptions> getUpstreamOptions() {
+        return upstreamOptions;
+    }
+
+    /**
+     * @return a new solver of the configured kind for given analysis.
+     */
+    <Node, Fact> Solver<Node, Fact> newSolver(DataflowAnalysis<Node, Fact> analysis) {
+        return Solver.makeSolver(analysis, solverKind, blocks, parallelThreshold);
+    }
+
+    /**
+     * @return the CFG of given IR to solve the analysis on.
+     */
+    @SuppressWarnings("unchecked")
+    <Node> CFG<Node> getCFG(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return (CFG<Node>) (frozenCFG ? FrozenCFG.of(cfg) : cfg);
+    }
+
+    /**
+     * Analyzes given IR, taking the result from the cache if it is there.
+     *
+     * @param codec codec of the results, or null if they cannot be cached
+     * @param solve solves the analysis on the IR
+     */
+    <Node, Fact> NodeResult<Node, Fact> analyze(
+            IR ir, @Nullable ResultCodec<NodeResult<Node, Fact>> codec,
+            Supplier<NodeResult<Node, Fact>> solve) {
+        return finish(cache != null && codec != null ?
+                cache.getOrAnalyze(ir, owner, codec, solve) :
+                solve.get());
+    }
+
+    /**
+     * Solves given CFG by given solver, and records the metrics of solving.
+     */
+    <Node, Fact> NodeResult<Node, Fact> solve(
+            Solver<Node, Fact> solver, CFG<Node> cfg) {
+        return metrics != null ?
+                metrics.solve(owner.getId(), solver, cfg, inFactsOnly) :
+                solver.solve(cfg, inFactsOnly);
+    }
+
+    /**
+     * Re-solves given CFG incrementally by given solver.
+     *
+     * @see Solver#resolve(CFG, NodeResult, Collection, boolean)
+     */
+    <Node, Fact> NodeResult<Node, Fact> resolve(
+            Solver<Node, Fact> solver, CFG<Node> cfg,
+            NodeResult<Node, Fact> previous, Collection<Node> changed) {
+        return finish(solver.resolve(cfg, previous, changed, inFactsOnly));
+    }
+
+    /**
+     * Re-solves given IR incrementally by given solver after an edit of
+     * the method, reusing the previous result on the IR before the edit
+     * for the statements which are matched and unchanged by the edit.
+     *
+     * @see CFGMatching
+     */
+    <Node, Fact> NodeResult<Node, Fact> reanalyze(
+            Solver<Node, Fact> solver, IR ir,
+            IR previousIR, NodeResult<Node, Fact> previous) {
+        CFGMatching matching = CFGMatching.of(
+                previousIR.getResult(CFGBuilder.ID), ir.getResult(CFGBuilder.ID));
+        @SuppressWarnings("unchecked")
+        Collection<Node> changed = (Collection<Node>) (Collection<?>) matching.getChanged();
+        return resolve(solver, getCFG(ir), matching.mapResult(previous), changed);
+    }
+
+    /**
+     * @return true if given IRs have the same variables and parameters,
+     * so that the facts on one IR are valid facts on the other.
+     * The variables are compared by identity, as the facts refer to the
+     * {@link pascal.taie.ir.exp.Var} objects: an IR rebuilt by the frontend
+     * has new variables even if their names and indexes are the same as
+     * before, thus the facts of its previous IR are not reused for it.
+     */
+    static boolean haveSameVars(IR ir, IR previousIR) {
+        return ir.getVars().equals(previousIR.getVars()) &&
+                ir.getParams().equals(previousIR.getParams());
+    }
+
+    /**
+     * Interns the facts of given result if required. Results that are not
+     * {@link DataflowResult}s, e.g., the results of the block solver which
+     * compute most facts on queries, are left as they are.
+     */
+    private <Node, Fact, R extends NodeResult<Node, Fact>> R finish(R result) {
+        if (internFacts && result instanceof DataflowResult<Node, Fact> dataflowResult) {
+            // a checked interner lets assertions catch modified facts
+            FactInterner<Fact> interner = new FactInterner<>(
+                    DataflowDriver.class.desiredAssertionStatus());
+            dataflowResult.intern(interner);
+            internStatistics.record(interner);
+            if (metrics != null) {
+                metrics.recordInterning(owner.getId(), interner);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the statistics of interning the facts of the results,
+     * accumulated over the analyzed methods.
+     */
+    FactInterner.Statistics getInternStatistics() {
+        return internStatistics;
+    }
+}
@@ -22,49 +22,129 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.CachedAnalysis;
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.PlannedOptions;
+import pascal.taie.analysis.ResultCache;
+import pascal.taie.analysis.ResultCodec;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Evaluators;
+import pascal.taie.analysis.dataflow.analysis.constprop.SCCP;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.defuse.LivenessQuery;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.SetQueue;
 
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Collectors;
 
-public class DeadCodeDetection extends MethodAnalysis {
+import static pascal.taie.analysis.ResultCodec.readVarInt;
+import static pascal.taie.analysis.ResultCodec.writeVarInt;
+
+public class DeadCodeDetection extends MethodAnalysis implements CachedAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Cache of the results on disk, or null if the results are not cached.
+     */
+    @Nullable
+    private final ResultCache cache;
+
+    /**
+     * Constant propagation which runs inside this analysis in fused mode,
+     * or null if this analysis uses the results of constprop and livevar.
+     */
+    @Nullable
+    private final ConstantPropagation fusedConstprop;
+
+    /**
+     * Whether dead assignments are detected by {@link LivenessQuery}
+     * instead of the result of livevar.
+     */
+    private final boolean liveQuery;
+
+    /**
+     * Options of the analyses whose results this analysis uses.
+     */
+    private final Map<String, AnalysisOptions> upstreamOptions;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        String cacheFile = getOptions().getString("cache");
+        cache = cacheFile != null ? ResultCache.open(Path.of(cacheFile)) : null;
+        // the fused constant propagation takes the configuration of constprop
+        fusedConstprop = getOptions().getBooleanOrDefault("fused", false) ?
+                new ConstantPropagation(
+                        PlannedOptions.configOf(ConstantPropagation.ID)) :
+                null;
+        liveQuery = getOptions().getBooleanOrDefault("live-query", false);
+        List<String> upstreams = new ArrayList<>(
+                List.of(CFGBuilder.ID, ConstantPropagation.ID));
+        if (fusedConstprop == null && !liveQuery) {
+            upstreams.add(LiveVariableAnalysis.ID);
+        }
+        upstreamOptions = upstreams.stream()
+                .collect(Collectors.toMap(id -> id, PlannedOptions::of));
+    }
+
+    @Override
+    public int getSemanticsVersion() {
+        return 1;
+    }
+
+    @Override
+    public Map<String, AnalysisOptions> getUpstreamOptions() {
+        return upstreamOptions;
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        return cache != null ?
+                cache.getOrAnalyze(ir, this, new DeadCodeCodec(), () -> detect(ir)) :
+                detect(ir);
+    }
+
+    private Set<Stmt> detect(IR ir) {
+        if (fusedConstprop != null) {
+            return detectFused(ir);
+        }
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants =
+        NodeResult<Stmt, CPFact> constants =
                 ir.getResult(ConstantPropagation.ID);
-        // obtain result of live variable analysis
-        DataflowResult<Stmt, SetFact<Var>> liveVars =
-                ir.getResult(LiveVariableAnalysis.ID);
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // Your task is to recognize dead code in ir and add it to deadCode
         analyzeUnreachableCode(deadCode, constants, cfg);
 
-        analyzeDeadAssignment(deadCode, liveVars, cfg);
+        if (liveQuery) {
+            analyzeDeadAssignment(deadCode, LivenessQuery.of(ir), cfg);
+        } else {
+            // obtain result of live variable analysis
+            NodeResult<Stmt, SetFact<Var>> liveVars =
+                    ir.getResult(LiveVariableAnalysis.ID);
+            analyzeDeadAssignment(deadCode, liveVars, cfg);
+        }
         //exit不应出现于死代码中
         deadCode.remove(cfg.getExit());
         return deadCode;
@@ -77,9 +157,10 @@ public class DeadCodeDetection extends MethodAnalysis {
      * @param constants Constants
      * @param cfg       cfg
      */
-    private void analyzeUnreachableCode(Set<Stmt> deadCode, DataflowResult<Stmt, CPFact> constants, CFG<Stmt> cfg) {
+    private void analyzeUnreachableCode(Set<Stmt> deadCode, NodeResult<Stmt, CPFact> constants, CFG<Stmt> cfg) {
         Set<Stmt> traversedStmt = new HashSet<>();
         Queue<Stmt> queue = new LinkedList<>();
+        Evaluators evaluators = Evaluators.of(cfg.getIR());
 
         queue.add(cfg.getEntry());
         //traverse the CFG
@@ -88,9 +169,8 @@ public class DeadCodeDetection extends MethodAnalysis {
             if (traversedStmt.contains(stmt)) continue;
             traversedStmt.add(stmt);
 
-            if (stmt instanceof If ifStmt) {
-                ConditionExp conditionExp = ifStmt.getCondition();
-                Value conditionResult = ConstantPropagation.evaluate(conditionExp, constants.getOutFact(stmt));
+            if (stmt instanceof If) {
+                Value conditionResult = evaluators.get(stmt).evaluate(constants.getOutFact(stmt));
                 boolean isConstant = conditionResult.isConstant();
                 if (!isConstant) {
                     queue.addAll(cfg.getSuccsOf(stmt));
@@ -107,9 +187,7 @@ public class DeadCodeDetection extends MethodAnalysis {
                     } else throw new RuntimeException("wrong edge");
                 }
             } else if (stmt instanceof SwitchStmt switchStmt) {
-                Var var = switchStmt.getVar();
-                //Value caseValue = constants.getOutFact(stmt).get(var);
-                Value caseValue = ConstantPropagation.evaluate(var, constants.getOutFact(stmt));
+                Value caseValue = evaluators.get(stmt).evaluate(constants.getOutFact(stmt));
 
                 boolean isConstant = caseValue.isConstant();
                 if (!isConstant) {
@@ -151,7 +229,7 @@ public class DeadCodeDetection extends MethodAnalysis {
      * @param liveVars liveVars
      * @param cfg      cfg
      */
-    private void analyzeDeadAssignment(Set<Stmt> deadCode, DataflowResult<Stmt, SetFact<Var>> liveVars, CFG<Stmt> cfg) {
+    private void analyzeDeadAssignment(Set<Stmt> deadCode, NodeResult<Stmt, SetFact<Var>> liveVars, CFG<Stmt> cfg) {
         for (Stmt stmt : cfg) {
             if (stmt instanceof AssignStmt<?, ?> assignStmt) {
                 LValue def = assignStmt.getLValue();
@@ -163,6 +241,99 @@ public class DeadCodeDetection extends MethodAnalysis {
         }
     }
 
+    /**
+     * Analyzes the dead assignments by querying the liveness of only the
+     * variables assigned by side-effect-free assignments.
+     */
+    private void analyzeDeadAssignment(Set<Stmt> deadCode, LivenessQuery liveness, CFG<Stmt> cfg) {
+        for (Stmt stmt : cfg) {
+            if (stmt instanceof AssignStmt<?, ?> assignStmt &&
+                    assignStmt.getLValue() instanceof Var var &&
+                    hasNoSideEffect(assignStmt.getRValue()) &&
+                    !liveness.isLiveOut(stmt, var)) {
+                deadCode.add(stmt);
+            }
+        }
+    }
+
+    /**
+     * Detects dead code without the results of constprop and livevar.
+     * Branch conditions are evaluated while constants are propagated
+     * (by {@link SCCP}), so the statements that are never marked executable
+     * are unreachable. Then liveness is computed only over the executable
+     * statements and edges, in a backward sweep that revisits statements
+     * only for loops, and the dead assignments are reported from it.
+     */
+    private Set<Stmt> detectFused(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        SCCP.Result constants = fusedConstprop.solveSparse(cfg);
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : cfg) {
+            if (!constants.isExecutable(stmt)) {
+                deadCode.add(stmt);
+            }
+        }
+        // live variables at the entry of each executable statement
+        BitSet[] liveIn = new BitSet[cfg.getNumberOfNodes()];
+        Arrays.setAll(liveIn, i -> new BitSet());
+        // visit statements in reverse order, so that straight-line code
+        // is swept only once
+        Queue<Stmt> workList = new SetQueue<>();
+        List<Stmt> stmts = new ArrayList<>(cfg.getNodes());
+        stmts.sort(Comparator.comparing(Stmt::getIndex).reversed());
+        for (Stmt stmt : stmts) {
+            if (constants.isExecutable(stmt)) {
+                workList.add(stmt);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            BitSet in = getLiveOut(stmt, constants, cfg, liveIn);
+            if (stmt.getDef().isPresent() && stmt.getDef().get() instanceof Var def) {
+                in.clear(def.getIndex());
+            }
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    in.set(var.getIndex());
+                }
+            }
+            if (!in.equals(liveIn[stmt.getIndex()])) {
+                liveIn[stmt.getIndex()] = in;
+                for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                    if (constants.isExecutable(edge)) {
+                        workList.add(edge.getSource());
+                    }
+                }
+            }
+        }
+        for (Stmt stmt : cfg) {
+            if (constants.isExecutable(stmt) &&
+                    stmt instanceof AssignStmt<?, ?> assignStmt &&
+                    assignStmt.getLValue() instanceof Var var &&
+                    !getLiveOut(stmt, constants, cfg, liveIn).get(var.getIndex()) &&
+                    hasNoSideEffect(assignStmt.getRValue())) {
+                deadCode.add(stmt);
+            }
+        }
+        deadCode.remove(cfg.getExit());
+        return deadCode;
+    }
+
+    /**
+     * @return a new set of the variables that are live at the exit of
+     * given statement, following only the executable edges.
+     */
+    private static BitSet getLiveOut(Stmt stmt, SCCP.Result constants,
+                                     CFG<Stmt> cfg, BitSet[] liveIn) {
+        BitSet out = new BitSet();
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+            if (constants.isExecutable(edge)) {
+                out.or(liveIn[edge.getTarget().getIndex()]);
+            }
+        }
+        return out;
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
@@ -185,4 +356,27 @@ public class DeadCodeDetection extends MethodAnalysis {
         }
         return true;
     }
+
+    /**
+     * Encodes dead code as the number of statements followed by their indexes.
+     */
+    static class DeadCodeCodec implements ResultCodec<Set<Stmt>> {
+
+        @Override
+        public void write(IR ir, Set<Stmt> deadCode, DataOutput out) throws IOException {
+            writeVarInt(out, deadCode.size());
+            for (Stmt stmt : deadCode) {
+                writeVarInt(out, stmt.getIndex());
+            }
+        }
+
+        @Override
+        public Set<Stmt> read(IR ir, DataInput in) throws IOException {
+            Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+            for (int n = readVarInt(in); n > 0; --n) {
+                deadCode.add(ir.getStmt(readVarInt(in)));
+            }
+            return deadCode;
+        }
+    }
 }
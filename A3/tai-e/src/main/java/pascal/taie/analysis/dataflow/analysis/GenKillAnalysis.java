@@ -0,0 +1,353 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.CachedAnalysis;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.ResultCodec;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.BitSetKernel;
+import pascal.taie.analysis.dataflow.fact.DataflowResultCodec;
+import pascal.taie.analysis.dataflow.fact.FactInterner;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexable;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static pascal.taie.analysis.ResultCodec.readVarInt;
+import static pascal.taie.analysis.ResultCodec.writeVarInt;
+
+/**
+ * Base class of gen/kill (a.k.a. bit-vector) data-flow analyses, where
+ * the transfer function of each statement is {@code OUT = gen ∪ (IN - kill)}
+ * for forward analyses, and {@code IN = gen ∪ (OUT - kill)} for backward
+ * analyses.
+ * <p>
+ * A subclass declares the gen and kill sets of the statements of a method
+ * once, before solving, and the solver applies the transfers by word-wise
+ * operations on {@link BitSetFact}s. The analysis is solved by the same
+ * machinery as {@link AbstractDataflowAnalysis}, thus it accepts the same
+ * solver options.
+ *
+ * @param <E> type of elements of the data-flow facts
+ */
+public abstract class GenKillAnalysis<E extends Indexable> extends MethodAnalysis
+        implements CachedAnalysis {
+
+    private final DataflowDriver driver;
+
+    /**
+     * Kernel of the word-wise operations of the facts.
+     */
+    private final BitSetKernel kernel;
+
+    protected GenKillAnalysis(AnalysisConfig config) {
+        super(config);
+        driver = new DataflowDriver(this, config);
+        kernel = getOptions().getBooleanOrDefault("vector", false) ?
+                BitSetKernel.vector() : BitSetKernel.scalar();
+    }
+
+    /**
+     * @return true if this analysis is forward, otherwise false.
+     */
+    protected abstract boolean isForward();
+
+    /**
+     * @return true if this analysis is a may analysis, whose meet is union
+     * and whose initial facts are empty; false if this analysis is a must
+     * analysis, whose meet is intersection and whose initial facts contain
+     * all elements.
+     */
+    protected abstract boolean isMay();
+
+    /**
+     * @return all elements that may appear in the facts for given IR.
+     * The element whose index is {@code i} must be at position {@code i}.
+     */
+    protected abstract List<E> getUniverse(IR ir);
+
+    /**
+     * Declares the gen and kill sets of the statements of given IR.
+     */
+    protected abstract void computeGenKill(IR ir, GenKill<E> genKill);
+
+    @Override
+    public NodeResult<Stmt, SetFact<E>> analyze(IR ir) {
+        List<E> universe = getUniverse(ir);
+        return driver.analyze(ir,
+                new DataflowResultCodec<>(new SetFactCodec<>(universe, kernel)),
+                () -> {
+                    CFG<Stmt> cfg = driver.getCFG(ir);
+                    return driver.solve(newSolver(ir, cfg, universe), cfg);
+                });
+    }
+
+    /**
+     * Re-analyzes given IR incrementally after some of its statements
+     * changed, reusing the facts of the previous result of this analysis.
+     * The result is the same as the one of {@link #analyze(IR)}.
+     * The universe of the facts must be the same as before the changes.
+     *
+     * @see Solver#resolve(CFG, NodeResult, Collection, boolean)
+     */
+    public NodeResult<Stmt, SetFact<E>> reanalyze(
+            IR ir, NodeResult<Stmt, SetFact<E>> previous, Collection<Stmt> changed) {
+        CFG<Stmt> cfg = driver.getCFG(ir);
+        return driver.resolve(newSolver(ir, cfg, getUniverse(ir)),
+                cfg, previous, changed);
+    }
+
+    /**
+     * Re-analyzes given IR after an edit of its method, reusing the
+     * previous result of this analysis on the IR before the edit, as
+     * {@link AbstractDataflowAnalysis#reanalyze(IR, IR, NodeResult)} does.
+     * The previous result is reused only if the universes of the facts
+     * of both IRs are the same, e.g., never for reaching definitions,
+     * whose universe is the statements.
+     */
+    public NodeResult<Stmt, SetFact<E>> reanalyze(
+            IR ir, IR previousIR, NodeResult<Stmt, SetFact<E>> previous) {
+        List<E> universe = getUniverse(ir);
+        if (!universe.equals(getUniverse(previousIR))) {
+            return analyze(ir);
+        }
+        CFG<Stmt> cfg = driver.getCFG(ir);
+        return driver.reanalyze(newSolver(ir, cfg, universe), ir, previousIR, previous);
+    }
+
+    /**
+     * @return a solver of the gen/kill transfers of given IR.
+     */
+    private Solver<Stmt, SetFact<E>> newSolver(IR ir, CFG<Stmt> cfg, List<E> universe) {
+        GenKill<E> genKill = new GenKill<>(universe, ir.getStmts().size(), kernel);
+        computeGenKill(ir, genKill);
+        return driver.newSolver(new Transfer(cfg, genKill));
+    }
+
+    /**
+     * @return the statistics of interning the facts of the results,
+     * accumulated over the analyzed methods.
+     */
+    public FactInterner.Statistics getInternStatistics() {
+        return driver.getInternStatistics();
+    }
+
+    @Override
+    public Map<String, AnalysisOptions> getUpstreamOptions() {
+        return driver.getUpstreamOptions();
+    }
+
+    /**
+     * Gen and kill sets of the statements of a method. A statement without
+     * gen (kill) set generates (kills) nothing. Statements may share sets.
+     */
+    public static class GenKill<E extends Indexable> {
+
+        private final List<E> universe;
+
+        private final List<BitSetFact<E>> gens;
+
+        private final List<BitSetFact<E>> kills;
+
+        private final BitSetKernel kernel;
+
+        private GenKill(List<E> universe, int stmts, BitSetKernel kernel) {
+            this.universe = universe;
+            this.kernel = kernel;
+            this.gens = new ArrayList<>(Collections.nCopies(stmts, null));
+            this.kills = new ArrayList<>(Collections.nCopies(stmts, null));
+        }
+
+        public List<E> getUniverse() {
+            return universe;
+        }
+
+        /**
+         * @return a new empty set over the universe.
+         */
+        public BitSetFact<E> newSet() {
+            return new BitSetFact<>(universe, kernel);
+        }
+
+        /**
+         * @return the gen set of given statement, which is created
+         * when it is first requested.
+         */
+        public BitSetFact<E> gen(Stmt stmt) {
+            return getOrCreate(gens, stmt);
+        }
+
+        /**
+         * @return the kill set of given statement, which is created
+         * when it is first requested.
+         */
+        public BitSetFact<E> kill(Stmt stmt) {
+            return getOrCreate(kills, stmt);
+        }
+
+        /**
+         * Sets the kill set of given statement to given set,
+         * which may be shared by other statements.
+         */
+        public void setKill(Stmt stmt, BitSetFact<E> kill) {
+            kills.set(stmt.getIndex(), kill);
+        }
+
+        private BitSetFact<E> getOrCreate(List<BitSetFact<E>> sets, Stmt stmt) {
+            BitSetFact<E> set = sets.get(stmt.getIndex());
+            if (set == null) {
+                set = newSet();
+                sets.set(stmt.getIndex(), set);
+            }
+            return set;
+        }
+
+        @Nullable
+        private BitSetFact<E> getGen(Stmt stmt) {
+            int index = stmt.getIndex();
+            return index < gens.size() ? gens.get(index) : null;
+        }
+
+        @Nullable
+        private BitSetFact<E> getKill(Stmt stmt) {
+            int index = stmt.getIndex();
+            return index < kills.size() ? kills.get(index) : null;
+        }
+    }
+
+    /**
+     * The data-flow analysis of a method, which applies the gen/kill
+     * transfers of the method.
+     */
+    private class Transfer implements DataflowAnalysis<Stmt, SetFact<E>> {
+
+        private final CFG<Stmt> cfg;
+
+        private final GenKill<E> genKill;
+
+        private Transfer(CFG<Stmt> cfg, GenKill<E> genKill) {
+            this.cfg = cfg;
+            this.genKill = genKill;
+        }
+
+        @Override
+        public boolean isForward() {
+            return GenKillAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<E> newBoundaryFact(CFG<Stmt> cfg) {
+            return genKill.newSet();
+        }
+
+        @Override
+        public SetFact<E> newInitialFact() {
+            BitSetFact<E> fact = genKill.newSet();
+            if (!isMay()) {
+                fact.fill();
+            }
+            return fact;
+        }
+
+        @Override
+        public void meetInto(SetFact<E> fact, SetFact<E> target) {
+            if (isMay()) {
+                target.union(fact);
+            } else {
+                target.intersect(fact);
+            }
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+            if (isForward()) {
+                // keep the boundary fact of the entry
+                return !cfg.isEntry(stmt) && ((BitSetFact<E>) out).setGenKill(
+                        (BitSetFact<E>) in, genKill.getGen(stmt), genKill.getKill(stmt));
+            } else {
+                // keep the boundary fact of the exit
+                return !cfg.isExit(stmt) && ((BitSetFact<E>) in).setGenKill(
+                        (BitSetFact<E>) out, genKill.getGen(stmt), genKill.getKill(stmt));
+            }
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public SetFact<E> transferEdge(Edge<Stmt> edge, SetFact<E> nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Encodes a fact as its size followed by the indexes of its elements.
+     */
+    static class SetFactCodec<E extends Indexable> implements ResultCodec<SetFact<E>> {
+
+        private final List<E> universe;
+
+        private final BitSetKernel kernel;
+
+        SetFactCodec(List<E> universe, BitSetKernel kernel) {
+            this.universe = universe;
+            this.kernel = kernel;
+        }
+
+        @Override
+        public void write(IR ir, SetFact<E> fact, DataOutput out) throws IOException {
+            writeVarInt(out, fact.size());
+            for (E e : fact.stream().toList()) {
+                writeVarInt(out, e.getIndex());
+            }
+        }
+
+        @Override
+        public SetFact<E> read(IR ir, DataInput in) throws IOException {
+            BitSetFact<E> fact = new BitSetFact<>(universe, kernel);
+            for (int n = readVarInt(in); n > 0; --n) {
+                fact.add(universe.get(readVarInt(in)));
+            }
+            return fact;
+        }
+    }
+}
@@ -22,19 +22,22 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
-import pascal.taie.analysis.dataflow.fact.SetFact;
-import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of classic live variable analysis.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends GenKillAnalysis<Var> {
 
     public static final String ID = "livevar";
 
@@ -43,48 +46,45 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public boolean isForward() {
-        return false;
+    public int getSemanticsVersion() {
+        return 1;
     }
 
     @Override
-    public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        return new SetFact<Var>();
+    protected boolean isForward() {
+        return false;
     }
 
     @Override
-    public SetFact<Var> newInitialFact() {
-        return new SetFact<Var>();
+    protected boolean isMay() {
+        return true;
     }
 
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        target.union(fact);
+    protected List<Var> getUniverse(IR ir) {
+        return ir.getVars();
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        boolean changed = false;
-
-        SetFact<Var> inUpdated = new SetFact<Var>();
-        inUpdated.set(out);
-
-        if (stmt.getDef().isPresent()) {
-            LValue def = stmt.getDef().get();
-            if (def instanceof Var)
-                inUpdated.remove((Var) def);
-        }
-        for (RValue use : stmt.getUses()) {
-            if (use instanceof Var) {
-                inUpdated.add((Var) use);
+    protected void computeGenKill(IR ir, GenKill<Var> genKill) {
+        // IN = use U (OUT - def)
+        Map<Var, BitSetFact<Var>> kills = Maps.newMap();
+        for (Stmt stmt : ir) {
+            if (stmt.getDef().isPresent()) {
+                LValue def = stmt.getDef().get();
+                if (def instanceof Var var) {
+                    genKill.setKill(stmt, kills.computeIfAbsent(var, v -> {
+                        BitSetFact<Var> kill = genKill.newSet();
+                        kill.add(v);
+                        return kill;
+                    }));
+                }
+            }
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    genKill.gen(stmt).add(var);
+                }
             }
         }
-
-        if (!inUpdated.equals(in))
-            changed = true;
-
-        in.set(inUpdated);
-
-        return changed;
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.ProductFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product of several data-flow analyses of the same direction, which
+ * solves them together in one traversal of the CFG. The facts of the
+ * product are {@link ProductFact}s, whose i-th components are the facts
+ * of the i-th analysis.
+ * <p>
+ * Each component keeps its own change status: at a node, the transfer
+ * of a component is skipped if none of the facts met into the component
+ * has changed since its last transfer at the node, as the transfer would
+ * produce the same fact again. Thus, the components which converge early
+ * cost only the meets while the others are still iterating. The status is
+ * kept by the facts created by this analysis, see {@link StampedFact};
+ * the transfers of other facts are never skipped.
+ * <p>
+ * The result of each analysis can be obtained by {@link #project}.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public class ProductAnalysis<Node> implements DataflowAnalysis<Node, ProductFact> {
+
+    private final List<DataflowAnalysis<Node, Object>> analyses;
+
+    private final boolean isForward;
+
+    /**
+     * @throws IllegalArgumentException if there are no analyses,
+     *                                  or the analyses are of different directions.
+     */
+    @SuppressWarnings("unchecked")
+    public ProductAnalysis(List<? extends DataflowAnalysis<Node, ?>> analyses) {
+        if (analyses.isEmpty()) {
+            throw new IllegalArgumentException("No analyses to be solved together");
+        }
+        this.analyses = new ArrayList<>();
+        for (DataflowAnalysis<Node, ?> analysis : analyses) {
+            this.analyses.add((DataflowAnalysis<Node, Object>) analysis);
+        }
+        isForward = analyses.get(0).isForward();
+        for (DataflowAnalysis<Node, ?> analysis : analyses) {
+            if (analysis.isForward() != isForward) {
+                throw new IllegalArgumentException(
+                        "Cannot solve forward and backward analyses together");
+            }
+        }
+    }
+
+    /**
+     * @return the analyses of this product.
+     */
+    public List<DataflowAnalysis<Node, ?>> getAnalyses() {
+        return List.copyOf(analyses);
+    }
+
+    @Override
+    public boolean isForward() {
+        return isForward;
+    }
+
+    @Override
+    public ProductFact newBoundaryFact(CFG<Node> cfg) {
+        List<Object> facts = new ArrayList<>(analyses.size());
+        for (DataflowAnalysis<Node, Object> analysis : analyses) {
+            facts.add(analysis.newBoundaryFact(cfg));
+        }
+        return new StampedFact(facts);
+    }
+
+    @Override
+    public ProductFact newInitialFact() {
+        List<Object> facts = new ArrayList<>(analyses.size());
+        for (DataflowAnalysis<Node, Object> analysis : analyses) {
+            facts.add(analysis.newInitialFact());
+        }
+        return new StampedFact(facts);
+    }
+
+    @Override
+    public ProductFact newInitialFact(CFG<Node> cfg) {
+        List<Object> facts = new ArrayList<>(analyses.size());
+        for (DataflowAnalysis<Node, Object> analysis : analyses) {
+            facts.add(analysis.newInitialFact(cfg));
+        }
+        return new StampedFact(facts);
+    }
+
+    @Override
+    public void meetInto(ProductFact fact, ProductFact target) {
+        for (int i = 0; i < analyses.size(); ++i) {
+            analyses.get(i).meetInto(fact.get(i), target.get(i));
+        }
+        if (target instanceof StampedFact stampedTarget) {
+            if (fact instanceof StampedFact stampedFact) {
+                stampedTarget.recordMeet(stampedFact);
+            } else {
+                // changes of the met fact are unknown,
+                // thus the next transfer must not be skipped
+                stampedTarget.lastTarget = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean transferNode(Node node, ProductFact in, ProductFact out) {
+        // the fact which the other facts are met into is the source of
+        // the transfer, i.e., IN (OUT) fact in forward (backward) analysis
+        ProductFact source = isForward ? in : out;
+        ProductFact target = isForward ? out : in;
+        StampedFact stampedSource = source instanceof StampedFact s ? s : null;
+        StampedFact stampedTarget = target instanceof StampedFact t ? t : null;
+        // all components may have changed if the last transfer
+        // which read the source wrote another fact
+        boolean retarget = stampedSource == null || stampedTarget == null ||
+                stampedSource.lastTarget != stampedTarget;
+        if (stampedSource != null) {
+            stampedSource.lastTarget = stampedTarget;
+        }
+        boolean changed = false;
+        for (int i = 0; i < analyses.size(); ++i) {
+            boolean dirty = retarget | (stampedSource != null && stampedSource.startTransfer(i));
+            if (dirty && analyses.get(i).transferNode(node, in.get(i), out.get(i))) {
+                if (stampedTarget != null) {
+                    ++stampedTarget.versions[i];
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Node> edge) {
+        for (DataflowAnalysis<Node, Object> analysis : analyses) {
+            if (analysis.needTransferEdge(edge)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ProductFact transferEdge(Edge<Node> edge, ProductFact nodeFact) {
+        List<Object> facts = new ArrayList<>(analyses.size());
+        for (int i = 0; i < analyses.size(); ++i) {
+            DataflowAnalysis<Node, Object> analysis = analyses.get(i);
+            facts.add(analysis.needTransferEdge(edge) ?
+                    analysis.transferEdge(edge, nodeFact.get(i)) :
+                    nodeFact.get(i));
+        }
+        StampedFact result = new StampedFact(facts);
+        // the fact flowing through the edge changes with the node fact
+        if (nodeFact instanceof StampedFact stampedFact) {
+            System.arraycopy(stampedFact.versions, 0,
+                    result.versions, 0, result.versions.length);
+        }
+        return result;
+    }
+
+    /**
+     * @return the view of the result of the i-th analysis
+     * in given result of this product.
+     */
+    public <Fact> NodeResult<Node, Fact> project(
+            NodeResult<Node, ProductFact> result, int i) {
+        return new NodeResult<>() {
+            @Override
+            public Fact getInFact(Node node) {
+                return result.getInFact(node).get(i);
+            }
+
+            @Override
+            public Fact getOutFact(Node node) {
+                return result.getOutFact(node).get(i);
+            }
+        };
+    }
+
+    /**
+     * Product fact which keeps the bookkeeping that lets the product
+     * skip the transfers of the components which are stable at a node:
+     * a version per component, which increases each time a transfer
+     * changes the component of this fact, and for the fact which other
+     * facts are met into, the versions of the facts met into each
+     * component since the last transfer.
+     */
+    private static class StampedFact extends ProductFact {
+
+        /**
+         * Number of times each component of this fact has been changed
+         * by transfers.
+         */
+        private final int[] versions;
+
+        /**
+         * Sums of the versions of the facts met into each component since
+         * the last transfer which read this fact.
+         */
+        private final long[] metVersions;
+
+        /**
+         * Sums of the versions of the facts met into each component before
+         * the last transfer which read this fact.
+         */
+        private final long[] lastMetVersions;
+
+        /**
+         * The fact written by the last transfer which read this fact,
+         * or null if no transfer has read this fact.
+         */
+        private StampedFact lastTarget;
+
+        private StampedFact(List<?> facts) {
+            super(facts);
+            versions = new int[facts.size()];
+            metVersions = new long[facts.size()];
+            lastMetVersions = new long[facts.size()];
+        }
+
+        /**
+         * Records that the components of given fact have been met into
+         * the components of this fact.
+         */
+        private void recordMeet(StampedFact fact) {
+            for (int i = 0; i < versions.length; ++i) {
+                metVersions[i] += fact.versions[i];
+            }
+        }
+
+        /**
+         * Starts a transfer of the i-th component which reads this fact.
+         *
+         * @return true if the facts met into the i-th component have
+         * changed since the last transfer.
+         */
+        private boolean startTransfer(int i) {
+            boolean dirty = metVersions[i] != lastMetVersions[i];
+            lastMetVersions[i] = metVersions[i];
+            metVersions[i] = 0;
+            return dirty;
+        }
+    }
+}
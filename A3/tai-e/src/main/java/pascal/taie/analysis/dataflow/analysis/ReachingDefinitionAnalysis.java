@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.defuse.DefUseIndex;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of classic reaching definition analysis,
+ * where the definitions are the statements that define variables.
+ */
+public class ReachingDefinitionAnalysis extends GenKillAnalysis<Stmt> {
+
+    public static final String ID = "reachdef";
+
+    public ReachingDefinitionAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public int getSemanticsVersion() {
+        return 1;
+    }
+
+    @Override
+    protected boolean isForward() {
+        return true;
+    }
+
+    @Override
+    protected boolean isMay() {
+        return true;
+    }
+
+    @Override
+    protected List<Stmt> getUniverse(IR ir) {
+        return ir.getStmts();
+    }
+
+    @Override
+    protected void computeGenKill(IR ir, GenKill<Stmt> genKill) {
+        // a definition of a variable kills all definitions of the variable
+        DefUseIndex defUse = DefUseIndex.of(ir);
+        Map<Var, BitSetFact<Stmt>> kills = Maps.newMap();
+        for (Stmt stmt : ir) {
+            Var def = getDef(stmt);
+            if (def != null) {
+                genKill.gen(stmt).add(stmt);
+                genKill.setKill(stmt, kills.computeIfAbsent(def, v -> {
+                    BitSetFact<Stmt> kill = genKill.newSet();
+                    defUse.defsOf(v).forEach(kill::add);
+                    return kill;
+                }));
+            }
+        }
+    }
+
+    /**
+     * @return the variable defined by given statement, or null if
+     * the statement defines no variable.
+     */
+    @Nullable
+    private static Var getDef(Stmt stmt) {
+        LValue def = stmt.getDef().orElse(null);
+        return def instanceof Var ? (Var) def : null;
+    }
+}
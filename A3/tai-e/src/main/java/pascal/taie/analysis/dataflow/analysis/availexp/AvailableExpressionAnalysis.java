@@ -0,0 +1,164 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.availexp;
+
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.CastExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.InstanceOfExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.UnaryExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of classic available expression analysis. The tracked
+ * expressions are the binary, unary, instanceof and cast expressions
+ * on the right-hand side of definition statements; syntactically equal
+ * expressions are regarded as the same expression.
+ */
+public class AvailableExpressionAnalysis extends GenKillAnalysis<ExpWrapper> {
+
+    public static final String ID = "availexp";
+
+    public AvailableExpressionAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public int getSemanticsVersion() {
+        return 1;
+    }
+
+    @Override
+    protected boolean isForward() {
+        return true;
+    }
+
+    @Override
+    protected boolean isMay() {
+        return false;
+    }
+
+    @Override
+    protected List<ExpWrapper> getUniverse(IR ir) {
+        List<ExpWrapper> universe = new ArrayList<>();
+        Map<ExpKey, ExpWrapper> wrappers = Maps.newMap();
+        for (Stmt stmt : ir) {
+            Exp exp = getRelevantExp(stmt);
+            if (exp != null) {
+                wrappers.computeIfAbsent(ExpKey.of(exp), k -> {
+                    ExpWrapper wrapper = new ExpWrapper(universe.size(), exp);
+                    universe.add(wrapper);
+                    return wrapper;
+                });
+            }
+        }
+        return universe;
+    }
+
+    @Override
+    protected void computeGenKill(IR ir, GenKill<ExpWrapper> genKill) {
+        Map<ExpKey, ExpWrapper> wrappers = Maps.newMap();
+        // a definition of a variable kills all expressions that use it
+        Map<Var, BitSetFact<ExpWrapper>> kills = Maps.newMap();
+        for (ExpWrapper wrapper : genKill.getUniverse()) {
+            wrappers.put(ExpKey.of(wrapper.get()), wrapper);
+            for (RValue use : wrapper.get().getUses()) {
+                if (use instanceof Var var) {
+                    kills.computeIfAbsent(var, v -> genKill.newSet())
+                            .add(wrapper);
+                }
+            }
+        }
+        for (Stmt stmt : ir) {
+            BitSetFact<ExpWrapper> kill = null;
+            if (stmt instanceof DefinitionStmt<?, ?> defStmt
+                    && defStmt.getLValue() instanceof Var def) {
+                kill = kills.get(def);
+                if (kill != null) {
+                    genKill.setKill(stmt, kill);
+                }
+            }
+            Exp exp = getRelevantExp(stmt);
+            if (exp != null) {
+                ExpWrapper wrapper = wrappers.get(ExpKey.of(exp));
+                // e.g., x = x + 1 does not make x + 1 available
+                if (kill == null || !kill.contains(wrapper)) {
+                    genKill.gen(stmt).add(wrapper);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static Exp getRelevantExp(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt) {
+            Exp rvalue = defStmt.getRValue();
+            if (rvalue instanceof BinaryExp ||
+                    rvalue instanceof UnaryExp ||
+                    rvalue instanceof InstanceOfExp ||
+                    rvalue instanceof CastExp) {
+                return rvalue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Structure of a tracked expression: its kind, its operator (the
+     * operator of binary expressions, or the type of instanceof and cast
+     * expressions), and its operands. Two expressions of a method are
+     * syntactically equal iff they have equal keys.
+     */
+    private record ExpKey(Class<?> kind, @Nullable Object operator,
+                          Var operand1, @Nullable Var operand2) {
+
+        private static ExpKey of(Exp exp) {
+            if (exp instanceof BinaryExp binaryExp) {
+                return new ExpKey(exp.getClass(), binaryExp.getOperator(),
+                        binaryExp.getOperand1(), binaryExp.getOperand2());
+            } else if (exp instanceof UnaryExp unaryExp) {
+                return new ExpKey(exp.getClass(), null, unaryExp.getOperand(), null);
+            } else if (exp instanceof InstanceOfExp instanceOfExp) {
+                return new ExpKey(exp.getClass(), instanceOfExp.getCheckedType(),
+                        instanceOfExp.getValue(), null);
+            } else {
+                CastExp castExp = (CastExp) exp;
+                return new ExpKey(exp.getClass(), castExp.getCastType(),
+                        castExp.getValue(), null);
+            }
+        }
+    }
+}
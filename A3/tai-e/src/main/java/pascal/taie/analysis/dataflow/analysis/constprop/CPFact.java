@@ -22,11 +22,12 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
-import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
 
-import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,40 +38,63 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * {@link MapCPFact} keeps the mappings in a map, and {@link PackedCPFact}
+ * keeps packed values in an array indexed by the variables.
  */
-public class CPFact extends MapFact<Var, Value> {
-
-    public CPFact() {
-        this(Collections.emptyMap());
-    }
-
-    private CPFact(Map<Var, Value> map) {
-        super(map);
-    }
+public interface CPFact {
 
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
      */
-    @Override
-    public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
-    }
+    Value get(Var key);
 
-    @Override
-    public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
-            // if the client code sets variable key to UNDEF,
-            // then we remove the variable from the CPFact
-            // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
-        }
-    }
+    /**
+     * Updates the key-value mapping in this fact.
+     *
+     * @return if the update changes this fact.
+     */
+    boolean update(Var key, Value value);
 
-    @Override
-    public CPFact copy() {
-        return new CPFact(this.map);
-    }
+    /**
+     * Removes the key-value mapping for given key.
+     *
+     * @return the previous value associated with key,
+     * or null if there was no mapping for key.
+     */
+    Value remove(Var key);
+
+    /**
+     * Copies the content from given fact to this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    boolean copyFrom(CPFact fact);
+
+    /**
+     * Creates and returns a copy of this fact.
+     */
+    CPFact copy();
+
+    /**
+     * Clears all content in this fact.
+     */
+    void clear();
+
+    /**
+     * @return a {@link Set} view of the variables contained in this fact.
+     */
+    Set<Var> keySet();
+
+    /**
+     * @return all entries (variable-value mappings) in this fact.
+     */
+    Stream<Map.Entry<Var, Value>> entries();
+
+    /**
+     * Performs the given action for each entry (variable-value mapping)
+     * in this fact.
+     */
+    void forEach(BiConsumer<Var, Value> action);
 }
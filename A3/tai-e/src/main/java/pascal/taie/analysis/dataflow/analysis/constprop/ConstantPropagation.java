@@ -22,8 +22,15 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import pascal.taie.analysis.ResultCodec;
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResultCodec;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.ArithmeticExp;
@@ -40,15 +47,69 @@ import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
-import java.util.Objects;
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.Function;
+
+import static pascal.taie.analysis.ResultCodec.readVarInt;
+import static pascal.taie.analysis.ResultCodec.writeVarInt;
 
 public class ConstantPropagation extends
         AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to solve with {@link SCCP} instead of the data-flow solver.
+     */
+    private final boolean sparse;
+
+    /**
+     * Whether to use {@link PackedCPFact} as data-flow facts.
+     */
+    private final boolean packed;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        sparse = getOptions().getBooleanOrDefault("sparse", false);
+        packed = getOptions().getBooleanOrDefault("packed", false);
+    }
+
+    @Override
+    public int getSemanticsVersion() {
+        return 1;
+    }
+
+    @Override
+    protected NodeResult<Stmt, CPFact> solve(IR ir) {
+        if (sparse) {
+            return solveSparse(ir.getResult(CFGBuilder.ID));
+        }
+        return super.solve(ir);
+    }
+
+    /**
+     * @return a solver of the transfers bound to the compiled
+     * {@link Evaluators} of given IR.
+     */
+    @Override
+    protected Solver<Stmt, CPFact> getSolver(IR ir) {
+        return newSolver(new Transfer(Evaluators.of(ir)));
+    }
+
+    /**
+     * Solves constant propagation on given CFG with {@link SCCP}, whose
+     * result also tells which statements and edges may be executed.
+     */
+    public SCCP.Result solveSparse(CFG<Stmt> cfg) {
+        return new SCCP(this, cfg).solve();
+    }
+
+    @Override
+    protected ResultCodec<NodeResult<Stmt, CPFact>> getResultCodec() {
+        return new DataflowResultCodec<>(new CPFactCodec());
     }
 
     @Override
@@ -58,7 +119,7 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        CPFact boundaryFact = new CPFact();
+        CPFact boundaryFact = newInitialFact(cfg);
         for (Var param : cfg.getIR().getParams()) {
             if (canHoldInt(param))
                 boundaryFact.update(param, Value.getNAC());
@@ -68,11 +129,21 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newInitialFact() {
-        return new CPFact();
+        return new MapCPFact();
+    }
+
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return packed ? new PackedCPFact(cfg.getIR().getVars()) : newInitialFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
+        if (fact instanceof PackedCPFact packedFact &&
+                target instanceof PackedCPFact packedTarget) {
+            packedFact.meetInto(packedTarget);
+            return;
+        }
         for (Var key : fact.keySet()) {
             //target中不存在该key，或其值为undef
             if (target.get(key).isUndef())
@@ -102,8 +173,33 @@ public class ConstantPropagation extends
         return ans;
     }
 
+    /**
+     * Transfers given statement with the evaluator compiled from its
+     * expression on the fly. The solvers of this analysis transfer
+     * statements by {@link Transfer}, which uses the evaluators
+     * compiled for the IR instead.
+     */
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+        return transferNode(stmt, in, out, null);
+    }
+
+    /**
+     * @param evaluators the evaluators of the IR of the statement,
+     *                   or null if the evaluator is compiled on the fly
+     */
+    private boolean transferNode(Stmt stmt, CPFact in, CPFact out,
+                                 @Nullable Evaluators evaluators) {
+        if (in instanceof PackedCPFact packedIn &&
+                out instanceof PackedCPFact packedOut) {
+            if (stmt instanceof DefinitionStmt<?, ?> definitionStmt &&
+                    definitionStmt.getLValue() instanceof Var def &&
+                    canHoldInt(def)) {
+                return packedOut.transfer(packedIn, def.getIndex(),
+                        getEvaluator(evaluators, definitionStmt).evaluatePacked(packedIn));
+            }
+            return packedOut.transfer(packedIn, -1, PackedCPFact.UNDEF);
+        }
         boolean flag = false;
 
         CPFact outOld = out.copy();
@@ -121,16 +217,24 @@ public class ConstantPropagation extends
         if(definitionStmt.getLValue() !=null)
             if(definitionStmt.getLValue() instanceof Var)
                 def=(Var)definitionStmt.getLValue();
-        Exp exp = definitionStmt.getRValue();
-        Value value = evaluate(exp, in);
         if (def != null && canHoldInt(def))
-                out.update(def, value);
+                out.update(def, getEvaluator(evaluators, definitionStmt).evaluate(in));
 
         if (!outOld.equals(out)) flag = true;
 
         return flag;
     }
 
+    /**
+     * @return the compiled {@link Evaluator} of the right-hand side
+     * of given definition statement.
+     */
+    private static Evaluator getEvaluator(@Nullable Evaluators evaluators,
+                                          DefinitionStmt<?, ?> stmt) {
+        return evaluators != null ? evaluators.get(stmt) :
+                Evaluators.compile(stmt.getRValue());
+    }
+
     /**
      * @return true if the given variable can hold integer value, otherwise false.
      */
@@ -149,36 +253,6 @@ public class ConstantPropagation extends
         return false;
     }
 
-    /**
-     * Compute result according to op and v1,v2
-     *
-     * @param op the operator
-     * @param v1 the operand1
-     * @param v2 the operand2
-     * @return the result
-     */
-    private static int compute(BinaryExp.Op op, int v1, int v2) {
-        return switch (op.toString()) {
-            case "+" -> v1 + v2;
-            case "-" -> v1 - v2;
-            case "*" -> v1 * v2;
-            case "/" -> v1 / v2;
-            case "%" -> v1 % v2;
-            case "==" -> (v1 == v2) ? 1 : 0;
-            case "!=" -> (v1 != v2) ? 1 : 0;
-            case "<" -> (v1 < v2) ? 1 : 0;
-            case ">" -> (v1 > v2) ? 1 : 0;
-            case "<=" -> (v1 <= v2) ? 1 : 0;
-            case ">=" -> (v1 >= v2) ? 1 : 0;
-            case "<<" -> v1 << v2;
-            case ">>" -> v1 >> v2;
-            case ">>>" -> v1 >>> v2;
-            case "&" -> v1 & v2;
-            case "|" -> v1 | v2;
-            case "^" -> v1 ^ v2;
-            default -> 0;
-        };
-    }
     /**
      * Evaluates the {@link Value} of given expression.
      *
@@ -187,34 +261,148 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
+        return evaluate(exp, in::get);
+    }
+
+    /**
+     * Evaluates the {@link Value} of given expression, looking up the
+     * values of variables through {@code valueOf}.
+     *
+     * @param exp     the expression to be evaluated
+     * @param valueOf the values of variables at the statement
+     * @return the resulting {@link Value}
+     */
+    static Value evaluate(Exp exp, Function<Var, Value> valueOf) {
         Value ans;
         if (exp instanceof Var) {
-            ans = in.get((Var) exp);
+            ans = valueOf.apply((Var) exp);
         } else if (exp instanceof IntLiteral) {
             ans = Value.makeConstant(((IntLiteral) exp).getValue());
         } else if (exp instanceof BinaryExp) {
             Var operand1 = ((BinaryExp) exp).getOperand1();
             Var operand2 = ((BinaryExp) exp).getOperand2();
-            Value value1 = in.get(operand1);
-            Value value2 = in.get(operand2);
-            if (value1.isConstant() && value2.isConstant()) {
-                if (value2.getConstant() == 0 &&
-                        (Objects.equals(((BinaryExp) exp).getOperator().toString(), "/") ||
-                                Objects.equals(((BinaryExp) exp).getOperator().toString(), "%")))
-                    ans = Value.getUndef();
-                else ans = Value.makeConstant(compute(((BinaryExp) exp).getOperator()
-                        , value1.getConstant(), value2.getConstant()));
-            } else if (value1.isNAC() || value2.isNAC()) {
-                //此处可能发生除0的情况，应单独考虑
-                if(value2.isConstant()&&value2.getConstant()==0&&
-                        (Objects.equals(((BinaryExp) exp).getOperator().toString(), "/") ||
-                                Objects.equals(((BinaryExp) exp).getOperator().toString(), "%")))
-                    ans = Value.getUndef();
-                else ans=Value.getNAC();
-            } else {
+            ans = evaluate(Opcode.of(((BinaryExp) exp).getOperator()),
+                    valueOf.apply(operand1), valueOf.apply(operand2));
+        } else ans = Value.getNAC();
+        return ans;
+    }
+
+    /**
+     * Evaluates a binary expression on the values of its operands.
+     *
+     * @param op the operator, or null if it is not an operator on int
+     */
+    static Value evaluate(@Nullable Opcode op, Value value1, Value value2) {
+        Value ans;
+        if (value1.isConstant() && value2.isConstant()) {
+            if (op == null) {
+                ans = Value.getNAC();
+            } else if (value2.getConstant() == 0 && op.isDivision()) {
                 ans = Value.getUndef();
+            } else {
+                ans = Value.makeConstant(
+                        op.apply(value1.getConstant(), value2.getConstant()));
             }
-        } else ans = Value.getNAC();
+        } else if (value1.isNAC() || value2.isNAC()) {
+            //此处可能发生除0的情况，应单独考虑
+            if (value2.isConstant() && value2.getConstant() == 0 &&
+                    op != null && op.isDivision())
+                ans = Value.getUndef();
+            else ans = Value.getNAC();
+        } else {
+            ans = Value.getUndef();
+        }
         return ans;
     }
+
+    /**
+     * The data-flow analysis of a method, which evaluates the expressions
+     * by the evaluators compiled for the IR of the method.
+     */
+    private class Transfer implements DataflowAnalysis<Stmt, CPFact> {
+
+        private final Evaluators evaluators;
+
+        private Transfer(Evaluators evaluators) {
+            this.evaluators = evaluators;
+        }
+
+        @Override
+        public boolean isForward() {
+            return ConstantPropagation.this.isForward();
+        }
+
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public CPFact newInitialFact() {
+            return ConstantPropagation.this.newInitialFact();
+        }
+
+        @Override
+        public CPFact newInitialFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            ConstantPropagation.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            return ConstantPropagation.this.transferNode(stmt, in, out, evaluators);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return ConstantPropagation.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            return ConstantPropagation.this.transferEdge(edge, nodeFact);
+        }
+    }
+
+    /**
+     * Encodes a fact as the number of its entries followed by the
+     * variable index and the value of each entry.
+     */
+    private class CPFactCodec implements ResultCodec<CPFact> {
+
+        private static final int NAC = 0;
+
+        private static final int CONSTANT = 1;
+
+        @Override
+        public void write(IR ir, CPFact fact, DataOutput out) throws IOException {
+            writeVarInt(out, fact.keySet().size());
+            for (Var var : fact.keySet()) {
+                writeVarInt(out, var.getIndex());
+                Value value = fact.get(var);
+                if (value.isConstant()) {
+                    out.writeByte(CONSTANT);
+                    out.writeInt(value.getConstant());
+                } else {
+                    out.writeByte(NAC);
+                }
+            }
+        }
+
+        @Override
+        public CPFact read(IR ir, DataInput in) throws IOException {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            CPFact fact = newInitialFact(cfg);
+            for (int n = readVarInt(in); n > 0; --n) {
+                Var var = ir.getVar(readVarInt(in));
+                fact.update(var, in.readByte() == CONSTANT ?
+                        Value.makeConstant(in.readInt()) : Value.getNAC());
+            }
+            return fact;
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+/**
+ * An expression compiled for evaluation on {@link CPFact}s. The operands
+ * of a compiled expression are resolved to the indexes of the variables,
+ * so that evaluating it on a {@link PackedCPFact} reads the slots of the
+ * fact directly.
+ *
+ * @see Evaluators
+ */
+public abstract class Evaluator {
+
+    Evaluator() {
+    }
+
+    /**
+     * @return the {@link Value} of the expression under given fact.
+     */
+    public Value evaluate(CPFact fact) {
+        return fact instanceof PackedCPFact packedFact ?
+                PackedCPFact.unpack(evaluatePacked(packedFact)) :
+                evaluateValue(fact);
+    }
+
+    /**
+     * @return the {@link Value} of the expression under given fact,
+     * which is not a {@link PackedCPFact}.
+     */
+    abstract Value evaluateValue(CPFact fact);
+
+    /**
+     * @return the packed value of the expression under given fact.
+     */
+    abstract long evaluatePacked(PackedCPFact fact);
+}
@@ -0,0 +1,191 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import javax.annotation.Nullable;
+
+/**
+ * Compiled {@link Evaluator}s of the expressions that constant propagation
+ * evaluates in a method, i.e., the right-hand sides of definitions of
+ * variables that can hold int, the conditions of {@link If}s, and the
+ * variables of {@link SwitchStmt}s.
+ * <p>
+ * The expressions of an IR are compiled once, when {@link #of(IR)} is
+ * first called on the IR, and the evaluators are stored in the IR.
+ * Each evaluator has its operands and operator resolved, so that
+ * evaluating it needs no type tests on the expression, and evaluating
+ * it on a {@link PackedCPFact} reads the slots of the operands directly.
+ */
+public class Evaluators {
+
+    private static final String KEY = Evaluators.class.getName();
+
+    /**
+     * Evaluators indexed by {@link Stmt#getIndex()}.
+     */
+    private final Evaluator[] evaluators;
+
+    private Evaluators(IR ir) {
+        evaluators = new Evaluator[ir.getStmts().size()];
+        for (Stmt stmt : ir) {
+            Exp exp = null;
+            if (stmt instanceof DefinitionStmt<?, ?> definitionStmt) {
+                if (definitionStmt.getLValue() instanceof Var def &&
+                        ConstantPropagation.canHoldInt(def)) {
+                    exp = definitionStmt.getRValue();
+                }
+            } else if (stmt instanceof If ifStmt) {
+                exp = ifStmt.getCondition();
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                exp = switchStmt.getVar();
+            }
+            if (exp != null) {
+                evaluators[stmt.getIndex()] = compile(exp);
+            }
+        }
+    }
+
+    /**
+     * @return the evaluators of given IR.
+     */
+    public static Evaluators of(IR ir) {
+        return ir.getResult(KEY, () -> new Evaluators(ir));
+    }
+
+    /**
+     * @return the evaluator of the expression evaluated at given statement,
+     * or null if constant propagation evaluates no expression there.
+     */
+    @Nullable
+    public Evaluator get(Stmt stmt) {
+        int index = stmt.getIndex();
+        return index < evaluators.length ? evaluators[index] : null;
+    }
+
+    /**
+     * Compiles given expression, which has the same semantics as
+     * {@link ConstantPropagation#evaluate(Exp, CPFact)}.
+     */
+    static Evaluator compile(Exp exp) {
+        if (exp instanceof Var var) {
+            return new VarEvaluator(var);
+        } else if (exp instanceof IntLiteral literal) {
+            return new ConstantEvaluator(Value.makeConstant(literal.getValue()));
+        } else if (exp instanceof BinaryExp binaryExp) {
+            return new BinaryEvaluator(Opcode.of(binaryExp.getOperator()),
+                    binaryExp.getOperand1(), binaryExp.getOperand2());
+        } else {
+            return new ConstantEvaluator(Value.getNAC());
+        }
+    }
+
+    private static final class VarEvaluator extends Evaluator {
+
+        private final Var var;
+
+        private final int index;
+
+        private VarEvaluator(Var var) {
+            this.var = var;
+            this.index = var.getIndex();
+        }
+
+        @Override
+        Value evaluateValue(CPFact fact) {
+            return fact.get(var);
+        }
+
+        @Override
+        long evaluatePacked(PackedCPFact fact) {
+            return fact.get(index);
+        }
+    }
+
+    private static final class ConstantEvaluator extends Evaluator {
+
+        private final Value value;
+
+        private final long packed;
+
+        private ConstantEvaluator(Value value) {
+            this.value = value;
+            this.packed = PackedCPFact.pack(value);
+        }
+
+        @Override
+        Value evaluateValue(CPFact fact) {
+            return value;
+        }
+
+        @Override
+        long evaluatePacked(PackedCPFact fact) {
+            return packed;
+        }
+    }
+
+    private static final class BinaryEvaluator extends Evaluator {
+
+        /**
+         * The operator, or null if it is not an operator on int.
+         */
+        @Nullable
+        private final Opcode op;
+
+        private final Var operand1;
+
+        private final Var operand2;
+
+        private final int index1;
+
+        private final int index2;
+
+        private BinaryEvaluator(@Nullable Opcode op, Var operand1, Var operand2) {
+            this.op = op;
+            this.operand1 = operand1;
+            this.operand2 = operand2;
+            this.index1 = operand1.getIndex();
+            this.index2 = operand2.getIndex();
+        }
+
+        @Override
+        Value evaluateValue(CPFact fact) {
+            return ConstantPropagation.evaluate(
+                    op, fact.get(operand1), fact.get(operand2));
+        }
+
+        @Override
+        long evaluatePacked(PackedCPFact fact) {
+            return PackedCPFact.evaluate(op, fact.get(index1), fact.get(index2));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.PersistentHashMap;
+
+import java.util.Map;
+
+/**
+ * {@link CPFact} backed by a map from variables to their lattice values,
+ * where UNDEF is represented by absence.
+ */
+public class MapCPFact extends MapFact<Var, Value> implements CPFact {
+
+    /**
+     * MapCPFact is backed by a {@link PersistentHashMap}, so that {@link #copy()}
+     * takes constant time and the facts of adjacent statements share the
+     * mappings they have in common.
+     */
+    public MapCPFact() {
+        this(new PersistentHashMap<>());
+    }
+
+    private MapCPFact(Map<Var, Value> map) {
+        super(map);
+    }
+
+    @Override
+    public Value get(Var key) {
+        return map.getOrDefault(key, Value.getUndef());
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        if (value.isUndef()) {
+            // if the client code sets variable key to UNDEF,
+            // then we remove the variable from the CPFact
+            // as we use absence to represent UNDEF.
+            return remove(key) != null;
+        } else {
+            return super.update(key, value);
+        }
+    }
+
+    @Override
+    public boolean copyFrom(CPFact fact) {
+        boolean changed = false;
+        for (Var key : fact.keySet()) {
+            changed |= update(key, fact.get(key));
+        }
+        return changed;
+    }
+
+    @Override
+    public MapCPFact copy() {
+        return new MapCPFact(this.map);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.ShiftExp;
+
+import javax.annotation.Nullable;
+
+/**
+ * Binary operators on int values, resolved from {@link BinaryExp.Op}
+ * once, so that evaluation does not need to inspect the operator.
+ */
+enum Opcode {
+
+    ADD, SUB, MUL, DIV, REM,
+    EQ, NE, LT, GT, LE, GE,
+    SHL, SHR, USHR,
+    OR, AND, XOR;
+
+    /**
+     * @return the opcode of given operator, or null if
+     * the operator is not an operator on int values.
+     */
+    @Nullable
+    static Opcode of(BinaryExp.Op op) {
+        if (op instanceof ArithmeticExp.Op arithmeticOp) {
+            return switch (arithmeticOp) {
+                case ADD -> ADD;
+                case SUB -> SUB;
+                case MUL -> MUL;
+                case DIV -> DIV;
+                case REM -> REM;
+            };
+        } else if (op instanceof ConditionExp.Op conditionOp) {
+            return switch (conditionOp) {
+                case EQ -> EQ;
+                case NE -> NE;
+                case LT -> LT;
+                case GT -> GT;
+                case LE -> LE;
+                case GE -> GE;
+            };
+        } else if (op instanceof ShiftExp.Op shiftOp) {
+            return switch (shiftOp) {
+                case SHL -> SHL;
+                case SHR -> SHR;
+                case USHR -> USHR;
+            };
+        } else if (op instanceof BitwiseExp.Op bitwiseOp) {
+            return switch (bitwiseOp) {
+                case OR -> OR;
+                case AND -> AND;
+                case XOR -> XOR;
+            };
+        }
+        return null;
+    }
+
+    /**
+     * @return true if this opcode is undefined for zero divisor.
+     */
+    boolean isDivision() {
+        return this == DIV || this == REM;
+    }
+
+    int apply(int v1, int v2) {
+        return switch (this) {
+            case ADD -> v1 + v2;
+            case SUB -> v1 - v2;
+            case MUL -> v1 * v2;
+            case DIV -> v1 / v2;
+            case REM -> v1 % v2;
+            case EQ -> v1 == v2 ? 1 : 0;
+            case NE -> v1 != v2 ? 1 : 0;
+            case LT -> v1 < v2 ? 1 : 0;
+            case GT -> v1 > v2 ? 1 : 0;
+            case LE -> v1 <= v2 ? 1 : 0;
+            case GE -> v1 >= v2 ? 1 : 0;
+            case SHL -> v1 << v2;
+            case SHR -> v1 >> v2;
+            case USHR -> v1 >>> v2;
+            case OR -> v1 | v2;
+            case AND -> v1 & v2;
+            case XOR -> v1 ^ v2;
+        };
+    }
+}
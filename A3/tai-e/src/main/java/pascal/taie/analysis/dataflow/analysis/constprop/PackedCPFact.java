@@ -0,0 +1,312 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.Var;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} that packs the lattice value of each variable into a
+ * {@code long}, stored in an array indexed by {@link Var#getIndex()}.
+ * <p>
+ * The high 32 bits of a packed value hold the kind (0 for UNDEF, so that
+ * a fresh array represents an empty fact), and the low 32 bits hold the
+ * constant. Meets, transfers, evaluation of binary expressions, copies
+ * and comparisons work on the packed values; {@link Value}s are only
+ * created by the methods of {@link CPFact}, which remain usable as
+ * a view of this fact.
+ * <p>
+ * All facts that are compared or met with each other must be created
+ * for the same variables, i.e., the variables of the same IR.
+ */
+public class PackedCPFact implements CPFact {
+
+    static final long UNDEF = 0;
+
+    private static final long CONSTANT = 1L << 32;
+
+    static final long NAC = 2L << 32;
+
+    /**
+     * The variables, where {@code vars.get(i)} has index {@code i}.
+     */
+    private final List<Var> vars;
+
+    private final long[] values;
+
+    public PackedCPFact(List<Var> vars) {
+        this(vars, new long[vars.size()]);
+    }
+
+    private PackedCPFact(List<Var> vars, long[] values) {
+        this.vars = vars;
+        this.values = values;
+    }
+
+    /**
+     * @return the packed value of given constant.
+     */
+    static long pack(int constant) {
+        return CONSTANT | (constant & 0xffffffffL);
+    }
+
+    static long pack(Value value) {
+        if (value.isConstant()) {
+            return pack(value.getConstant());
+        }
+        return value.isNAC() ? NAC : UNDEF;
+    }
+
+    static Value unpack(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        }
+        return value == NAC ? Value.getNAC() : Value.makeConstant((int) value);
+    }
+
+    /**
+     * Evaluates a binary expression on the packed values of its operands,
+     * which has the same semantics as
+     * {@link ConstantPropagation#evaluate(Opcode, Value, Value)}.
+     *
+     * @param op the operator, or null if it is not an operator on int
+     */
+    static long evaluate(@Nullable Opcode op, long v1, long v2) {
+        boolean isConstant1 = v1 != UNDEF && v1 != NAC;
+        boolean isConstant2 = v2 != UNDEF && v2 != NAC;
+        if (isConstant1 && isConstant2) {
+            if (op == null) {
+                return NAC;
+            } else if ((int) v2 == 0 && op.isDivision()) {
+                return UNDEF;
+            } else {
+                return pack(op.apply((int) v1, (int) v2));
+            }
+        } else if (v1 == NAC || v2 == NAC) {
+            return isConstant2 && (int) v2 == 0 && op != null && op.isDivision() ?
+                    UNDEF : NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    /**
+     * Meets two packed values.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        }
+        return v2 == UNDEF ? v1 : NAC;
+    }
+
+    @Override
+    public Value get(Var key) {
+        return unpack(values[key.getIndex()]);
+    }
+
+    /**
+     * @return the packed value of the variable whose index is given.
+     */
+    long get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        long packed = pack(value);
+        long old = values[key.getIndex()];
+        values[key.getIndex()] = packed;
+        return old != packed;
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = values[key.getIndex()];
+        values[key.getIndex()] = UNDEF;
+        return old == UNDEF ? null : unpack(old);
+    }
+
+    @Override
+    public boolean copyFrom(CPFact fact) {
+        if (!(fact instanceof PackedCPFact other)) {
+            boolean changed = false;
+            for (Var key : fact.keySet()) {
+                changed |= update(key, fact.get(key));
+            }
+            return changed;
+        }
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long value = other.values[i];
+            if (value != UNDEF && values[i] != value) {
+                values[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Meets this fact into given fact.
+     *
+     * @return true if the target fact changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean meetInto(PackedCPFact target) {
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long value = meet(values[i], target.values[i]);
+            if (target.values[i] != value) {
+                target.values[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the mappings of {@code in} to this fact, and then maps the
+     * variable whose index is {@code def} (if it is not -1) to the packed
+     * {@code value}. Like {@link #copyFrom(CPFact)}, variables that are
+     * UNDEF in {@code in} keep their values in this fact, e.g., the
+     * parameters in the boundary fact of the entry.
+     *
+     * @return true if this fact changed as a result of the call,
+     * otherwise false.
+     */
+    boolean transfer(PackedCPFact in, int def, long value) {
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long newValue = i == def ? value :
+                    in.values[i] != UNDEF ? in.values[i] : values[i];
+            if (values[i] != newValue) {
+                values[i] = newValue;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public PackedCPFact copy() {
+        return new PackedCPFact(vars, values.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, UNDEF);
+    }
+
+    private IntStream indexes() {
+        return IntStream.range(0, values.length)
+                .filter(i -> values[i] != UNDEF);
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Var> iterator() {
+                return new Iterator<>() {
+
+                    private int next = advance(0);
+
+                    private int advance(int i) {
+                        while (i < values.length && values[i] == UNDEF) {
+                            ++i;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Var next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Var var = vars.get(next);
+                        next = advance(next + 1);
+                        return var;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) indexes().count();
+            }
+        };
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return indexes().mapToObj(i -> Map.entry(vars.get(i), unpack(values[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        indexes().forEach(i -> action.accept(vars.get(i), unpack(values[i])));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(values, ((PackedCPFact) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + entries()
+                .sorted(Comparator.comparing(e -> e.getKey().toString()))
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(", ")) + "}";
+    }
+}
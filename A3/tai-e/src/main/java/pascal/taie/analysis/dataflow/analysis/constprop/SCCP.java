@@ -0,0 +1,389 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Sparse conditional constant propagation, after Wegman and Zadeck.
+ * <p>
+ * Tai-e IR is not in SSA form, so values are propagated along def-use
+ * chains given by bit-vector reaching definitions instead of along SSA
+ * edges. Each definition of a variable that can hold int holds a single
+ * {@link Value}, and a statement is evaluated only after one of its
+ * in-edges has been marked executable. The branches of {@link If} and
+ * {@link SwitchStmt} are marked executable according to the values of
+ * their conditions.
+ * <p>
+ * The reaching definitions flow only along executable edges, and are
+ * computed together with the values: when an edge becomes executable,
+ * the definitions reaching its source are propagated to its target, and
+ * the statements reached by new definitions are re-evaluated. Thus, a
+ * definition that reaches a statement only through edges that are never
+ * taken does not affect the values at the statement.
+ * <p>
+ * No {@link CPFact} is stored during solving: {@link Result} computes
+ * the fact of a statement when it is queried.
+ */
+public class SCCP {
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Variable defined by each definition slot. Slots in
+     * [0, {@code nParams}) are the parameters, which are defined at entry.
+     */
+    private final Var[] slotVar;
+
+    private final int nParams;
+
+    /**
+     * Slot defined by each node, or -1 if the node defines no slot.
+     */
+    private final int[] slotOf;
+
+    /**
+     * Slots of each variable, indexed by {@link Var#getIndex()}.
+     */
+    private final int[][] slotsOfVar;
+
+    /**
+     * Definitions reaching the entry of each node along executable edges.
+     */
+    private final long[][] reachIn;
+
+    /**
+     * Statements using each variable, indexed by {@link Var#getIndex()}.
+     */
+    private final List<List<Stmt>> usersOfVar;
+
+    private final Value[] values;
+
+    private final boolean[] executable;
+
+    private final Set<Edge<Stmt>> executableEdges;
+
+    /**
+     * Statements to be evaluated.
+     */
+    private final Queue<Stmt> workList = new SetQueue<>();
+
+    /**
+     * Executable nodes whose reaching definitions are to be propagated
+     * to their executable out-edges.
+     */
+    private final Queue<Stmt> reachList = new SetQueue<>();
+
+    /**
+     * Buffer of the definitions reaching the exit of a node.
+     */
+    private final long[] reachOut;
+
+    SCCP(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        IR ir = cfg.getIR();
+        int nNodes = cfg.getNodes().stream()
+                .mapToInt(Stmt::getIndex)
+                .max()
+                .orElse(-1) + 1;
+        // number definition slots
+        List<Var> vars = new ArrayList<>();
+        for (Var param : ir.getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                vars.add(param);
+            }
+        }
+        nParams = vars.size();
+        slotOf = new int[nNodes];
+        Arrays.fill(slotOf, -1);
+        for (Stmt stmt : ir) {
+            Var def = getDef(stmt);
+            if (def != null) {
+                slotOf[stmt.getIndex()] = vars.size();
+                vars.add(def);
+            }
+        }
+        int nSlots = vars.size();
+        slotVar = vars.toArray(new Var[0]);
+        int[] counts = new int[ir.getVars().size()];
+        for (Var var : slotVar) {
+            ++counts[var.getIndex()];
+        }
+        slotsOfVar = new int[counts.length][];
+        for (int i = 0; i < counts.length; ++i) {
+            slotsOfVar[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int slot = 0; slot < nSlots; ++slot) {
+            int var = slotVar[slot].getIndex();
+            slotsOfVar[var][counts[var]++] = slot;
+        }
+        reachIn = new long[nNodes][(nSlots + 63) >>> 6];
+        reachOut = new long[(nSlots + 63) >>> 6];
+        usersOfVar = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; ++i) {
+            usersOfVar.add(new ArrayList<>());
+        }
+        for (Stmt stmt : ir) {
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var && ConstantPropagation.canHoldInt(var)) {
+                    List<Stmt> users = usersOfVar.get(var.getIndex());
+                    if (users.isEmpty() || users.get(users.size() - 1) != stmt) {
+                        users.add(stmt);
+                    }
+                }
+            }
+        }
+        values = new Value[nSlots];
+        Arrays.fill(values, 0, nParams, Value.getNAC());
+        Arrays.fill(values, nParams, nSlots, Value.getUndef());
+        executable = new boolean[nNodes];
+        executableEdges = Sets.newSet();
+    }
+
+    /**
+     * @return the variable that can hold int defined by given statement,
+     * or null if there is no such variable.
+     */
+    private static Var getDef(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> &&
+                ((DefinitionStmt<?, ?>) stmt).getLValue() instanceof Var def &&
+                ConstantPropagation.canHoldInt(def)) {
+            return def;
+        }
+        return null;
+    }
+
+    Result solve() {
+        markExecutable(cfg.getEntry());
+        while (!workList.isEmpty() || !reachList.isEmpty()) {
+            // propagate reaching definitions first, so that statements
+            // are evaluated on more complete def-use chains
+            if (!reachList.isEmpty()) {
+                Stmt node = reachList.poll();
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                    if (executableEdges.contains(edge)) {
+                        propagateReach(edge);
+                    }
+                }
+            } else {
+                visit(workList.poll());
+            }
+        }
+        return new Result();
+    }
+
+    /**
+     * Propagates the definitions reaching the exit of the source of given
+     * executable edge to its target. If new definitions reach the target,
+     * the target is re-evaluated and its reaching definitions are
+     * propagated further.
+     */
+    private void propagateReach(Edge<Stmt> edge) {
+        transfer(edge.getSource(), reachIn[edge.getSource().getIndex()], reachOut);
+        Stmt target = edge.getTarget();
+        long[] in = reachIn[target.getIndex()];
+        boolean changed = false;
+        for (int i = 0; i < in.length; ++i) {
+            long old = in[i];
+            in[i] |= reachOut[i];
+            changed |= in[i] != old;
+        }
+        if (changed && executable[target.getIndex()]) {
+            workList.add(target);
+            reachList.add(target);
+        }
+    }
+
+    /**
+     * Computes the reaching definitions at the exit of given node into
+     * {@code out}.
+     */
+    private void transfer(Stmt node, long[] in, long[] out) {
+        System.arraycopy(in, 0, out, 0, in.length);
+        if (cfg.isEntry(node)) {
+            for (int slot = 0; slot < nParams; ++slot) {
+                out[slot >>> 6] |= 1L << slot;
+            }
+        }
+        int slot = slotOf[node.getIndex()];
+        if (slot >= 0) {
+            for (int killed : slotsOfVar[slotVar[slot].getIndex()]) {
+                out[killed >>> 6] &= ~(1L << killed);
+            }
+            out[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void markExecutable(Stmt node) {
+        if (!executable[node.getIndex()]) {
+            executable[node.getIndex()] = true;
+            workList.add(node);
+            reachList.add(node);
+        }
+    }
+
+    private void markExecutable(Edge<Stmt> edge) {
+        if (executableEdges.add(edge)) {
+            propagateReach(edge);
+            markExecutable(edge.getTarget());
+        }
+    }
+
+    private void visit(Stmt stmt) {
+        int slot = slotOf[stmt.getIndex()];
+        if (slot >= 0) {
+            Value value = cp.meetValue(values[slot], ConstantPropagation.evaluate(
+                    ((DefinitionStmt<?, ?>) stmt).getRValue(),
+                    var -> getValue(stmt, var)));
+            if (!value.equals(values[slot])) {
+                values[slot] = value;
+                for (Stmt user : usersOfVar.get(slotVar[slot].getIndex())) {
+                    if (executable[user.getIndex()] &&
+                            isSet(reachIn[user.getIndex()], slot)) {
+                        workList.add(user);
+                    }
+                }
+            }
+        }
+        if (stmt instanceof If) {
+            Value cond = ConstantPropagation.evaluate(
+                    ((If) stmt).getCondition(), var -> getValue(stmt, var));
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (cond.isNAC() || cond.isConstant() &&
+                        (cond.getConstant() != 0) == (edge.getKind() == Edge.Kind.IF_TRUE)) {
+                    markExecutable(edge);
+                }
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = getValue(stmt, switchStmt.getVar());
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (value.isNAC() || value.isConstant() && (edge.isSwitchCase() ?
+                        edge.getCaseValue() == value.getConstant() :
+                        !switchStmt.getCaseValues().contains(value.getConstant()))) {
+                    markExecutable(edge);
+                }
+            }
+        } else {
+            cfg.getOutEdgesOf(stmt).forEach(this::markExecutable);
+        }
+    }
+
+    /**
+     * @return the meet of the values of the definitions of {@code var}
+     * that reach {@code stmt} along executable edges, or NAC if
+     * {@code var} cannot hold int, e.g., the operands of {@code if (o == null)}.
+     */
+    private Value getValue(Stmt stmt, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return Value.getNAC();
+        }
+        long[] in = reachIn[stmt.getIndex()];
+        Value value = Value.getUndef();
+        for (int slot : slotsOfVar[var.getIndex()]) {
+            if (isSet(in, slot)) {
+                value = cp.meetValue(value, values[slot]);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Read-only result of {@link SCCP}. The facts of statements are
+     * computed from the values of reaching definitions on each query;
+     * statements that are not executable have empty facts.
+     */
+    public class Result implements NodeResult<Stmt, CPFact> {
+
+        /**
+         * @return true if given statement may be executed, otherwise false.
+         */
+        public boolean isExecutable(Stmt stmt) {
+            return executable[stmt.getIndex()];
+        }
+
+        /**
+         * @return true if given edge may be taken, otherwise false.
+         */
+        public boolean isExecutable(Edge<Stmt> edge) {
+            return executableEdges.contains(edge);
+        }
+
+        @Override
+        public CPFact getInFact(Stmt stmt) {
+            CPFact fact = new MapCPFact();
+            if (isExecutable(stmt)) {
+                long[] in = reachIn[stmt.getIndex()];
+                for (int i = 0; i < in.length; ++i) {
+                    for (long word = in[i]; word != 0; word &= word - 1) {
+                        int slot = (i << 6) + Long.numberOfTrailingZeros(word);
+                        Var var = slotVar[slot];
+                        fact.update(var, cp.meetValue(fact.get(var), values[slot]));
+                    }
+                }
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt stmt) {
+            CPFact fact = getInFact(stmt);
+            if (isExecutable(stmt)) {
+                if (cfg.isEntry(stmt)) {
+                    for (int slot = 0; slot < nParams; ++slot) {
+                        fact.update(slotVar[slot], values[slot]);
+                    }
+                }
+                int slot = slotOf[stmt.getIndex()];
+                if (slot >= 0) {
+                    fact.update(slotVar[slot], values[slot]);
+                }
+            }
+            return fact;
+        }
+    }
+}
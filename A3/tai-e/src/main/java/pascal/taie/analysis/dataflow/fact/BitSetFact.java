@@ -0,0 +1,315 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Streams;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Set-like data-flow facts backed by a bit vector.
+ * <p>
+ * Each element is represented by the bit at its index, thus this fact
+ * is only applicable to elements which are densely indexed within a
+ * method, e.g., {@link pascal.taie.ir.exp.Var} and
+ * {@link pascal.taie.ir.stmt.Stmt}. All set operations work in place
+ * over the underlying words and do not allocate.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    /**
+     * All elements that may appear in this fact. The element whose index
+     * is {@code i} must be at position {@code i} of this list.
+     */
+    private final List<E> universe;
+
+    private final long[] words;
+
+    /**
+     * The kernel of the word-wise operations with other facts.
+     */
+    private final BitSetKernel kernel;
+
+    /**
+     * Creates an empty fact over given universe.
+     *
+     * @param universe the elements that may appear in this fact,
+     *                 ordered by their indexes.
+     */
+    public BitSetFact(List<E> universe) {
+        this(universe, BitSetKernel.scalar());
+    }
+
+    /**
+     * Creates an empty fact over given universe, whose operations with
+     * other facts are performed by given kernel.
+     *
+     * @param universe the elements that may appear in this fact,
+     *                 ordered by their indexes.
+     */
+    public BitSetFact(List<E> universe, BitSetKernel kernel) {
+        this(universe, new long[wordIndex(universe.size() - 1) + 1], kernel);
+    }
+
+    private BitSetFact(List<E> universe, long[] words, BitSetKernel kernel) {
+        super(Collections.emptySet());
+        this.universe = universe;
+        this.words = words;
+        this.kernel = kernel;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = e.getIndex();
+        return (words[wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = e.getIndex();
+        int i = wordIndex(index);
+        long old = words[i];
+        words[i] = old | (1L << index);
+        return words[i] != old;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = e.getIndex();
+        int i = wordIndex(index);
+        long old = words[i];
+        words[i] = old & ~(1L << index);
+        return words[i] != old;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int index = nextSetBit(0); index >= 0; index = nextSetBit(index + 1)) {
+            E e = universe.get(index);
+            if (filter.test(e)) {
+                changed |= remove(e);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            return kernel.or(words, that.words);
+        } else {
+            boolean changed = false;
+            Iterator<E> it = other.stream().iterator();
+            while (it.hasNext()) {
+                changed |= add(it.next());
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            return kernel.and(words, that.words);
+        } else {
+            return removeIf(e -> !other.contains(e));
+        }
+    }
+
+    @Override
+    public boolean difference(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            return kernel.andNot(words, that.words);
+        } else {
+            return removeIf(other::contains);
+        }
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            System.arraycopy(that.words, 0, words, 0, that.words.length);
+        } else {
+            super.set(other);
+        }
+    }
+
+    /**
+     * Sets this fact to {@code gen ∪ (fact − kill)}, i.e., applies the
+     * transfer function of a gen/kill analysis word by word.
+     *
+     * @param gen  the generated elements, or null if there is none
+     * @param kill the killed elements, or null if there is none
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setGenKill(BitSetFact<E> fact,
+                              @Nullable BitSetFact<E> gen,
+                              @Nullable BitSetFact<E> kill) {
+        return kernel.genKill(words, fact.words,
+                gen != null ? gen.words : null, kill != null ? kill.words : null);
+    }
+
+    /**
+     * Adds all elements of the universe to this fact.
+     */
+    public void fill() {
+        if (words.length > 0) {
+            Arrays.fill(words, -1L);
+            // clear the bits beyond the universe
+            words[words.length - 1] = -1L >>> -universe.size();
+        }
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(universe, words.clone(), kernel);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return IntStream.iterate(nextSetBit(0), i -> i >= 0, i -> nextSetBit(i + 1))
+                .mapToObj(universe::get);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * @return a read-only view of this fact as a {@link Set}.
+     * The view is backed by the bit vector of this fact, thus it
+     * does not copy the elements.
+     */
+    @Override
+    protected Set<E> elements() {
+        return new AbstractSet<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean contains(Object o) {
+                if (o instanceof Indexable i) {
+                    int index = i.getIndex();
+                    return index >= 0 && index < universe.size()
+                            && universe.get(index) == o
+                            && BitSetFact.this.contains((E) o);
+                }
+                return false;
+            }
+
+            @Override
+            public Iterator<E> iterator() {
+                return BitSetFact.this.stream().iterator();
+            }
+
+            @Override
+            public int size() {
+                return BitSetFact.this.size();
+            }
+        };
+    }
+
+    /**
+     * @return the index of the first element in this fact whose index is
+     * greater than or equal to {@code fromIndex}, or -1 if there is no
+     * such element.
+     */
+    private int nextSetBit(int fromIndex) {
+        int i = wordIndex(fromIndex);
+        if (i >= words.length) {
+            return -1;
+        }
+        long word = words[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof BitSetFact<?> that && universe == that.universe) {
+            return Arrays.equals(words, that.words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int index = nextSetBit(0); index >= 0; index = nextSetBit(index + 1)) {
+            hash += universe.get(index).hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Word-wise operations of {@link BitSetFact}s, which are the hot loops
+ * of the meets and transfers of gen/kill analyses.
+ * <p>
+ * The {@link #scalar() scalar kernel} works on one word at a time, and
+ * the {@link #vector() vector kernel} works on the words that fit in the
+ * widest vector register of the platform at a time via the (incubating)
+ * Vector API, which pays off for wide facts. The vector kernel requires
+ * the module {@code jdk.incubator.vector} at run time. It is compiled in
+ * its own source set ({@code src/vector/java}), as the compilation against
+ * an incubating module always warns, and thus it is loaded reflectively.
+ */
+public class BitSetKernel {
+
+    private static final Logger logger = LogManager.getLogger(BitSetKernel.class);
+
+    private static final BitSetKernel SCALAR = new BitSetKernel();
+
+    /**
+     * Name of the class of the vector kernel.
+     */
+    private static final String VECTOR_KERNEL =
+            "pascal.taie.analysis.dataflow.fact.VectorBitSetKernel";
+
+    @Nullable
+    private static BitSetKernel vector;
+
+    BitSetKernel() {
+    }
+
+    /**
+     * @return the kernel which works on one word at a time.
+     */
+    public static BitSetKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return the kernel which works on vectors of words, or the scalar
+     * kernel if the Vector API is unavailable.
+     */
+    public static synchronized BitSetKernel vector() {
+        if (vector == null) {
+            try {
+                vector = (BitSetKernel) Class.forName(VECTOR_KERNEL)
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Vector API is unavailable (add JVM option" +
+                        " --add-modules=jdk.incubator.vector), use scalar kernel");
+                vector = SCALAR;
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Sets {@code words} to {@code words | other} on the first
+     * {@code other.length} words.
+     *
+     * @return true if {@code words} changed as a result of the call, otherwise false.
+     */
+    boolean or(long[] words, long[] other) {
+        boolean changed = false;
+        for (int i = 0; i < other.length; ++i) {
+            long old = words[i];
+            words[i] = old | other[i];
+            changed |= words[i] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * Sets {@code words} to {@code words & other}, where the words
+     * beyond {@code other} are cleared.
+     *
+     * @return true if {@code words} changed as a result of the call, otherwise false.
+     */
+    boolean and(long[] words, long[] other) {
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long old = words[i];
+            words[i] = i < other.length ? old & other[i] : 0;
+            changed |= words[i] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * Sets {@code words} to {@code words & ~other} on the common words.
+     *
+     * @return true if {@code words} changed as a result of the call, otherwise false.
+     */
+    boolean andNot(long[] words, long[] other) {
+        boolean changed = false;
+        int n = Math.min(words.length, other.length);
+        for (int i = 0; i < n; ++i) {
+            long old = words[i];
+            words[i] = old & ~other[i];
+            changed |= words[i] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * Sets {@code words} to {@code gen | (fact & ~kill)}.
+     *
+     * @param gen  the generated words, or null if there is none
+     * @param kill the killed words, or null if there is none
+     * @return true if {@code words} changed as a result of the call, otherwise false.
+     */
+    boolean genKill(long[] words, long[] fact,
+                    @Nullable long[] gen, @Nullable long[] kill) {
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long word = fact[i];
+            if (kill != null) {
+                word &= ~kill[i];
+            }
+            if (gen != null) {
+                word |= gen[i];
+            }
+            changed |= words[i] != word;
+            words[i] = word;
+        }
+        return changed;
+    }
+}
@@ -22,8 +22,13 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.IndexMap;
+
+import javax.annotation.Nullable;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * An object which manages the data-flow facts associated with nodes.
@@ -33,16 +38,59 @@ import java.util.Map;
  */
 public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
 
-    private final Map<Node, Fact> inFacts = new LinkedHashMap<>();
+    private final Map<Node, Fact> inFacts;
+
+    private final Map<Node, Fact> outFacts;
+
+    /**
+     * Builds the OUT facts on demand after the stored OUT facts
+     * are discarded, or null if OUT facts are stored.
+     */
+    @Nullable
+    private Function<Node, Fact> outFactBuilder;
+
+    /**
+     * The OUT fact built last time by {@link #outFactBuilder}, so that
+     * reading the OUT fact of a node repeatedly builds it only once.
+     * The node and its fact are published together in one immutable
+     * object, thus the cache is safe to be read by multiple threads.
+     */
+    @Nullable
+    private volatile BuiltFact<Node, Fact> lastBuiltFact;
+
+    /**
+     * The checked interner of the facts of this result, or null if they
+     * are not interned by a checked interner.
+     */
+    @Nullable
+    private FactInterner<Fact> interner;
+
+    public DataflowResult() {
+        inFacts = new LinkedHashMap<>();
+        outFacts = new LinkedHashMap<>();
+    }
 
-    private final Map<Node, Fact> outFacts = new LinkedHashMap<>();
+    /**
+     * Creates a data-flow result which stores facts in arrays indexed by
+     * the indexes of nodes. All nodes must be {@link Indexable}, e.g.,
+     * the statements of an IR.
+     *
+     * @param capacity one plus the largest index of the nodes
+     */
+    public DataflowResult(int capacity) {
+        inFacts = new IndexMap<>(capacity);
+        outFacts = new IndexMap<>(capacity);
+    }
 
     /**
      * @return the flowing-in fact of given node.
      */
     @Override
     public Fact getInFact(Node node) {
-        return inFacts.get(node);
+        Fact fact = inFacts.get(node);
+        assert interner == null || interner.isUnmodified(fact) :
+                "Interned IN fact of " + node + " was modified: " + fact;
+        return fact;
     }
 
     /**
@@ -57,7 +105,18 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
      */
     @Override
     public Fact getOutFact(Node node) {
-        return outFacts.get(node);
+        if (outFactBuilder == null) {
+            Fact fact = outFacts.get(node);
+            assert interner == null || interner.isUnmodified(fact) :
+                    "Interned OUT fact of " + node + " was modified: " + fact;
+            return fact;
+        }
+        BuiltFact<Node, Fact> built = lastBuiltFact;
+        if (built == null || built.node() != node) {
+            built = new BuiltFact<>(node, outFactBuilder.apply(node));
+            lastBuiltFact = built;
+        }
+        return built.fact();
     }
 
     /**
@@ -66,4 +125,39 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
     public void setOutFact(Node node, Fact fact) {
         outFacts.put(node, fact);
     }
+
+    /**
+     * Discards the stored OUT facts to save memory. After this call,
+     * {@link #getOutFact} returns the facts computed by given builder,
+     * typically from the IN facts kept in this result.
+     * <p>
+     * Building an OUT fact usually takes a transfer and allocates a new
+     * fact. Only the fact built last is kept, so reading the OUT fact of
+     * the same node several times in a row builds it once, but reading
+     * the OUT facts of all nodes repeatedly rebuilds them each time.
+     * The returned facts must not be modified.
+     */
+    public void discardOutFacts(Function<Node, Fact> outFactBuilder) {
+        outFacts.clear();
+        lastBuiltFact = null;
+        this.outFactBuilder = outFactBuilder;
+    }
+
+    /**
+     * Replaces the stored facts by their canonical facts in given interner,
+     * so that equal facts share one instance. After this call, the facts
+     * of this result must not be modified; if given interner is checked,
+     * reading a modified fact fails an assertion. The OUT facts built on
+     * demand after {@link #discardOutFacts} are not interned.
+     */
+    public void intern(FactInterner<Fact> interner) {
+        inFacts.replaceAll((node, fact) -> interner.intern(fact));
+        outFacts.replaceAll((node, fact) -> interner.intern(fact));
+        if (interner.isChecked()) {
+            this.interner = interner;
+        }
+    }
+
+    private record BuiltFact<Node, Fact>(Node node, Fact fact) {
+    }
 }
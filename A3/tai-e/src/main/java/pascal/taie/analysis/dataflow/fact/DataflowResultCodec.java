@@ -0,0 +1,89 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.ResultCodec;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static pascal.taie.analysis.ResultCodec.readVarInt;
+import static pascal.taie.analysis.ResultCodec.writeVarInt;
+
+/**
+ * Codec of data-flow results over the statement CFG of a method,
+ * which encodes the IN and OUT facts of each node with a fact codec.
+ * Any {@link NodeResult} can be encoded, and the decoded result is
+ * a {@link DataflowResult} which stores all facts of the nodes.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class DataflowResultCodec<Fact> implements ResultCodec<NodeResult<Stmt, Fact>> {
+
+    private final ResultCodec<Fact> factCodec;
+
+    public DataflowResultCodec(ResultCodec<Fact> factCodec) {
+        this.factCodec = factCodec;
+    }
+
+    @Override
+    public void write(IR ir, NodeResult<Stmt, Fact> result, DataOutput out)
+            throws IOException {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        writeVarInt(out, cfg.getNumberOfNodes());
+        for (Stmt node : cfg) {
+            writeVarInt(out, node.getIndex());
+            factCodec.write(ir, result.getInFact(node), out);
+            factCodec.write(ir, result.getOutFact(node), out);
+        }
+    }
+
+    @Override
+    public NodeResult<Stmt, Fact> read(IR ir, DataInput in) throws IOException {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        // the CFG nodes are indexed from 0 to (#nodes - 1),
+        // including the entry and exit nodes
+        Stmt[] nodes = new Stmt[cfg.getNumberOfNodes()];
+        for (Stmt node : cfg) {
+            nodes[node.getIndex()] = node;
+        }
+        if (readVarInt(in) != nodes.length) {
+            throw new IOException("Mismatched number of CFG nodes");
+        }
+        DataflowResult<Stmt, Fact> result = new DataflowResult<>(nodes.length);
+        for (int i = 0; i < nodes.length; ++i) {
+            int index = readVarInt(in);
+            if (index >= nodes.length) {
+                throw new IOException("Invalid CFG node index: " + index);
+            }
+            result.setInFact(nodes[index], factCodec.read(ir, in));
+            result.setOutFact(nodes[index], factCodec.read(ir, in));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonicalizes data-flow facts, so that equal facts share one instance.
+ * <p>
+ * Facts are mutable objects, hence the canonical facts returned by this
+ * interner must not be modified by their holders; in particular, facts
+ * should only be interned after they are stable, e.g., after the solver
+ * reaches the fixed point. A checked interner remembers the hash code
+ * of each canonical fact, so that {@link #isUnmodified} detects the
+ * canonical facts which are modified after interning.
+ *
+ * @param <Fact> type of data-flow facts, which must implement
+ *               {@link Object#equals} and {@link Object#hashCode}
+ */
+public class FactInterner<Fact> {
+
+    private final Map<Fact, Fact> canonicals = Maps.newMap();
+
+    /**
+     * Hash codes of the canonical facts when they were interned,
+     * or null if this interner is not checked.
+     */
+    @Nullable
+    private final Map<Fact, Integer> hashes;
+
+    private int requests = 0;
+
+    public FactInterner() {
+        this(false);
+    }
+
+    /**
+     * @param checked whether this interner remembers the hash codes of
+     *                the canonical facts to detect their modifications
+     */
+    public FactInterner(boolean checked) {
+        hashes = checked ? new IdentityHashMap<>() : null;
+    }
+
+    /**
+     * @return the canonical fact that is equal to given fact. If no such
+     * fact is interned yet, given fact becomes the canonical one.
+     */
+    public Fact intern(Fact fact) {
+        if (fact == null) {
+            return null;
+        }
+        ++requests;
+        Fact canonical = canonicals.putIfAbsent(fact, fact);
+        if (canonical == null) {
+            if (hashes != null) {
+                hashes.put(fact, fact.hashCode());
+            }
+            return fact;
+        }
+        assert isUnmodified(canonical) : "Interned fact was modified: " + canonical;
+        return canonical;
+    }
+
+    /**
+     * @return true if this interner remembers the hash codes of the
+     * canonical facts, otherwise false.
+     */
+    public boolean isChecked() {
+        return hashes != null;
+    }
+
+    /**
+     * @return false if given fact is a canonical fact of this checked
+     * interner and its hash code changed since it was interned, which
+     * means that it was modified; otherwise true.
+     */
+    public boolean isUnmodified(Fact fact) {
+        if (hashes == null) {
+            return true;
+        }
+        Integer hash = hashes.get(fact);
+        return hash == null || hash == fact.hashCode();
+    }
+
+    /**
+     * @return number of facts passed to {@link #intern}.
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return number of distinct canonical facts.
+     */
+    public int getUniqueFacts() {
+        return canonicals.size();
+    }
+
+    /**
+     * @return the fraction of interned facts that are replaced by
+     * a shared canonical fact.
+     */
+    public double getDedupRatio() {
+        return ratio(requests, canonicals.size());
+    }
+
+    @Override
+    public String toString() {
+        return format(requests, canonicals.size());
+    }
+
+    private static double ratio(long requests, long unique) {
+        return requests == 0 ? 0 : 1 - (double) unique / requests;
+    }
+
+    private static String format(long requests, long unique) {
+        return String.format("%d facts -> %d unique facts (dedup ratio %.2f)",
+                requests, unique, ratio(requests, unique));
+    }
+
+    /**
+     * Accumulates the statistics of the interners used by an analysis,
+     * possibly on multiple threads.
+     */
+    public static class Statistics {
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder unique = new LongAdder();
+
+        public void record(FactInterner<?> interner) {
+            requests.add(interner.getRequests());
+            unique.add(interner.getUniqueFacts());
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getUniqueFacts() {
+            return unique.sum();
+        }
+
+        public double getDedupRatio() {
+            return ratio(requests.sum(), unique.sum());
+        }
+
+        @Override
+        public String toString() {
+            return format(requests.sum(), unique.sum());
+        }
+    }
+}
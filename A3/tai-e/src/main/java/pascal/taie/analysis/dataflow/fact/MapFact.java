@@ -23,6 +23,7 @@
 package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentHashMap;
 
 import java.util.Comparator;
 import java.util.Map;
@@ -47,11 +48,14 @@ public class MapFact<K, V> {
 
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
+     * If the given map is a {@link PersistentHashMap}, the new MapFact
+     * shares its structure instead of copying its mappings.
      *
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = map instanceof PersistentHashMap<K, V> persistentMap ?
+                persistentMap.copy() : Maps.newHybridMap(map);
     }
 
     /**
@@ -88,8 +92,10 @@ public class MapFact<K, V> {
      */
     public boolean copyFrom(MapFact<K, V> fact) {
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+        // go through keySet() and get() instead of fact.map, so that
+        // subclasses not storing their mappings in the map are copied
+        for (K key : fact.keySet()) {
+            changed |= update(key, fact.get(key));
         }
         return changed;
     }
@@ -0,0 +1,273 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.defuse.DefUseIndex;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Streaming query over the data-flow result of a method, which visits
+ * the facts of the statements in the order of the statements.
+ * <p>
+ * The statements can be restricted to the ones of some kinds, to the
+ * ones which define or use a variable, or by arbitrary predicates.
+ * The visitor receives a {@link Cursor}, which is reused for all visited
+ * statements and fetches the IN and OUT facts from the result only when
+ * they are asked for. Thus, the results which compute facts on demand
+ * (e.g., the results which keep only IN facts or only the facts at block
+ * boundaries) compute only the visited facts, and a query never keeps
+ * more than the facts of the current statement. No string is built
+ * unless the cursor is printed.
+ * <p>
+ * For example, the following dumps the facts of the assignments to
+ * {@code x} in the format of {@code ResultProcessor}:
+ * <pre>{@code
+ * ResultQuery.of(ir, result)
+ *         .ofKind(AssignStmt.class)
+ *         .relatedTo(x)
+ *         .forEach(cursor -> cursor.print(System.out));
+ * }</pre>
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class ResultQuery<Fact> {
+
+    private final IR ir;
+
+    private final NodeResult<Stmt, Fact> result;
+
+    /**
+     * The variable whose definitions and uses are visited,
+     * or null if the statements are not restricted by a variable.
+     */
+    @Nullable
+    private Var var;
+
+    private Predicate<Stmt> filter = stmt -> true;
+
+    private ResultQuery(IR ir, NodeResult<Stmt, Fact> result) {
+        this.ir = ir;
+        this.result = result;
+    }
+
+    /**
+     * @return a query over all statements of given IR in given result.
+     */
+    public static <Fact> ResultQuery<Fact> of(IR ir, NodeResult<Stmt, Fact> result) {
+        return new ResultQuery<>(ir, result);
+    }
+
+    /**
+     * Restricts this query to the statements of given kind.
+     *
+     * @return this query.
+     */
+    public ResultQuery<Fact> ofKind(Class<? extends Stmt> kind) {
+        return filter(kind::isInstance);
+    }
+
+    /**
+     * Restricts this query to the statements which define or use given
+     * variable. The first variable is looked up in {@link DefUseIndex},
+     * thus the other statements are not even visited.
+     *
+     * @return this query.
+     */
+    public ResultQuery<Fact> relatedTo(Var var) {
+        if (this.var == null) {
+            this.var = var;
+            return this;
+        }
+        DefUseIndex defUse = DefUseIndex.of(ir);
+        return filter(stmt -> defUse.defines(stmt, var) ||
+                stmt.getUses().contains(var));
+    }
+
+    /**
+     * Restricts this query to the statements which satisfy given predicate.
+     *
+     * @return this query.
+     */
+    public ResultQuery<Fact> filter(Predicate<? super Stmt> predicate) {
+        Predicate<Stmt> previous = filter;
+        filter = stmt -> previous.test(stmt) && predicate.test(stmt);
+        return this;
+    }
+
+    /**
+     * Visits the facts of the statements of this query
+     * in the order of the statements.
+     */
+    public void forEach(Visitor<Fact> visitor) {
+        Cursor<Fact> cursor = new Cursor<>(result);
+        if (var == null) {
+            for (Stmt stmt : ir) {
+                visit(stmt, cursor, visitor);
+            }
+        } else {
+            // merge the definitions and the uses of the variable,
+            // which are both in the order of the statements
+            DefUseIndex defUse = DefUseIndex.of(ir);
+            List<Stmt> defs = defUse.defsOf(var);
+            List<Stmt> uses = defUse.usesOf(var);
+            int i = 0, j = 0;
+            while (i < defs.size() || j < uses.size()) {
+                Stmt stmt;
+                if (j == uses.size() || (i < defs.size() &&
+                        defs.get(i).getIndex() <= uses.get(j).getIndex())) {
+                    stmt = defs.get(i++);
+                } else {
+                    stmt = uses.get(j++);
+                }
+                if (j < uses.size() && uses.get(j) == stmt) {
+                    // the statement both defines and uses the variable
+                    ++j;
+                }
+                visit(stmt, cursor, visitor);
+            }
+        }
+    }
+
+    private void visit(Stmt stmt, Cursor<Fact> cursor, Visitor<Fact> visitor) {
+        if (filter.test(stmt)) {
+            cursor.moveTo(stmt);
+            visitor.visit(cursor);
+        }
+    }
+
+    /**
+     * Prints the statements of this query and their OUT facts
+     * to given stream, one statement per line.
+     *
+     * @see Cursor#print(PrintStream)
+     */
+    public void print(PrintStream out) {
+        forEach(cursor -> cursor.print(out));
+    }
+
+    /**
+     * @return the number of the statements of this query.
+     * The facts are not fetched.
+     */
+    public int count() {
+        int[] count = { 0 };
+        forEach(cursor -> ++count[0]);
+        return count[0];
+    }
+
+    /**
+     * Visitor of the facts of the statements of a query.
+     *
+     * @param <Fact> type of data-flow facts
+     */
+    @FunctionalInterface
+    public interface Visitor<Fact> {
+
+        /**
+         * Visits a statement of the query. The cursor is only valid
+         * during the call, as it moves to the next statement afterwards.
+         */
+        void visit(Cursor<Fact> cursor);
+    }
+
+    /**
+     * View of the current statement of a query and its facts.
+     *
+     * @param <Fact> type of data-flow facts
+     */
+    public static class Cursor<Fact> {
+
+        private final NodeResult<Stmt, Fact> result;
+
+        private Stmt stmt;
+
+        @Nullable
+        private Fact inFact;
+
+        @Nullable
+        private Fact outFact;
+
+        private Cursor(NodeResult<Stmt, Fact> result) {
+            this.result = result;
+        }
+
+        private void moveTo(Stmt stmt) {
+            this.stmt = stmt;
+            inFact = null;
+            outFact = null;
+        }
+
+        public Stmt getStmt() {
+            return stmt;
+        }
+
+        /**
+         * @return the IN fact of the current statement, which is
+         * fetched from the result at the first call.
+         */
+        public Fact getInFact() {
+            if (inFact == null) {
+                inFact = result.getInFact(stmt);
+            }
+            return inFact;
+        }
+
+        /**
+         * @return the OUT fact of the current statement, which is
+         * fetched from the result at the first call.
+         */
+        public Fact getOutFact() {
+            if (outFact == null) {
+                outFact = result.getOutFact(stmt);
+            }
+            return outFact;
+        }
+
+        /**
+         * Prints the current statement and its OUT fact in one line,
+         * which is the same as the dump of {@code ResultProcessor}.
+         */
+        public void print(PrintStream out) {
+            out.print(IRPrinter.toString(stmt));
+            out.print(' ');
+            out.println(getOutFact());
+        }
+
+        /**
+         * @return the current statement and its OUT fact in the format
+         * of {@link #print(PrintStream)}.
+         */
+        @Override
+        public String toString() {
+            return IRPrinter.toString(stmt) + " " + getOutFact();
+        }
+    }
+}
@@ -26,7 +26,6 @@ import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -45,7 +44,17 @@ public class SetFact<E> {
     }
 
     public SetFact() {
-        this(Collections.emptySet());
+        set = Sets.newHybridSet();
+    }
+
+    /**
+     * Creates a fact backed by given set, which is not copied. Subclasses
+     * which keep their elements in other data structures and never access
+     * {@link #set} can pass an immutable empty set to avoid allocating
+     * an unused one.
+     */
+    protected SetFact(Set<E> set) {
+        this.set = set;
     }
 
     /**
@@ -89,7 +98,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        return set.addAll(other.elements());
     }
 
     /**
@@ -107,7 +116,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return set.retainAll(other.elements());
     }
 
     /**
@@ -119,6 +128,15 @@ public class SetFact<E> {
         return result;
     }
 
+    /**
+     * Removes all elements of other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean difference(SetFact<E> other) {
+        return set.removeAll(other.elements());
+    }
+
     /**
      * Sets the content of this set to the same as other set.
      */
@@ -131,7 +149,7 @@ public class SetFact<E> {
      * Creates and returns a copy of this fact.
      */
     public SetFact<E> copy() {
-        return new SetFact<>(this.set);
+        return new SetFact<>(Sets.newHybridSet(set));
     }
 
     /**
@@ -153,6 +171,18 @@ public class SetFact<E> {
         return set.size();
     }
 
+    /**
+     * @return the elements of this fact as a {@link Set}.
+     */
+    protected Set<E> elements() {
+        return set;
+    }
+
+    /**
+     * Compares the elements of this fact with the ones of given object,
+     * which is equal to this fact if it is a {@link SetFact} of the same
+     * elements, regardless of how the facts keep their elements.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -161,12 +191,16 @@ public class SetFact<E> {
         if (!(o instanceof SetFact<?> that)) {
             return false;
         }
-        return set.equals(that.set);
+        return elements().equals(that.elements());
     }
 
+    /**
+     * @return the hash code of the elements of this fact,
+     * as defined by {@link Set#hashCode()}.
+     */
     @Override
     public int hashCode() {
-        return set.hashCode();
+        return elements().hashCode();
     }
 
     @Override
@@ -0,0 +1,310 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Solver which condenses the CFG into basic blocks, solves the data-flow
+ * problem on the {@link BlockCFG} with a solver of given kind, and stores
+ * facts only at the boundaries of blocks. The facts of the nodes inside
+ * a block are recomputed by replaying the transfers of the block when
+ * they are queried from the result.
+ * <p>
+ * The facts flow between blocks along the edges of the {@link BlockCFG},
+ * which do not carry the edges of the condensed CFG, thus this solver
+ * does not support the analyses which transfer facts along edges.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    @Nullable
+    private final String kind;
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        this(analysis, kind, null);
+    }
+
+    private BlockSolver(DataflowAnalysis<Node, Fact> analysis, @Nullable String kind,
+                        @Nullable SolverMetrics.Recorder recorder) {
+        super(analysis, recorder);
+        this.kind = kind;
+    }
+
+    @Override
+    Solver<Node, Fact> copy(DataflowAnalysis<Node, Fact> analysis,
+                            @Nullable SolverMetrics.Recorder recorder) {
+        return new BlockSolver<>(analysis, kind, recorder);
+    }
+
+    /**
+     * The result always keeps only the facts at block boundaries,
+     * thus {@code inFactsOnly} is ignored.
+     *
+     * @throws IllegalArgumentException if the analysis transfers facts
+     *                                  along some edge of given CFG
+     */
+    @Override
+    public NodeResult<Node, Fact> solve(CFG<Node> cfg, boolean inFactsOnly) {
+        checkNoEdgeTransfer(cfg);
+        BlockCFG<Node> blockCFG = new BlockCFG<>(cfg);
+        BlockAnalysis blockAnalysis = new BlockAnalysis(cfg);
+        NodeResult<BasicBlock<Node>, Fact> blockResult =
+                newBlockSolver(blockAnalysis).solve(blockCFG);
+        return new BlockResult(blockCFG, blockAnalysis, blockResult);
+    }
+
+    /**
+     * Re-solves the block-level problem incrementally, where the facts of
+     * a block in the previous result are the IN fact of its first node and
+     * the OUT fact of its last node. As {@link #solve}, {@code inFactsOnly}
+     * is ignored.
+     *
+     * @throws IllegalArgumentException if the analysis transfers facts
+     *                                  along some edge of given CFG
+     */
+    @Override
+    public NodeResult<Node, Fact> resolve(
+            CFG<Node> cfg, NodeResult<Node, Fact> previous,
+            Collection<Node> changed, boolean inFactsOnly) {
+        checkNoEdgeTransfer(cfg);
+        BlockCFG<Node> blockCFG = new BlockCFG<>(cfg);
+        BlockAnalysis blockAnalysis = new BlockAnalysis(cfg);
+        Set<BasicBlock<Node>> changedBlocks = Sets.newSet();
+        for (Node node : changed) {
+            if (cfg.hasNode(node)) {
+                changedBlocks.add(blockCFG.getBlockOf(node));
+            }
+        }
+        NodeResult<BasicBlock<Node>, Fact> previousBlocks = new NodeResult<>() {
+            @Override
+            public Fact getInFact(BasicBlock<Node> block) {
+                return previous.getInFact(block.getFirst());
+            }
+
+            @Override
+            public Fact getOutFact(BasicBlock<Node> block) {
+                return previous.getOutFact(block.getLast());
+            }
+        };
+        NodeResult<BasicBlock<Node>, Fact> blockResult =
+                newBlockSolver(blockAnalysis)
+                        .resolve(blockCFG, previousBlocks, changedBlocks, false);
+        return new BlockResult(blockCFG, blockAnalysis, blockResult);
+    }
+
+    private void checkNoEdgeTransfer(CFG<Node> cfg) {
+        for (Node node : cfg) {
+            for (Edge<Node> edge : cfg.getOutEdgesOf(node)) {
+                if (analysis.needTransferEdge(edge)) {
+                    throw new IllegalArgumentException(
+                            "Block solver does not support edge transfer of " +
+                                    analysis + " on " + edge);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the solver of the block-level problem, which reports
+     * its iterations to the recorder of this solver.
+     */
+    private Solver<BasicBlock<Node>, Fact> newBlockSolver(BlockAnalysis blockAnalysis) {
+        return Solver.makeSolver(blockAnalysis, kind).copy(blockAnalysis, getRecorder());
+    }
+
+    /**
+     * Lifts the analysis to basic blocks, where the transfer of a block
+     * is the composition of the transfers of its nodes.
+     */
+    private class BlockAnalysis implements DataflowAnalysis<BasicBlock<Node>, Fact> {
+
+        private final CFG<Node> cfg;
+
+        private BlockAnalysis(CFG<Node> cfg) {
+            this.cfg = cfg;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<BasicBlock<Node>> blockCFG) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(BasicBlock<Node> block, Fact in, Fact out) {
+            List<Node> nodes = block.getNodes();
+            int last = nodes.size() - 1;
+            if (analysis.isForward()) {
+                Fact fact = in;
+                for (int i = 0; i < last; ++i) {
+                    fact = transfer(nodes.get(i), fact);
+                }
+                return analysis.transferNode(nodes.get(last), fact, out);
+            } else {
+                Fact fact = out;
+                for (int i = last; i > 0; --i) {
+                    fact = transfer(nodes.get(i), fact);
+                }
+                return analysis.transferNode(nodes.get(0), in, fact);
+            }
+        }
+
+        /**
+         * Applies the transfer of a node inside a block to a new fact.
+         *
+         * @return the OUT (IN) fact of the node in forward (backward) analysis.
+         */
+        private Fact transfer(Node node, Fact fact) {
+            Fact result = analysis.newInitialFact(cfg);
+            if (analysis.isForward()) {
+                analysis.transferNode(node, fact, result);
+            } else {
+                analysis.transferNode(node, result, fact);
+            }
+            return result;
+        }
+
+        /**
+         * The analysis needs no edge transfer, see {@link #checkNoEdgeTransfer}.
+         */
+        @Override
+        public boolean needTransferEdge(Edge<BasicBlock<Node>> edge) {
+            return false;
+        }
+
+        @Override
+        public Fact transferEdge(Edge<BasicBlock<Node>> edge, Fact nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Data-flow result over the nodes of the condensed CFG. It keeps the
+     * facts of the last replayed block, so that querying the nodes of
+     * a block one after another replays the block only once. The result
+     * may be queried concurrently, where each query replays the block
+     * if the cached replay is of another block.
+     */
+    private class BlockResult implements NodeResult<Node, Fact> {
+
+        private final BlockCFG<Node> blockCFG;
+
+        private final BlockAnalysis blockAnalysis;
+
+        private final NodeResult<BasicBlock<Node>, Fact> blockResult;
+
+        /**
+         * The last replayed block. It is replaced as a whole, so that
+         * concurrent queries see either the old or the new replay.
+         */
+        @Nullable
+        private volatile Replay<Node> lastReplay;
+
+        private BlockResult(BlockCFG<Node> blockCFG, BlockAnalysis blockAnalysis,
+                            NodeResult<BasicBlock<Node>, Fact> blockResult) {
+            this.blockCFG = blockCFG;
+            this.blockAnalysis = blockAnalysis;
+            this.blockResult = blockResult;
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            BasicBlock<Node> block = blockCFG.getBlockOf(node);
+            int i = blockCFG.getPositionInBlock(node);
+            return i == 0 ? blockResult.getInFact(block) : getFactAfter(block, i - 1);
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            BasicBlock<Node> block = blockCFG.getBlockOf(node);
+            int i = blockCFG.getPositionInBlock(node);
+            return i == block.size() - 1 ?
+                    blockResult.getOutFact(block) : getFactAfter(block, i);
+        }
+
+        /**
+         * @return the fact between the i-th and (i+1)-th nodes of given block.
+         */
+        @SuppressWarnings("unchecked")
+        private Fact getFactAfter(BasicBlock<Node> block, int i) {
+            Replay<Node> replay = lastReplay;
+            if (replay == null || replay.block() != block) {
+                replay = replay(block);
+                lastReplay = replay;
+            }
+            return (Fact) replay.facts()[i];
+        }
+
+        private Replay<Node> replay(BasicBlock<Node> block) {
+            List<Node> nodes = block.getNodes();
+            int last = nodes.size() - 1;
+            Object[] facts = new Object[last];
+            if (analysis.isForward()) {
+                Fact fact = blockResult.getInFact(block);
+                for (int i = 0; i < last; ++i) {
+                    fact = blockAnalysis.transfer(nodes.get(i), fact);
+                    facts[i] = fact;
+                }
+            } else {
+                Fact fact = blockResult.getOutFact(block);
+                for (int i = last; i > 0; --i) {
+                    fact = blockAnalysis.transfer(nodes.get(i), fact);
+                    facts[i - 1] = fact;
+                }
+            }
+            return new Replay<>(block, facts);
+        }
+    }
+
+    /**
+     * Facts between the nodes of a replayed block, where
+     * {@code facts[i]} flows from node i to node i + 1.
+     */
+    private record Replay<Node>(BasicBlock<Node> block, Object[] facts) {
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Base class for the solvers which iterate over the nodes of the CFG,
+ * storing the facts of all nodes in a {@link DataflowResult}.
+ * Subclasses provide the iteration strategy.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+abstract class NodeIterativeSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    protected NodeIterativeSolver(DataflowAnalysis<Node, Fact> analysis,
+                                  @Nullable SolverMetrics.Recorder recorder) {
+        super(analysis, recorder);
+    }
+
+    @Override
+    public NodeResult<Node, Fact> solve(CFG<Node> cfg, boolean inFactsOnly) {
+        DataflowResult<Node, Fact> result = initialize(cfg);
+        doSolve(cfg, result);
+        if (inFactsOnly) {
+            result.discardOutFacts(node -> rebuildOutFact(cfg, result, node));
+        }
+        return result;
+    }
+
+    /**
+     * Resets the facts of the affected nodes, takes the facts of the
+     * other nodes from the previous result, and iterates over the
+     * affected nodes only.
+     */
+    @Override
+    public NodeResult<Node, Fact> resolve(
+            CFG<Node> cfg, NodeResult<Node, Fact> previous,
+            Collection<Node> changed, boolean inFactsOnly) {
+        Set<Node> affected = getAffectedNodes(cfg, changed);
+        DataflowResult<Node, Fact> result = newResult(cfg);
+        for (Node node : cfg) {
+            if (affected.contains(node)) {
+                initializeNode(cfg, result, node);
+            } else {
+                result.setInFact(node, previous.getInFact(node));
+                result.setOutFact(node, previous.getOutFact(node));
+            }
+        }
+        doResolve(cfg, result, affected);
+        if (inFactsOnly) {
+            result.discardOutFacts(node -> rebuildOutFact(cfg, result, node));
+        }
+        return result;
+    }
+
+    /**
+     * @return the changed nodes and the nodes reachable from them
+     * in the direction of the analysis.
+     */
+    private Set<Node> getAffectedNodes(CFG<Node> cfg, Collection<Node> changed) {
+        Set<Node> affected = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : changed) {
+            if (cfg.hasNode(node) && affected.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node next : analysis.isForward() ?
+                    cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                if (affected.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Resets the facts of given node as {@link #initialize} does.
+     */
+    private void initializeNode(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                Node node) {
+        if (analysis.isForward()) {
+            result.setInFact(node, analysis.newInitialFact(cfg));
+            result.setOutFact(node, cfg.isEntry(node) ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact(cfg));
+        } else {
+            result.setInFact(node, cfg.isExit(node) ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact(cfg));
+            result.setOutFact(node, analysis.newInitialFact(cfg));
+        }
+    }
+
+    /**
+     * Creates and initializes a new data-flow result for given CFG.
+     *
+     * @return the initialized data-flow result
+     */
+    private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
+        DataflowResult<Node, Fact> result = newResult(cfg);
+        if (analysis.isForward()) {
+            initializeForward(cfg, result);
+        } else {
+            initializeBackward(cfg, result);
+        }
+        return result;
+    }
+
+    private DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        return cfg.getEntry() instanceof Indexable ?
+                new DataflowResult<>(cfg.getNumberOfNodes()) :
+                new DataflowResult<>();
+    }
+
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg) {
+            result.setInFact(node, analysis.newInitialFact(cfg));
+            if (!cfg.isEntry(node))
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+        }
+    }
+
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg) {
+            result.setOutFact(node, analysis.newInitialFact(cfg));
+            if (!cfg.isExit(node)) {
+                result.setInFact(node, analysis.newInitialFact(cfg));
+            }
+        }
+    }
+
+    /**
+     * Computes the OUT fact of given node from the IN facts in the result,
+     * which is the same as the OUT fact at the fixed point.
+     */
+    private Fact rebuildOutFact(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                Node node) {
+        if (analysis.isForward()) {
+            Fact out = cfg.isEntry(node) ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact(cfg);
+            analysis.transferNode(node, result.getInFact(node), out);
+            return out;
+        } else {
+            Fact out = analysis.newInitialFact(cfg);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Solves the data-flow problem for given CFG.
+     */
+    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        if (analysis.isForward()) {
+            doSolveForward(cfg, result);
+        } else {
+            doSolveBackward(cfg, result);
+        }
+    }
+
+    /**
+     * @return given CFG if it is a {@link FrozenCFG}, whose neighbors of
+     * the nodes can be iterated without allocation, otherwise null.
+     */
+    @Nullable
+    static FrozenCFG asFrozen(CFG<?> cfg) {
+        return cfg instanceof FrozenCFG frozen ? frozen : null;
+    }
+
+    /**
+     * @return the node of given index in the frozen CFG, which is
+     * the CFG being solved, thus its nodes are of type {@code Node}.
+     */
+    @SuppressWarnings("unchecked")
+    Node getNode(FrozenCFG cfg, int index) {
+        return (Node) cfg.getNode(index);
+    }
+
+    /**
+     * Meets the facts flowing into given node into its fact, i.e., the
+     * OUT facts of its predecessors into its IN fact in forward analysis,
+     * or the IN facts of its successors into its OUT fact in backward
+     * analysis.
+     *
+     * @param frozen the CFG if it is frozen, otherwise null
+     */
+    void meetFlowingIn(CFG<Node> cfg, @Nullable FrozenCFG frozen,
+                       DataflowResult<Node, Fact> result, Node node, boolean forward) {
+        if (forward) {
+            Fact in = result.getInFact(node);
+            if (frozen != null) {
+                int i = ((Stmt) node).getIndex();
+                for (int k = frozen.getPredBegin(i); k < frozen.getPredEnd(i); ++k) {
+                    analysis.meetInto(result.getOutFact(getNode(frozen, frozen.getPred(k))), in);
+                }
+            } else {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    analysis.meetInto(result.getOutFact(pred), in);
+                }
+            }
+        } else {
+            Fact out = result.getOutFact(node);
+            if (frozen != null) {
+                int i = ((Stmt) node).getIndex();
+                for (int k = frozen.getSuccBegin(i); k < frozen.getSuccEnd(i); ++k) {
+                    analysis.meetInto(result.getInFact(getNode(frozen, frozen.getSucc(k))), out);
+                }
+            } else {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    analysis.meetInto(result.getInFact(succ), out);
+                }
+            }
+        }
+    }
+
+    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    /**
+     * Solves the data-flow problem for given CFG, where only the facts
+     * of the affected nodes may differ from the fixed point.
+     */
+    protected abstract void doResolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                      Set<Node> affected);
+}
@@ -0,0 +1,567 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solver which solves the independent regions of a large CFG concurrently.
+ * <p>
+ * The CFG (reverse CFG for backward analysis) is partitioned into regions
+ * along its strongly connected components. The regions form a DAG, thus a
+ * region is solved by a sequential work-list iteration over its nodes once
+ * all its predecessor regions are solved: then the facts flowing into the
+ * region through its boundary nodes are final, and the region never feeds
+ * back to them. The regions whose predecessors are all solved are solved
+ * in parallel by fork-join tasks.
+ * <p>
+ * The components are merged into the region of their predecessors when the
+ * merge loses no parallelism (a chain of components) or when the region of
+ * the predecessors is smaller than a minimum size, so that the tasks are
+ * not dominated by their scheduling. A loop with at least twice the minimum
+ * size nodes is not solved as one region: its heads (the nodes entered from
+ * outside the loop) are cut off, and its body is partitioned recursively.
+ * The loop is then solved in rounds, each of which transfers the heads and
+ * solves the regions of the body in parallel, until the heads are stable.
+ * <p>
+ * The CFGs with fewer nodes than a threshold are solved by a given
+ * sequential solver instead. The analysis must allow concurrent transfers
+ * and meets on different nodes.
+ */
+class ParallelSolver<Node, Fact> extends NodeIterativeSolver<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(ParallelSolver.class);
+
+    /**
+     * Default minimum number of nodes of the regions which are
+     * merged with no other regions.
+     */
+    static final int MIN_REGION_SIZE = 32;
+
+    private final Solver<Node, Fact> sequential;
+
+    /**
+     * Minimum number of nodes of the CFGs that are solved in parallel.
+     */
+    private final int threshold;
+
+    /**
+     * Minimum number of nodes of the regions which are merged with no
+     * other regions. Smaller regions absorb their successors when possible.
+     */
+    private final int minRegionSize;
+
+    ParallelSolver(Solver<Node, Fact> sequential, int threshold) {
+        this(sequential, threshold, MIN_REGION_SIZE);
+    }
+
+    ParallelSolver(Solver<Node, Fact> sequential, int threshold, int minRegionSize) {
+        super(sequential.analysis, sequential.getRecorder());
+        this.sequential = sequential;
+        this.threshold = threshold;
+        this.minRegionSize = minRegionSize;
+    }
+
+    @Override
+    Solver<Node, Fact> copy(DataflowAnalysis<Node, Fact> analysis,
+                            @Nullable SolverMetrics.Recorder recorder) {
+        return new ParallelSolver<>(sequential.copy(analysis, recorder),
+                threshold, minRegionSize);
+    }
+
+    @Override
+    public NodeResult<Node, Fact> solve(CFG<Node> cfg, boolean inFactsOnly) {
+        return cfg.getNumberOfNodes() < threshold ?
+                sequential.solve(cfg, inFactsOnly) :
+                super.solve(cfg, inFactsOnly);
+    }
+
+    @Override
+    public NodeResult<Node, Fact> resolve(
+            CFG<Node> cfg, NodeResult<Node, Fact> previous,
+            Collection<Node> changed, boolean inFactsOnly) {
+        return cfg.getNumberOfNodes() < threshold ?
+                sequential.resolve(cfg, previous, changed, inFactsOnly) :
+                super.resolve(cfg, previous, changed, inFactsOnly);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solveRegions(cfg, result, true, cfg.getNodes());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solveRegions(cfg, result, false, cfg.getNodes());
+    }
+
+    /**
+     * Solves the affected nodes in parallel as the whole CFG, as the
+     * facts of the other nodes are final.
+     */
+    @Override
+    protected void doResolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                             Set<Node> affected) {
+        solveRegions(cfg, result, analysis.isForward(), affected);
+    }
+
+    private void solveRegions(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                              boolean forward, Set<Node> nodes) {
+        Solving solving = new Solving(cfg, result, forward);
+        List<Region> regions = solving.partition(nodes);
+        solving.solveDAG(regions);
+        logger.debug("{} solved {} ({} nodes) in {} regions",
+                analysis.getClass().getSimpleName(), cfg.getMethod(),
+                nodes.size(), regions.size());
+    }
+
+    /**
+     * Group of nodes solved by one task.
+     */
+    private class Region {
+
+        /**
+         * Nodes of this region, in topological order of
+         * their components.
+         */
+        private final Set<Node> nodes = Sets.newHybridOrderedSet();
+
+        private final Set<Region> succs = Sets.newHybridSet();
+
+        /**
+         * Number of the predecessor regions.
+         */
+        private int preds;
+
+        /**
+         * Number of the predecessor regions which are not solved yet.
+         */
+        private final AtomicInteger pendingPreds = new AtomicInteger();
+
+        /**
+         * Heads of the loop if this region is a loop which is split,
+         * otherwise null.
+         */
+        @Nullable
+        private List<Node> heads;
+
+        /**
+         * Regions of the body of the loop if this region is a loop
+         * which is split, otherwise null.
+         */
+        @Nullable
+        private List<Region> body;
+    }
+
+    /**
+     * Solving of a CFG, which partitions the CFG into regions
+     * and solves them.
+     */
+    private class Solving {
+
+        private final CFG<Node> cfg;
+
+        /**
+         * The CFG if it is frozen, otherwise null.
+         */
+        @Nullable
+        private final FrozenCFG frozen;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean forward;
+
+        private Solving(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                        boolean forward) {
+            this.cfg = cfg;
+            this.frozen = asFrozen(cfg);
+            this.result = result;
+            this.forward = forward;
+        }
+
+        /**
+         * @return the nodes whose facts flow into given node.
+         */
+        private Set<Node> predsOf(Node node) {
+            return forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node);
+        }
+
+        /**
+         * @return the nodes which given node flows into.
+         */
+        private Set<Node> succsOf(Node node) {
+            return forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+        }
+
+        /**
+         * Partitions given nodes into regions. The neighbors of the nodes
+         * which are not given are treated as solved.
+         *
+         * @return the regions in topological order.
+         */
+        private List<Region> partition(Set<Node> nodes) {
+            List<List<Node>> components = stronglyConnectedComponents(nodes);
+            Map<Node, List<Node>> componentOf = Maps.newMap(nodes.size());
+            for (List<Node> component : components) {
+                for (Node node : component) {
+                    componentOf.put(node, component);
+                }
+            }
+            List<Region> regions = new ArrayList<>();
+            Map<Node, Region> regionOf = Maps.newMap(nodes.size());
+            for (List<Node> component : components) {
+                Region region;
+                if (isLoop(component) && component.size() >= 2 * minRegionSize) {
+                    region = new Region();
+                    splitLoop(region, component);
+                    regions.add(region);
+                } else {
+                    // merge the component into the region of its predecessors
+                    // if it is the only successor of that region, or if that
+                    // region is small; the regions still form a DAG, as all
+                    // predecessors of the component are in that region
+                    Region pred = getOnlyPredRegion(component, regionOf);
+                    if (pred != null && pred.heads == null &&
+                            (pred.nodes.size() < minRegionSize ||
+                                    getOnlySuccComponent(pred, componentOf) == component)) {
+                        region = pred;
+                    } else {
+                        region = new Region();
+                        regions.add(region);
+                    }
+                    region.nodes.addAll(component);
+                }
+                for (Node node : component) {
+                    regionOf.put(node, region);
+                }
+            }
+            for (Region region : regions) {
+                for (Node node : region.nodes) {
+                    for (Node succ : succsOf(node)) {
+                        Region succRegion = regionOf.get(succ);
+                        if (succRegion != null && succRegion != region &&
+                                region.succs.add(succRegion)) {
+                            ++succRegion.preds;
+                        }
+                    }
+                }
+            }
+            return regions;
+        }
+
+        /**
+         * @return true if given component contains a cycle.
+         */
+        private boolean isLoop(List<Node> component) {
+            Node node = component.get(0);
+            return component.size() > 1 || succsOf(node).contains(node);
+        }
+
+        /**
+         * Cuts off the heads of given loop, and partitions its body
+         * into the regions of given region.
+         */
+        private void splitLoop(Region region, List<Node> loop) {
+            region.nodes.addAll(loop);
+            List<Node> heads = new ArrayList<>();
+            for (Node node : loop) {
+                for (Node pred : predsOf(node)) {
+                    if (!region.nodes.contains(pred)) {
+                        heads.add(node);
+                        break;
+                    }
+                }
+            }
+            if (heads.isEmpty()) {
+                // a loop entered from nowhere, e.g., an unreachable one
+                heads.add(loop.get(0));
+            }
+            region.heads = heads;
+            Set<Node> body = Sets.newHybridOrderedSet();
+            body.addAll(loop);
+            heads.forEach(body::remove);
+            region.body = partition(body);
+        }
+
+        /**
+         * @return the only region of the predecessors of given component,
+         * or null if the component has no or more than one such region.
+         * The predecessors which have no region are out of the partitioned
+         * nodes, thus solved.
+         */
+        @Nullable
+        private Region getOnlyPredRegion(List<Node> component,
+                                         Map<Node, Region> regionOf) {
+            Region result = null;
+            for (Node node : component) {
+                for (Node pred : predsOf(node)) {
+                    Region region = regionOf.get(pred);
+                    if (region != null) {
+                        if (result != null && result != region) {
+                            return null;
+                        }
+                        result = region;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return the only component which succeeds given region,
+         * or null if there is no or more than one such component.
+         */
+        @Nullable
+        private List<Node> getOnlySuccComponent(
+                Region region, Map<Node, List<Node>> componentOf) {
+            List<Node> result = null;
+            for (Node node : region.nodes) {
+                List<Node> component = componentOf.get(node);
+                for (Node succ : succsOf(node)) {
+                    List<Node> other = componentOf.get(succ);
+                    if (other != null && other != component &&
+                            !region.nodes.contains(succ)) {
+                        if (result != null && result != other) {
+                            return null;
+                        }
+                        result = other;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Computes the strongly connected components of the subgraph of
+         * given nodes by Tarjan's algorithm with an explicit stack.
+         *
+         * @return the components in topological order.
+         */
+        private List<List<Node>> stronglyConnectedComponents(Set<Node> nodes) {
+            Map<Node, Integer> index = Maps.newMap(nodes.size());
+            Map<Node, Integer> lowLink = Maps.newMap(nodes.size());
+            Set<Node> onStack = Sets.newSet(nodes.size());
+            Deque<Node> stack = new ArrayDeque<>();
+            Deque<Node> path = new ArrayDeque<>();
+            Deque<Iterator<Node>> iterators = new ArrayDeque<>();
+            List<List<Node>> components = new ArrayList<>();
+            for (Node root : nodes) {
+                if (index.containsKey(root)) {
+                    continue;
+                }
+                Node start = root;
+                while (start != null) {
+                    index.put(start, index.size());
+                    lowLink.put(start, index.get(start));
+                    stack.push(start);
+                    onStack.add(start);
+                    path.push(start);
+                    iterators.push(succsOf(start).stream()
+                            .filter(nodes::contains)
+                            .iterator());
+                    start = null;
+                    while (start == null && !path.isEmpty()) {
+                        Node node = path.peek();
+                        Iterator<Node> succs = iterators.peek();
+                        if (succs.hasNext()) {
+                            Node succ = succs.next();
+                            if (!index.containsKey(succ)) {
+                                start = succ;
+                            } else if (onStack.contains(succ)) {
+                                lowLink.put(node, Math.min(lowLink.get(node), index.get(succ)));
+                            }
+                        } else {
+                            path.pop();
+                            iterators.pop();
+                            if (!path.isEmpty()) {
+                                Node parent = path.peek();
+                                lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+                            }
+                            if (lowLink.get(node).equals(index.get(node))) {
+                                List<Node> component = new ArrayList<>();
+                                Node member;
+                                do {
+                                    member = stack.pop();
+                                    onStack.remove(member);
+                                    component.add(member);
+                                } while (member != node);
+                                Collections.reverse(component);
+                                components.add(component);
+                            }
+                        }
+                    }
+                }
+            }
+            // Tarjan's algorithm finds the components in reverse topological order
+            Collections.reverse(components);
+            return components;
+        }
+
+        /**
+         * Solves given regions, which form a DAG, in parallel.
+         */
+        private void solveDAG(List<Region> regions) {
+            for (Region region : regions) {
+                region.pendingPreds.set(region.preds);
+            }
+            new CountedCompleter<Void>() {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void compute() {
+                    for (Region region : regions) {
+                        if (region.preds == 0) {
+                            addToPendingCount(1);
+                            new RegionTask(this, region).fork();
+                        }
+                    }
+                    tryComplete();
+                }
+            }.invoke();
+        }
+
+        /**
+         * Solves the nodes of given region.
+         */
+        private void solve(Region region) {
+            if (region.heads == null) {
+                countIterations(iterate(region.nodes));
+            } else {
+                solveLoop(region);
+            }
+        }
+
+        /**
+         * Solves given split loop in rounds: each round transfers the
+         * heads, and then solves the body, until the heads are stable
+         * after the body is solved.
+         */
+        private void solveLoop(Region loop) {
+            boolean first = true;
+            while (true) {
+                boolean changed = false;
+                for (Node head : loop.heads) {
+                    meetFlowingIn(cfg, frozen, result, head, forward);
+                    changed |= analysis.transferNode(head,
+                            result.getInFact(head), result.getOutFact(head));
+                }
+                countIterations(loop.heads.size());
+                if (!first && !changed) {
+                    break;
+                }
+                first = false;
+                solveDAG(loop.body);
+            }
+        }
+
+        /**
+         * Iterates over given nodes until their facts reach the fixed point.
+         *
+         * @return the number of visited nodes.
+         */
+        private int iterate(Set<Node> nodes) {
+            Queue<Node> worklist = new SetQueue<>();
+            worklist.addAll(nodes);
+            int iterations = 0;
+            while (!worklist.isEmpty()) {
+                Node node = worklist.poll();
+                ++iterations;
+                meetFlowingIn(cfg, frozen, result, node, forward);
+                if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
+                    if (frozen != null) {
+                        int i = ((Stmt) node).getIndex();
+                        int begin = forward ? frozen.getSuccBegin(i) : frozen.getPredBegin(i);
+                        int end = forward ? frozen.getSuccEnd(i) : frozen.getPredEnd(i);
+                        for (int k = begin; k < end; ++k) {
+                            Node next = getNode(frozen,
+                                    forward ? frozen.getSucc(k) : frozen.getPred(k));
+                            if (nodes.contains(next)) {
+                                worklist.add(next);
+                            }
+                        }
+                    } else {
+                        for (Node next : succsOf(node)) {
+                            if (nodes.contains(next)) {
+                                worklist.add(next);
+                            }
+                        }
+                    }
+                }
+            }
+            return iterations;
+        }
+
+        /**
+         * Task which solves a region, and then forks the tasks of its
+         * successor regions whose predecessors are all solved.
+         */
+        private class RegionTask extends CountedCompleter<Void> {
+
+            private static final long serialVersionUID = 1L;
+
+            private final Region region;
+
+            private RegionTask(CountedCompleter<?> completer, Region region) {
+                super(completer);
+                this.region = region;
+            }
+
+            @Override
+            public void compute() {
+                solve(region);
+                for (Region succ : region.succs) {
+                    if (succ.pendingPreds.decrementAndGet() == 0) {
+                        addToPendingCount(1);
+                        new RegionTask(this, succ).fork();
+                    }
+                }
+                tryComplete();
+            }
+        }
+    }
+}
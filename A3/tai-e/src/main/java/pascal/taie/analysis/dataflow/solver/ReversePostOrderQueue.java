@@ -0,0 +1,232 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Work-list of CFG nodes which always polls the pending node with the
+ * smallest reverse postorder number. For forward (backward) analysis,
+ * the reverse postorder is computed on the CFG (reverse CFG), thus
+ * a node is usually processed after all its predecessors (successors)
+ * which are not the sources of back edges.
+ * <p>
+ * Similar to {@link pascal.taie.util.collection.SetQueue}, adding a node
+ * which is already in the queue has no effect. Membership is tested in
+ * constant time by a bit set over the reverse postorder numbers, and the
+ * numbers of the nodes are looked up via their indexes if the nodes
+ * are {@link Indexable} (e.g., {@link pascal.taie.ir.stmt.Stmt}).
+ *
+ * @param <Node> type of CFG nodes
+ */
+class ReversePostOrderQueue<Node> extends AbstractQueue<Node> {
+
+    /**
+     * The nodes in reverse postorder.
+     */
+    private final List<Node> order;
+
+    /**
+     * Maps each node to its position in {@link #order}.
+     */
+    private final ToIntFunction<Node> positionOf;
+
+    /**
+     * Positions of the nodes in this queue.
+     */
+    private final BitSet pending;
+
+    /**
+     * No position in {@link #pending} is less than this value.
+     */
+    private int lowest;
+
+    private int size;
+
+    ReversePostOrderQueue(CFG<Node> cfg, boolean forward) {
+        order = reversePostOrder(cfg, forward);
+        positionOf = makePositionOf(order);
+        pending = new BitSet(order.size());
+    }
+
+    /**
+     * Adds all nodes of the CFG to this queue.
+     */
+    void addAllNodes() {
+        pending.set(0, order.size());
+        lowest = 0;
+        size = order.size();
+    }
+
+    /**
+     * Adds a node to this queue if it is not present.
+     *
+     * @return true if this queue changed as a result of the call, otherwise false.
+     */
+    @Override
+    public boolean add(Node node) {
+        return offer(node);
+    }
+
+    @Override
+    public boolean offer(Node node) {
+        int pos = positionOf.applyAsInt(node);
+        if (pending.get(pos)) {
+            return false;
+        }
+        pending.set(pos);
+        lowest = Math.min(lowest, pos);
+        ++size;
+        return true;
+    }
+
+    @Override
+    public Node poll() {
+        if (size == 0) {
+            return null;
+        }
+        int pos = pending.nextSetBit(lowest);
+        pending.clear(pos);
+        lowest = pos + 1;
+        --size;
+        return order.get(pos);
+    }
+
+    @Override
+    public Node peek() {
+        return size == 0 ? null : order.get(pending.nextSetBit(lowest));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<>() {
+
+            private int next = pending.nextSetBit(lowest);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Node next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                Node node = order.get(next);
+                next = pending.nextSetBit(next + 1);
+                return node;
+            }
+        };
+    }
+
+    /**
+     * Computes reverse postorder of the nodes in given CFG by depth-first
+     * search from the entry (exit) node along successors (predecessors)
+     * for forward (backward) direction. The nodes that are unreachable
+     * from the entry (exit) are placed after the reachable ones.
+     */
+    static <Node> List<Node> reversePostOrder(CFG<Node> cfg, boolean forward) {
+        Function<Node, Set<Node>> succsOf = forward ?
+                cfg::getSuccsOf : cfg::getPredsOf;
+        List<Node> order = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        dfs(forward ? cfg.getEntry() : cfg.getExit(), succsOf, visited, order);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                dfs(node, succsOf, visited, order);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Appends the nodes reached from root to order in reverse postorder.
+     */
+    private static <Node> void dfs(Node root, Function<Node, Set<Node>> succsOf,
+                                   Set<Node> visited, List<Node> order) {
+        List<Node> postOrder = new ArrayList<>();
+        Deque<Iterator<Node>> stack = new ArrayDeque<>();
+        Deque<Node> path = new ArrayDeque<>();
+        visited.add(root);
+        path.push(root);
+        stack.push(succsOf.apply(root).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> succs = stack.peek();
+            if (succs.hasNext()) {
+                Node succ = succs.next();
+                if (visited.add(succ)) {
+                    path.push(succ);
+                    stack.push(succsOf.apply(succ).iterator());
+                }
+            } else {
+                stack.pop();
+                postOrder.add(path.pop());
+            }
+        }
+        Collections.reverse(postOrder);
+        order.addAll(postOrder);
+    }
+
+    private static <Node> ToIntFunction<Node> makePositionOf(List<Node> order) {
+        if (!order.isEmpty() && order.get(0) instanceof Indexable) {
+            int maxIndex = order.stream()
+                    .mapToInt(node -> ((Indexable) node).getIndex())
+                    .max()
+                    .getAsInt();
+            int[] positions = new int[maxIndex + 1];
+            for (int i = 0; i < order.size(); ++i) {
+                positions[((Indexable) order.get(i)).getIndex()] = i;
+            }
+            return node -> positions[((Indexable) node).getIndex()];
+        } else {
+            Map<Node, Integer> positions = Maps.newMap(order.size());
+            for (int i = 0; i < order.size(); ++i) {
+                positions.put(order.get(i), i);
+            }
+            return positions::get;
+        }
+    }
+}
@@ -23,8 +23,12 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -37,8 +41,26 @@ public abstract class Solver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Recorder of the metrics of solving, or null if they are not recorded.
+     *
+     * @see SolverMetrics
+     */
+    @Nullable
+    private final SolverMetrics.Recorder recorder;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
+        this(analysis, null);
+    }
+
+    /**
+     * @param recorder the recorder which this solver reports its
+     *                 iterations to, or null if they are not recorded
+     */
+    protected Solver(DataflowAnalysis<Node, Fact> analysis,
+                     @Nullable SolverMetrics.Recorder recorder) {
         this.analysis = analysis;
+        this.recorder = recorder;
     }
 
     /**
@@ -50,63 +72,130 @@ public abstract class Solver<Node, Fact> {
     }
 
     /**
-     * Starts this solver on the given CFG.
+     * Static factory method to create a new solver of given kind for
+     * given analysis. Available kinds are:
+     * <ul>
+     *     <li>{@code worklist}: work-list solver which processes
+     *     nodes in first-in-first-out order (the default)</li>
+     *     <li>{@code rpo}: work-list solver which processes nodes
+     *     in reverse postorder of the CFG</li>
+     *     <li>{@code wto}: solver which iterates over the CFG in weak
+     *     topological order, stabilizing inner loops first</li>
+     * </ul>
      *
-     * @param cfg control-flow graph where the analysis is performed on
-     * @return the analysis result
+     * @param kind kind of the solver, or {@code null} for the default solver
+     * @throws ConfigException if the kind is unknown
      */
-    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
-        return result;
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            return makeSolver(analysis);
+        }
+        return switch (kind) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "rpo" -> new WorkListSolver<>(analysis, true);
+            case "wto" -> new WTOSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
     }
 
     /**
-     * Creates and initializes a new data-flow result for given CFG.
+     * Static factory method to create a new solver of given kind for
+     * given analysis, which solves the data-flow problem on the basic
+     * blocks of CFGs if {@code blocks} is true.
      *
-     * @return the initialized data-flow result
+     * @see #makeSolver(DataflowAnalysis, String)
      */
-    private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
-        if (analysis.isForward()) {
-            initializeForward(cfg, result);
-        } else {
-            initializeBackward(cfg, result);
-        }
-        return result;
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind,
+            boolean blocks) {
+        return blocks ? new BlockSolver<>(analysis, kind) : makeSolver(analysis, kind);
     }
 
-    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
-        for (Node node : cfg) {
-            result.setInFact(node, analysis.newInitialFact());
-            if (!cfg.isEntry(node))
-                result.setOutFact(node, analysis.newInitialFact());
-        }
+    /**
+     * Static factory method to create a new solver as
+     * {@link #makeSolver(DataflowAnalysis, String, boolean)}, which solves
+     * the CFGs with at least {@code parallelThreshold} nodes in parallel
+     * if {@code parallelThreshold} is positive.
+     *
+     * @see ParallelSolver
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind,
+            boolean blocks, int parallelThreshold) {
+        Solver<Node, Fact> solver = makeSolver(analysis, kind, blocks);
+        return parallelThreshold > 0 ?
+                new ParallelSolver<>(solver, parallelThreshold) : solver;
     }
 
-    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
-        for (Node node : cfg) {
-            result.setOutFact(node, analysis.newInitialFact());
-            if (!cfg.isExit(node)) {
-                result.setInFact(node, analysis.newInitialFact());
-            }
-        }
+    /**
+     * @return a new solver of the same kind as this one for given analysis,
+     * which reports its iterations to given recorder.
+     */
+    abstract Solver<Node, Fact> copy(DataflowAnalysis<Node, Fact> analysis,
+                                     @Nullable SolverMetrics.Recorder recorder);
+
+    /**
+     * @return the recorder which this solver reports its iterations to,
+     * or null if they are not recorded.
+     */
+    @Nullable
+    SolverMetrics.Recorder getRecorder() {
+        return recorder;
     }
 
     /**
-     * Solves the data-flow problem for given CFG.
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg control-flow graph where the analysis is performed on
+     * @return the analysis result
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        if (analysis.isForward()) {
-            doSolveForward(cfg, result);
-        } else {
-            doSolveBackward(cfg, result);
-        }
+    public NodeResult<Node, Fact> solve(CFG<Node> cfg) {
+        return solve(cfg, false);
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg         control-flow graph where the analysis is performed on
+     * @param inFactsOnly if true, the result keeps only the IN facts,
+     *                    and rebuilds the OUT facts when they are queried
+     * @return the analysis result
+     */
+    public abstract NodeResult<Node, Fact> solve(CFG<Node> cfg, boolean inFactsOnly);
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Re-solves the data-flow problem on given CFG incrementally after
+     * some nodes changed, reusing the facts of a previous result of the
+     * same analysis. Only the nodes affected by the changes, i.e., the
+     * changed nodes and the nodes reachable from them (in the reverse CFG
+     * for backward analysis), are recomputed; the facts of the other nodes
+     * are taken from the previous result as they do not depend on the
+     * changes. Thus, the new result is the same as the one of
+     * {@link #solve(CFG, boolean)}.
+     * <p>
+     * The changed nodes must include the nodes which are absent from the
+     * previous CFG, whose transfers may have changed, or whose predecessors
+     * (successors for backward analysis) have changed. The reused facts are
+     * shared by both results, thus neither result should be modified.
+     *
+     * @param cfg         control-flow graph after the changes
+     * @param previous    result of the analysis on the CFG before the changes
+     * @param changed     the changed nodes of {@code cfg}
+     * @param inFactsOnly if true, the result keeps only the IN facts,
+     *                    and rebuilds the OUT facts when they are queried
+     * @return the analysis result
+     */
+    public abstract NodeResult<Node, Fact> resolve(
+            CFG<Node> cfg, NodeResult<Node, Fact> previous,
+            Collection<Node> changed, boolean inFactsOnly);
+
+    /**
+     * Records that the solver visited given number of nodes.
+     */
+    protected void countIterations(int iterations) {
+        if (recorder != null) {
+            recorder.addIterations(iterations);
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.fact.FactInterner;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Maps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collector of the cost of data-flow solvers, which records for each
+ * solved method the number of work-list iterations (i.e., visited nodes),
+ * of {@link DataflowAnalysis#transferNode} and of
+ * {@link DataflowAnalysis#meetInto} calls, the size of the largest fact
+ * and the solving time. The metrics are exported as JSON, aggregated
+ * per analysis ID and listed per method from the slowest one. If the
+ * facts of the results are interned, the numbers of interned and unique
+ * facts and the dedup ratio are exported per analysis ID as well.
+ * <p>
+ * The metrics of each solving are reported to a {@link Recorder} while
+ * the solver runs: the solver reports its iterations, and the analysis
+ * it solves is wrapped to report its calls and the sizes of the facts
+ * they produce.
+ * <p>
+ * This class is thread-safe, so that the methods analyzed in parallel
+ * can be recorded to the same collector.
+ */
+public class SolverMetrics {
+
+    private static final Logger logger = LogManager.getLogger(SolverMetrics.class);
+
+    /**
+     * Opened collectors, so that analyses using the same file share one.
+     */
+    private static final Map<Path, SolverMetrics> collectors = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    private final Queue<MethodMetrics> records = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, FactInterner.Statistics> internings =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param file the file which the metrics are exported to
+     */
+    public SolverMetrics(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the collector which exports to given file. The collector
+     * is created at the first call, and exports the collected metrics
+     * when the JVM exits.
+     */
+    public static SolverMetrics open(Path file) {
+        return collectors.computeIfAbsent(file.toAbsolutePath().normalize(), f -> {
+            SolverMetrics metrics = new SolverMetrics(f);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    metrics.export();
+                } catch (UncheckedIOException e) {
+                    logger.warn("Failed to export solver metrics", e);
+                }
+            }));
+            return metrics;
+        });
+    }
+
+    /**
+     * Solves given CFG by given solver, and records the metrics of solving.
+     *
+     * @param id          ID of the analysis being solved
+     * @param inFactsOnly see {@link Solver#solve(CFG, boolean)}
+     */
+    public <Node, Fact> NodeResult<Node, Fact> solve(
+            String id, Solver<Node, Fact> solver, CFG<Node> cfg, boolean inFactsOnly) {
+        Recorder recorder = new Recorder();
+        Solver<Node, Fact> metered = solver.copy(
+                new MeteredAnalysis<>(solver.analysis, recorder), recorder);
+        long start = System.nanoTime();
+        NodeResult<Node, Fact> result = metered.solve(cfg, inFactsOnly);
+        record(id, String.valueOf(cfg.getMethod()), cfg.getNumberOfNodes(),
+                recorder, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Records the metrics of solving a method.
+     *
+     * @param id       ID of the analysis
+     * @param method   signature of the method
+     * @param nodes    number of nodes of the CFG
+     * @param recorder the recorder which the solving reported to
+     * @param nanos    solving time in nanoseconds
+     */
+    private void record(String id, String method, int nodes,
+                        Recorder recorder, long nanos) {
+        records.add(new MethodMetrics(id, method, nodes,
+                recorder.getIterations(), recorder.getTransfers(),
+                recorder.getMeets(), recorder.getMaxFactSize(), nanos));
+    }
+
+    /**
+     * Records the facts of a result interned by given interner.
+     *
+     * @param id ID of the analysis
+     */
+    public void recordInterning(String id, FactInterner<?> interner) {
+        internings.computeIfAbsent(id, k -> new FactInterner.Statistics())
+                .record(interner);
+    }
+
+    /**
+     * @return the number of elements of given fact, or 0 if its size
+     * is unknown.
+     */
+    private static int sizeOf(Object fact) {
+        if (fact instanceof SetFact<?> setFact) {
+            return setFact.size();
+        } else if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.keySet().size();
+        } else if (fact instanceof CPFact cpFact) {
+            return cpFact.keySet().size();
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the metrics of the methods recorded so far.
+     */
+    public List<MethodMetrics> getMethodMetrics() {
+        return List.copyOf(records);
+    }
+
+    /**
+     * @return the metrics recorded so far, aggregated per analysis ID.
+     */
+    public Map<String, AnalysisMetrics> getAnalysisMetrics() {
+        Map<String, AnalysisMetrics> result = Maps.newMap();
+        for (MethodMetrics m : records) {
+            result.merge(m.analysis(), new AnalysisMetrics(1, m.iterations(),
+                    m.transfers(), m.meets(), m.maxFactSize(), m.nanos()),
+                    AnalysisMetrics::add);
+        }
+        return result;
+    }
+
+    /**
+     * @return the statistics of interning recorded so far, per analysis ID.
+     */
+    public Map<String, FactInterner.Statistics> getInternStatistics() {
+        return Map.copyOf(internings);
+    }
+
+    /**
+     * Writes the metrics recorded so far to the file of this collector.
+     */
+    public void export() {
+        List<MethodMetrics> methods = new ArrayList<>(records);
+        methods.sort(Comparator.comparingLong(MethodMetrics::nanos).reversed());
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("analyses", getAnalysisMetrics());
+        json.put("methods", methods);
+        if (!internings.isEmpty()) {
+            json.put("interning", getInternStatistics());
+        }
+        try {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValue(file.toFile(), json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export solver metrics to " + file, e);
+        }
+        logger.info("Exported solver metrics of {} methods to {}",
+                methods.size(), file);
+    }
+
+    /**
+     * Metrics of solving a method.
+     *
+     * @param analysis    ID of the analysis
+     * @param method      signature of the method
+     * @param nodes       number of nodes of the CFG
+     * @param iterations  number of nodes visited by the solver
+     * @param transfers   number of node transfers
+     * @param meets       number of meets
+     * @param maxFactSize number of elements of the largest fact
+     * @param nanos       solving time in nanoseconds
+     */
+    public record MethodMetrics(String analysis, String method, int nodes,
+                                long iterations, long transfers, long meets,
+                                int maxFactSize, long nanos) {
+    }
+
+    /**
+     * Metrics of an analysis, summed over the methods it solved,
+     * except that {@code maxFactSize} is the maximum.
+     */
+    public record AnalysisMetrics(int methods, long iterations, long transfers,
+                                  long meets, int maxFactSize, long nanos) {
+
+        private AnalysisMetrics add(AnalysisMetrics other) {
+            return new AnalysisMetrics(methods + other.methods,
+                    iterations + other.iterations, transfers + other.transfers,
+                    meets + other.meets, Math.max(maxFactSize, other.maxFactSize),
+                    nanos + other.nanos);
+        }
+    }
+
+    /**
+     * Recorder of the metrics of a single solving, which may be reported
+     * to by several threads of {@link ParallelSolver}.
+     */
+    public static class Recorder {
+
+        private final LongAdder iterations = new LongAdder();
+
+        private final LongAdder transfers = new LongAdder();
+
+        private final LongAdder meets = new LongAdder();
+
+        private final LongAccumulator maxFactSize = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records that the solver visited given number of nodes.
+         */
+        public void addIterations(int n) {
+            iterations.add(n);
+        }
+
+        /**
+         * Records a call of {@link DataflowAnalysis#transferNode}.
+         */
+        public void addTransfer() {
+            transfers.increment();
+        }
+
+        /**
+         * Records a call of {@link DataflowAnalysis#meetInto}.
+         */
+        public void addMeet() {
+            meets.increment();
+        }
+
+        /**
+         * Records the size of a fact produced during solving.
+         */
+        public void addFactSize(int size) {
+            maxFactSize.accumulate(size);
+        }
+
+        public long getIterations() {
+            return iterations.sum();
+        }
+
+        public long getTransfers() {
+            return transfers.sum();
+        }
+
+        public long getMeets() {
+            return meets.sum();
+        }
+
+        /**
+         * @return the size of the largest fact recorded so far.
+         */
+        public int getMaxFactSize() {
+            return (int) maxFactSize.get();
+        }
+    }
+
+    /**
+     * Analysis which records the transfers and meets of another analysis,
+     * and the sizes of the facts that the transfers produce.
+     */
+    private static class MeteredAnalysis<Node, Fact>
+            implements DataflowAnalysis<Node, Fact> {
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        private final Recorder recorder;
+
+        private MeteredAnalysis(DataflowAnalysis<Node, Fact> analysis, Recorder recorder) {
+            this.analysis = analysis;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Node> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public Fact newInitialFact(CFG<Node> cfg) {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            recorder.addMeet();
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, Fact in, Fact out) {
+            recorder.addTransfer();
+            boolean changed = analysis.transferNode(node, in, out);
+            recorder.addFactSize(Math.max(sizeOf(in), sizeOf(out)));
+            return changed;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
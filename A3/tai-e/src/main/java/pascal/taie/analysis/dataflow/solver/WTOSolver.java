@@ -0,0 +1,189 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * Solver which iterates over the nodes in weak topological order
+ * of the CFG, following the recursive iteration strategy of Bourdoncle:
+ * the elements are visited in order, and each component is stabilized
+ * by repeatedly visiting its head and (recursively) its body until the
+ * fact of the head no longer changes. Thus, inner loops are stabilized
+ * before outer loops are revisited.
+ *
+ * @see WeakTopologicalOrder
+ */
+class WTOSolver<Node, Fact> extends NodeIterativeSolver<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(WTOSolver.class);
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        this(analysis, null);
+    }
+
+    private WTOSolver(DataflowAnalysis<Node, Fact> analysis,
+                      @Nullable SolverMetrics.Recorder recorder) {
+        super(analysis, recorder);
+    }
+
+    @Override
+    Solver<Node, Fact> copy(DataflowAnalysis<Node, Fact> analysis,
+                            @Nullable SolverMetrics.Recorder recorder) {
+        return new WTOSolver<>(analysis, recorder);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolve(cfg, result, true, null);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        doSolve(cfg, result, false, null);
+    }
+
+    @Override
+    protected void doResolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                             Set<Node> affected) {
+        doSolve(cfg, result, analysis.isForward(), affected);
+    }
+
+    /**
+     * @param affected if not null, only the elements which contain
+     *                 these nodes are stabilized.
+     */
+    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                         boolean forward, @Nullable Set<Node> affected) {
+        WeakTopologicalOrder<Node> wto = new WeakTopologicalOrder<>(cfg, forward);
+        Set<WeakTopologicalOrder.Element<Node>> elements = null;
+        if (affected != null) {
+            elements = Sets.newSet();
+            for (WeakTopologicalOrder.Element<Node> element : wto.getElements()) {
+                collectAffectedElements(element, affected, elements);
+            }
+        }
+        Iteration iteration = new Iteration(cfg, result, forward, elements);
+        for (WeakTopologicalOrder.Element<Node> element : wto.getElements()) {
+            iteration.stabilize(element);
+        }
+        countIterations(iteration.visits);
+        logger.debug("{} visited {} nodes of {} ({} nodes)",
+                analysis.getClass().getSimpleName(), iteration.visits,
+                cfg.getMethod(), cfg.getNumberOfNodes());
+    }
+
+    /**
+     * Adds given element and its nested elements which contain
+     * affected nodes to {@code result}.
+     *
+     * @return true if given element contains affected nodes.
+     */
+    private static <Node> boolean collectAffectedElements(
+            WeakTopologicalOrder.Element<Node> element, Set<Node> affected,
+            Set<WeakTopologicalOrder.Element<Node>> result) {
+        boolean isAffected = affected.contains(element.getHead());
+        if (element.isComponent()) {
+            for (WeakTopologicalOrder.Element<Node> e : element.getBody()) {
+                isAffected |= collectAffectedElements(e, affected, result);
+            }
+        }
+        if (isAffected) {
+            result.add(element);
+        }
+        return isAffected;
+    }
+
+    /**
+     * State of iterating over a CFG.
+     */
+    private class Iteration {
+
+        private final CFG<Node> cfg;
+
+        /**
+         * The CFG if it is frozen, otherwise null.
+         */
+        @Nullable
+        private final FrozenCFG frozen;
+
+        private final DataflowResult<Node, Fact> result;
+
+        private final boolean forward;
+
+        /**
+         * Elements to be stabilized, or null if all elements are.
+         * The facts of the other elements are already stable.
+         */
+        @Nullable
+        private final Set<WeakTopologicalOrder.Element<Node>> elements;
+
+        private int visits = 0;
+
+        private Iteration(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                          boolean forward,
+                          @Nullable Set<WeakTopologicalOrder.Element<Node>> elements) {
+            this.cfg = cfg;
+            this.frozen = asFrozen(cfg);
+            this.result = result;
+            this.forward = forward;
+            this.elements = elements;
+        }
+
+        private void stabilize(WeakTopologicalOrder.Element<Node> element) {
+            if (elements != null && !elements.contains(element)) {
+                return;
+            }
+            Node head = element.getHead();
+            visit(head);
+            if (element.isComponent()) {
+                do {
+                    for (WeakTopologicalOrder.Element<Node> e : element.getBody()) {
+                        stabilize(e);
+                    }
+                } while (visit(head));
+            }
+        }
+
+        /**
+         * Meets the facts flowing into given node and applies its transfer.
+         *
+         * @return true if the transfer changed the fact of the node.
+         */
+        private boolean visit(Node node) {
+            ++visits;
+            meetFlowingIn(cfg, frozen, result, node, forward);
+            return analysis.transferNode(node,
+                    result.getInFact(node), result.getOutFact(node));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Weak topological order (WTO) of the nodes of a CFG, as defined in
+ * F. Bourdoncle, "Efficient chaotic iteration strategies with widenings".
+ * <p>
+ * A WTO is a sequence of elements, each of which is either a single node
+ * or a component consisting of a head node followed by a nested WTO of
+ * the rest of the component. Every edge either goes forward in the order
+ * or goes from a node of a component back to the head of that component.
+ * <p>
+ * The WTO is computed by hierarchical decomposition into strongly
+ * connected components: the SCCs of the graph are ordered topologically,
+ * and for each non-trivial SCC, the node first discovered by depth-first
+ * search becomes the head, and the rest of the SCC is decomposed
+ * recursively. The depth of the recursion is bounded by the nesting
+ * depth of loops, and the SCCs are computed without recursion.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class WeakTopologicalOrder<Node> {
+
+    private final Function<Node, Set<Node>> succsOf;
+
+    private final List<Element<Node>> elements;
+
+    /**
+     * Computes the WTO of given CFG for forward (backward) iteration,
+     * i.e., along the successors (predecessors) from the entry (exit) node.
+     * Nodes that are unreachable from the entry (exit) are also included.
+     */
+    WeakTopologicalOrder(CFG<Node> cfg, boolean forward) {
+        succsOf = forward ? cfg::getSuccsOf : cfg::getPredsOf;
+        List<Node> roots = new ArrayList<>(cfg.getNumberOfNodes());
+        roots.add(forward ? cfg.getEntry() : cfg.getExit());
+        cfg.forEach(roots::add);
+        elements = decompose(cfg.getNodes(), roots);
+    }
+
+    /**
+     * @return the top-level elements of this WTO.
+     */
+    List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    /**
+     * Decomposes the subgraph induced by given nodes into a WTO.
+     * Depth-first search is started from the roots in the given order.
+     */
+    private List<Element<Node>> decompose(Set<Node> scope, List<Node> roots) {
+        List<List<Node>> sccs = computeSCCs(scope, roots);
+        // Tarjan's algorithm yields SCCs in reverse topological order
+        Collections.reverse(sccs);
+        List<Element<Node>> result = new ArrayList<>(sccs.size());
+        for (List<Node> scc : sccs) {
+            // the first node of each SCC is the first one discovered
+            Node head = scc.get(0);
+            if (scc.size() == 1 && !succsOf.apply(head).contains(head)) {
+                result.add(new Element<>(head, null));
+            } else {
+                Set<Node> rest = Sets.newSet(scc.size());
+                rest.addAll(scc.subList(1, scc.size()));
+                List<Node> restRoots = new ArrayList<>();
+                for (Node succ : succsOf.apply(head)) {
+                    if (rest.contains(succ)) {
+                        restRoots.add(succ);
+                    }
+                }
+                result.add(new Element<>(head, decompose(rest, restRoots)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes SCCs of the subgraph induced by scope by iterative
+     * Tarjan's algorithm. In each resulting SCC, the first node
+     * is the one discovered first by the search.
+     */
+    private List<List<Node>> computeSCCs(Set<Node> scope, List<Node> roots) {
+        List<List<Node>> sccs = new ArrayList<>();
+        Map<Node, Integer> indexes = Maps.newMap(scope.size());
+        Map<Node, Integer> lowLinks = Maps.newMap(scope.size());
+        Deque<Node> stack = new ArrayDeque<>();
+        Set<Node> onStack = Sets.newSet(scope.size());
+        Deque<Node> callStack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succIters = new ArrayDeque<>();
+        for (Node root : roots) {
+            if (indexes.containsKey(root) || !scope.contains(root)) {
+                continue;
+            }
+            indexes.put(root, indexes.size());
+            lowLinks.put(root, indexes.get(root));
+            stack.push(root);
+            onStack.add(root);
+            callStack.push(root);
+            succIters.push(succsOf.apply(root).iterator());
+            while (!callStack.isEmpty()) {
+                Node node = callStack.peek();
+                Iterator<Node> succs = succIters.peek();
+                if (succs.hasNext()) {
+                    Node succ = succs.next();
+                    if (!scope.contains(succ)) {
+                        continue;
+                    }
+                    if (!indexes.containsKey(succ)) {
+                        indexes.put(succ, indexes.size());
+                        lowLinks.put(succ, indexes.get(succ));
+                        stack.push(succ);
+                        onStack.add(succ);
+                        callStack.push(succ);
+                        succIters.push(succsOf.apply(succ).iterator());
+                    } else if (onStack.contains(succ)) {
+                        lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(succ)));
+                    }
+                } else {
+                    callStack.pop();
+                    succIters.pop();
+                    int lowLink = lowLinks.get(node);
+                    if (lowLink == indexes.get(node)) {
+                        List<Node> scc = new ArrayList<>();
+                        Node member;
+                        do {
+                            member = stack.pop();
+                            onStack.remove(member);
+                            scc.add(member);
+                        } while (!member.equals(node));
+                        // nodes are popped in reverse order of discovery
+                        Collections.reverse(scc);
+                        sccs.add(scc);
+                    }
+                    if (!callStack.isEmpty()) {
+                        Node caller = callStack.peek();
+                        lowLinks.put(caller, Math.min(lowLinks.get(caller), lowLink));
+                    }
+                }
+            }
+        }
+        return sccs;
+    }
+
+    /**
+     * An element of WTO, which is either a single node,
+     * or a component with a head node and a nested WTO.
+     */
+    static class Element<Node> {
+
+        private final Node head;
+
+        private final List<Element<Node>> body;
+
+        private Element(Node head, List<Element<Node>> body) {
+            this.head = head;
+            this.body = body;
+        }
+
+        /**
+         * @return the node if this element is a single node,
+         * otherwise the head of the component.
+         */
+        Node getHead() {
+            return head;
+        }
+
+        /**
+         * @return true if this element is a component, otherwise false.
+         */
+        boolean isComponent() {
+            return body != null;
+        }
+
+        /**
+         * @return the elements of this component except the head.
+         */
+        List<Element<Node>> getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return isComponent() ? "(" + head + " " + body + ")" : head.toString();
+        }
+    }
+}
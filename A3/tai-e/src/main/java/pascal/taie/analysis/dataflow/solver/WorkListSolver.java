@@ -22,60 +22,147 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
 
-import java.util.LinkedList;
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Queue;
+import java.util.Set;
 
-class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+class WorkListSolver<Node, Fact> extends NodeIterativeSolver<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(WorkListSolver.class);
+
+    /**
+     * Whether the work-list polls nodes in reverse postorder
+     * instead of first-in-first-out order.
+     */
+    private final boolean reversePostOrder;
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
-        super(analysis);
+        this(analysis, false);
+    }
+
+    WorkListSolver(DataflowAnalysis<Node, Fact> analysis, boolean reversePostOrder) {
+        this(analysis, reversePostOrder, null);
+    }
+
+    private WorkListSolver(DataflowAnalysis<Node, Fact> analysis, boolean reversePostOrder,
+                           @Nullable SolverMetrics.Recorder recorder) {
+        super(analysis, recorder);
+        this.reversePostOrder = reversePostOrder;
+    }
+
+    @Override
+    Solver<Node, Fact> copy(DataflowAnalysis<Node, Fact> analysis,
+                            @Nullable SolverMetrics.Recorder recorder) {
+        return new WorkListSolver<>(analysis, reversePostOrder, recorder);
     }
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        Queue<Node> worklist = new LinkedList<>();
-        for (Node node : cfg) {
-            worklist.add(node);
+        iterateForward(cfg, result, newWorkList(cfg, true, null));
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        iterateBackward(cfg, result, newWorkList(cfg, false, null));
+    }
+
+    @Override
+    protected void doResolve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                             Set<Node> affected) {
+        if (analysis.isForward()) {
+            iterateForward(cfg, result, newWorkList(cfg, true, affected));
+        } else {
+            iterateBackward(cfg, result, newWorkList(cfg, false, affected));
         }
+    }
+
+    private void iterateForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                Queue<Node> worklist) {
+        FrozenCFG frozen = asFrozen(cfg);
+        int iterations = 0;
 
         while (!worklist.isEmpty()) {
             Node node = worklist.poll();
+            ++iterations;
 
-            for (Node pre : cfg.getPredsOf(node)) {
-                analysis.meetInto(result.getOutFact(pre), result.getInFact(node));
-            }
-
+            meetFlowingIn(cfg, frozen, result, node, true);
             if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                for (Node succ : cfg.getSuccsOf(node))
-                    if (!worklist.contains(succ))
-                        worklist.add(succ);
+                if (frozen != null) {
+                    int i = ((Stmt) node).getIndex();
+                    for (int k = frozen.getSuccBegin(i); k < frozen.getSuccEnd(i); ++k) {
+                        worklist.add(getNode(frozen, frozen.getSucc(k)));
+                    }
+                } else {
+                    worklist.addAll(cfg.getSuccsOf(node));
+                }
             }
         }
+        logIterations(cfg, iterations);
     }
 
-    @Override
-    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        Queue<Node> worklist = new LinkedList<>();
-        for (Node node : cfg) {
-            worklist.add(node);
-        }
+    private void iterateBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                 Queue<Node> worklist) {
+        FrozenCFG frozen = asFrozen(cfg);
+        int iterations = 0;
 
         while (!worklist.isEmpty()) {
             Node node = worklist.poll();
+            ++iterations;
 
-            for (Node succ : cfg.getSuccsOf(node)) {
-                analysis.meetInto(result.getInFact(succ), result.getOutFact(node));
+            meetFlowingIn(cfg, frozen, result, node, false);
+            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
+                if (frozen != null) {
+                    int i = ((Stmt) node).getIndex();
+                    for (int k = frozen.getPredBegin(i); k < frozen.getPredEnd(i); ++k) {
+                        worklist.add(getNode(frozen, frozen.getPred(k)));
+                    }
+                } else {
+                    worklist.addAll(cfg.getPredsOf(node));
+                }
             }
+        }
+        logIterations(cfg, iterations);
+    }
 
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
-                for (Node pre : cfg.getPredsOf(node))
-                    if (!worklist.contains(pre))
-                        worklist.add(pre);
+    /**
+     * @return a work-list which initially contains given nodes, or all
+     * nodes of the CFG if {@code nodes} is null. Adding a node which is
+     * already in the work-list has no effect.
+     */
+    private Queue<Node> newWorkList(CFG<Node> cfg, boolean forward,
+                                    @Nullable Collection<Node> nodes) {
+        if (reversePostOrder) {
+            ReversePostOrderQueue<Node> worklist =
+                    new ReversePostOrderQueue<>(cfg, forward);
+            if (nodes == null) {
+                worklist.addAllNodes();
+            } else {
+                worklist.addAll(nodes);
             }
+            return worklist;
+        } else {
+            Queue<Node> worklist = new SetQueue<>();
+            for (Node node : nodes != null ? nodes : cfg) {
+                worklist.add(node);
+            }
+            return worklist;
         }
     }
+
+    private void logIterations(CFG<Node> cfg, int iterations) {
+        countIterations(iterations);
+        logger.debug("{} visited {} nodes of {} ({} nodes)",
+                analysis.getClass().getSimpleName(), iterations,
+                cfg.getMethod(), cfg.getNumberOfNodes());
+    }
 }
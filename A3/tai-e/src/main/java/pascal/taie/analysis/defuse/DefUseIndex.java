@@ -0,0 +1,236 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index of the definitions and uses of the variables of an IR.
+ * <p>
+ * The index is built once per IR by a single scan of its statements, and
+ * is stored in the IR (see {@link #of(IR)}). The statements which define
+ * (use) each variable are kept as the indexes of the statements in a
+ * compressed row: {@code defs[defStart[v] .. defStart[v + 1])} are the
+ * definitions of the variable whose index is {@code v}, in the order of
+ * the statements, and so are the uses.
+ * <p>
+ * The reaching definitions of a use are computed on demand by walking
+ * the CFG backwards from the use, which suits sparse clients that ask
+ * for the definitions of a few uses only.
+ */
+public class DefUseIndex {
+
+    /**
+     * Key of the index stored in {@link IR}.
+     */
+    public static final String ID = "def-use-index";
+
+    private final IR ir;
+
+    /**
+     * The index of the variable defined by each statement, or -1 if the
+     * statement defines no variable.
+     */
+    private final int[] defVarOf;
+
+    private final int[] defStart;
+
+    private final int[] defs;
+
+    private final int[] useStart;
+
+    private final int[] uses;
+
+    private DefUseIndex(IR ir) {
+        this.ir = ir;
+        List<Stmt> stmts = ir.getStmts();
+        int nVars = ir.getVars().size();
+        defVarOf = new int[stmts.size()];
+        Arrays.fill(defVarOf, -1);
+        // the variables used by each statement, without duplicates
+        int[][] usesOf = new int[stmts.size()][];
+        defStart = new int[nVars + 1];
+        useStart = new int[nVars + 1];
+        for (Stmt stmt : stmts) {
+            int i = stmt.getIndex();
+            LValue def = stmt.getDef().orElse(null);
+            if (def instanceof Var var) {
+                defVarOf[i] = var.getIndex();
+                ++defStart[var.getIndex() + 1];
+            }
+            usesOf[i] = stmt.getUses()
+                    .stream()
+                    .filter(use -> use instanceof Var)
+                    .mapToInt(use -> ((Var) use).getIndex())
+                    .distinct()
+                    .toArray();
+            for (int var : usesOf[i]) {
+                ++useStart[var + 1];
+            }
+        }
+        for (int v = 0; v < nVars; ++v) {
+            defStart[v + 1] += defStart[v];
+            useStart[v + 1] += useStart[v];
+        }
+        defs = new int[defStart[nVars]];
+        uses = new int[useStart[nVars]];
+        int[] nextDef = Arrays.copyOf(defStart, nVars);
+        int[] nextUse = Arrays.copyOf(useStart, nVars);
+        for (int i = 0; i < stmts.size(); ++i) {
+            if (defVarOf[i] >= 0) {
+                defs[nextDef[defVarOf[i]]++] = i;
+            }
+            for (int var : usesOf[i]) {
+                uses[nextUse[var]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return the def-use index of given IR. The index is built
+     * at the first call and stored in the IR.
+     */
+    public static DefUseIndex of(IR ir) {
+        return ir.getResult(ID, () -> new DefUseIndex(ir));
+    }
+
+    /**
+     * @return the statements which define given variable,
+     * in the order of the statements.
+     */
+    public List<Stmt> defsOf(Var var) {
+        return new StmtList(defs, defStart[var.getIndex()],
+                defStart[var.getIndex() + 1]);
+    }
+
+    /**
+     * @return the statements which use given variable,
+     * in the order of the statements.
+     */
+    public List<Stmt> usesOf(Var var) {
+        return new StmtList(uses, useStart[var.getIndex()],
+                useStart[var.getIndex() + 1]);
+    }
+
+    /**
+     * @return the number of the statements which define given variable.
+     */
+    public int getDefCount(Var var) {
+        return defStart[var.getIndex() + 1] - defStart[var.getIndex()];
+    }
+
+    /**
+     * @return the number of the statements which use given variable.
+     */
+    public int getUseCount(Var var) {
+        return useStart[var.getIndex() + 1] - useStart[var.getIndex()];
+    }
+
+    /**
+     * @return true if given statement defines given variable.
+     */
+    public boolean defines(Stmt stmt, Var var) {
+        int i = stmt.getIndex();
+        return i < defVarOf.length && defVarOf[i] == var.getIndex();
+    }
+
+    /**
+     * Computes the definitions of given variable which may reach given
+     * statement, i.e., the definitions from which there is a path in the
+     * CFG to the statement without other definitions of the variable.
+     * Parameters have no defining statements, thus their values flowing
+     * from the entry of the method are not included.
+     * <p>
+     * The CFG of the IR must have been built by {@link CFGBuilder}.
+     *
+     * @return the reaching definitions in the order of the statements.
+     */
+    public Set<Stmt> reachingDefsOf(Stmt stmt, Var var) {
+        Set<Stmt> result = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        if (getDefCount(var) == 0) {
+            return result;
+        }
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        BitSet visited = new BitSet();
+        Deque<Stmt> stack = new ArrayDeque<>();
+        stack.push(stmt);
+        while (!stack.isEmpty()) {
+            for (Stmt pred : cfg.getPredsOf(stack.pop())) {
+                if (defines(pred, var)) {
+                    result.add(pred);
+                } else if (!visited.get(pred.getIndex())) {
+                    visited.set(pred.getIndex());
+                    stack.push(pred);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unmodifiable view of a range of statement indexes as statements.
+     */
+    private class StmtList extends AbstractList<Stmt> {
+
+        private final int[] indexes;
+
+        private final int from;
+
+        private final int to;
+
+        private StmtList(int[] indexes, int from, int to) {
+            this.indexes = indexes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Stmt get(int i) {
+            if (i < 0 || i >= to - from) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return ir.getStmt(indexes[from + i]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Answers liveness queries of single variables without solving live
+ * variable analysis for all variables.
+ * <p>
+ * The first query of a variable walks the CFG backwards from the uses of
+ * the variable (given by {@link DefUseIndex}) until its definitions, and
+ * records the statements after which the variable is live in a bit set,
+ * which answers the later queries of the variable. Thus, the cost of
+ * the queries is proportional to the live ranges of the queried
+ * variables, and the answers are the same as the ones of
+ * {@link pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis}.
+ * <p>
+ * The CFG of the IR must have been built by {@link CFGBuilder}.
+ */
+public class LivenessQuery {
+
+    /**
+     * Key of the query engine stored in {@link IR}.
+     */
+    public static final String ID = "liveness-query";
+
+    private final CFG<Stmt> cfg;
+
+    private final DefUseIndex defUse;
+
+    /**
+     * The indexes of the statements after which each variable is live,
+     * or null if the variable has not been queried.
+     */
+    private final BitSet[] liveOut;
+
+    private LivenessQuery(IR ir) {
+        cfg = ir.getResult(CFGBuilder.ID);
+        defUse = DefUseIndex.of(ir);
+        liveOut = new BitSet[ir.getVars().size()];
+    }
+
+    /**
+     * @return the liveness query engine of given IR. The engine is created
+     * at the first call and stored in the IR, so that the computed live
+     * ranges are shared by its clients.
+     */
+    public static LivenessQuery of(IR ir) {
+        return ir.getResult(ID, () -> new LivenessQuery(ir));
+    }
+
+    /**
+     * @return true if given variable may be used after given statement
+     * before it is redefined, i.e., it is in the OUT fact of the statement
+     * in live variable analysis.
+     */
+    public boolean isLiveOut(Stmt stmt, Var var) {
+        return getLiveOut(var).get(stmt.getIndex());
+    }
+
+    private BitSet getLiveOut(Var var) {
+        BitSet live = liveOut[var.getIndex()];
+        if (live == null) {
+            live = computeLiveOut(var);
+            liveOut[var.getIndex()] = live;
+        }
+        return live;
+    }
+
+    /**
+     * Walks the CFG backwards from the uses of given variable. The variable
+     * is live after each predecessor of a statement where it is live on
+     * entry, and it is live on entry to the predecessor unless the
+     * predecessor defines it.
+     */
+    private BitSet computeLiveOut(Var var) {
+        BitSet live = new BitSet();
+        // statements where the variable is live on entry
+        BitSet liveIn = new BitSet();
+        Deque<Stmt> stack = new ArrayDeque<>();
+        for (Stmt use : defUse.usesOf(var)) {
+            liveIn.set(use.getIndex());
+            stack.push(use);
+        }
+        while (!stack.isEmpty()) {
+            for (Stmt pred : cfg.getPredsOf(stack.pop())) {
+                live.set(pred.getIndex());
+                if (!defUse.defines(pred, var) && !liveIn.get(pred.getIndex())) {
+                    liveIn.set(pred.getIndex());
+                    stack.push(pred);
+                }
+            }
+        }
+        return live;
+    }
+}
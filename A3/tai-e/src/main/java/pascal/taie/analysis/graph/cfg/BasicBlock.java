@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.Indexable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A maximal sequence of CFG nodes where control enters at the first node
+ * and leaves at the last node, i.e., each node except the first has
+ * exactly one predecessor, which is the previous node, and each node
+ * except the last has exactly one successor, which is the next node.
+ *
+ * @param <N> type of CFG nodes
+ * @see BlockCFG
+ */
+public class BasicBlock<N> implements Indexable {
+
+    private final int index;
+
+    private final List<N> nodes;
+
+    BasicBlock(int index, List<N> nodes) {
+        this.index = index;
+        this.nodes = Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * @return index of this block in its {@link BlockCFG}.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the nodes of this block in execution order.
+     */
+    public List<N> getNodes() {
+        return nodes;
+    }
+
+    public N getFirst() {
+        return nodes.get(0);
+    }
+
+    public N getLast() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public String toString() {
+        return "B" + index + nodes;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Condensation of a CFG into {@link BasicBlock}s. The entry and the exit
+ * of the CFG are in blocks of their own, which are the entry and the exit
+ * of this CFG. Each edge between two blocks corresponds to an edge from
+ * the last node of the source block to the first node of the target
+ * block, and has the same kind as that edge.
+ * <p>
+ * The predecessors and successors of the blocks are computed once on
+ * construction, through the index-based adjacency of the condensed CFG
+ * if it is a {@link FrozenCFG}.
+ *
+ * @param <N> type of nodes of the condensed CFG
+ */
+public class BlockCFG<N> implements CFG<BasicBlock<N>> {
+
+    private final CFG<N> cfg;
+
+    /**
+     * The condensed CFG if it is frozen, otherwise null.
+     */
+    @Nullable
+    private final FrozenCFG frozen;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Set<BasicBlock<N>> nodes = Sets.newHybridOrderedSet();
+
+    private final Map<N, BasicBlock<N>> blockOf;
+
+    /**
+     * Position of each node in its block.
+     */
+    private final Map<N, Integer> positions;
+
+    /**
+     * Predecessors of each block, indexed by the block indexes.
+     */
+    private final List<Set<BasicBlock<N>>> preds = new ArrayList<>();
+
+    /**
+     * Successors of each block, indexed by the block indexes.
+     */
+    private final List<Set<BasicBlock<N>>> succs = new ArrayList<>();
+
+    public BlockCFG(CFG<N> cfg) {
+        this.cfg = cfg;
+        this.frozen = cfg instanceof FrozenCFG f ? f : null;
+        blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        positions = Maps.newMap(cfg.getNumberOfNodes());
+        for (N node : cfg) {
+            if (isLeader(node)) {
+                addBlock(node);
+            }
+        }
+        // nodes on cycles that are entered from nowhere
+        // (e.g., an unreachable infinite loop) have no leaders
+        for (N node : cfg) {
+            if (!blockOf.containsKey(node)) {
+                addBlock(node);
+            }
+        }
+        nodes.addAll(blocks);
+        for (BasicBlock<N> block : blocks) {
+            Set<BasicBlock<N>> blockPreds = Sets.newHybridSet();
+            forEachNeighbor(block.getFirst(), false,
+                    pred -> blockPreds.add(blockOf.get(pred)));
+            preds.add(Collections.unmodifiableSet(blockPreds));
+            Set<BasicBlock<N>> blockSuccs = Sets.newHybridSet();
+            forEachNeighbor(block.getLast(), true,
+                    succ -> blockSuccs.add(blockOf.get(succ)));
+            succs.add(Collections.unmodifiableSet(blockSuccs));
+        }
+    }
+
+    /**
+     * Applies given action to the successors (if {@code succs} is true)
+     * or the predecessors of given node in the condensed CFG.
+     */
+    @SuppressWarnings("unchecked")
+    private void forEachNeighbor(N node, boolean succs, Consumer<N> action) {
+        if (frozen != null) {
+            int i = ((Stmt) node).getIndex();
+            int begin = succs ? frozen.getSuccBegin(i) : frozen.getPredBegin(i);
+            int end = succs ? frozen.getSuccEnd(i) : frozen.getPredEnd(i);
+            for (int k = begin; k < end; ++k) {
+                action.accept((N) frozen.getNode(
+                        succs ? frozen.getSucc(k) : frozen.getPred(k)));
+            }
+        } else {
+            (succs ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)).forEach(action);
+        }
+    }
+
+    /**
+     * @return the only successor (if {@code succ} is true) or the only
+     * predecessor of given node, which must have exactly one.
+     */
+    @SuppressWarnings("unchecked")
+    private N getOnlyNeighbor(N node, boolean succ) {
+        if (frozen != null) {
+            int i = ((Stmt) node).getIndex();
+            return (N) frozen.getNode(succ ?
+                    frozen.getSucc(frozen.getSuccBegin(i)) :
+                    frozen.getPred(frozen.getPredBegin(i)));
+        }
+        return (succ ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)).iterator().next();
+    }
+
+    /**
+     * @return true if given node must be the first node of a block.
+     */
+    private boolean isLeader(N node) {
+        if (cfg.isEntry(node) || cfg.isExit(node) ||
+                cfg.getInDegreeOf(node) != 1) {
+            return true;
+        }
+        N pred = getOnlyNeighbor(node, false);
+        return pred.equals(node) || cfg.isEntry(pred) ||
+                cfg.getOutDegreeOf(pred) != 1;
+    }
+
+    private void addBlock(N leader) {
+        List<N> blockNodes = new ArrayList<>();
+        N node = leader;
+        while (true) {
+            blockNodes.add(node);
+            if (cfg.isEntry(node) || cfg.getOutDegreeOf(node) != 1) {
+                break;
+            }
+            N succ = getOnlyNeighbor(node, true);
+            if (isLeader(succ) || blockOf.containsKey(succ) || succ.equals(leader)) {
+                break;
+            }
+            node = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), blockNodes);
+        blocks.add(block);
+        for (int i = 0; i < blockNodes.size(); ++i) {
+            blockOf.put(blockNodes.get(i), block);
+            positions.put(blockNodes.get(i), i);
+        }
+    }
+
+    /**
+     * @return the CFG condensed by this CFG.
+     */
+    public CFG<N> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the block that contains given node.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the position of given node in the block that contains it.
+     */
+    public int getPositionInBlock(N node) {
+        return positions.get(node);
+    }
+
+    @Override
+    public IR getIR() {
+        return cfg.getIR();
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return cfg.getMethod();
+    }
+
+    @Override
+    public BasicBlock<N> getEntry() {
+        return blockOf.get(cfg.getEntry());
+    }
+
+    @Override
+    public BasicBlock<N> getExit() {
+        return blockOf.get(cfg.getExit());
+    }
+
+    @Override
+    public boolean isEntry(BasicBlock<N> block) {
+        return block == getEntry();
+    }
+
+    @Override
+    public boolean isExit(BasicBlock<N> block) {
+        return block == getExit();
+    }
+
+    @Override
+    public Set<Edge<BasicBlock<N>>> getInEdgesOf(BasicBlock<N> block) {
+        Set<Edge<BasicBlock<N>>> edges = Sets.newHybridSet();
+        for (Edge<N> edge : cfg.getInEdgesOf(block.getFirst())) {
+            edges.add(new Edge<>(edge.getKind(),
+                    blockOf.get(edge.getSource()), block));
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public Set<Edge<BasicBlock<N>>> getOutEdgesOf(BasicBlock<N> block) {
+        Set<Edge<BasicBlock<N>>> edges = Sets.newHybridSet();
+        for (Edge<N> edge : cfg.getOutEdgesOf(block.getLast())) {
+            edges.add(new Edge<>(edge.getKind(),
+                    block, blockOf.get(edge.getTarget())));
+        }
+        return Collections.unmodifiableSet(edges);
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock<N> block) {
+        return block.getIndex() < blocks.size() &&
+                blocks.get(block.getIndex()) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock<N> source, BasicBlock<N> target) {
+        return cfg.hasEdge(source.getLast(), target.getFirst());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getPredsOf(BasicBlock<N> block) {
+        return preds.get(block.getIndex());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getSuccsOf(BasicBlock<N> block) {
+        return succs.get(block.getIndex());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Dominator tree of a CFG, computed by the algorithm of Lengauer and
+ * Tarjan. A node {@code a} dominates a node {@code b} if every path from
+ * the entry to {@code b} goes through {@code a}; dually, {@code a}
+ * post-dominates {@code b} if every path from {@code b} to the exit goes
+ * through {@code a}, and the post-dominator tree is the dominator tree
+ * of the reverse CFG rooted at the exit.
+ * <p>
+ * The nodes of the tree are numbered by the entering and leaving times
+ * of a depth-first traversal of the tree, so that dominance queries are
+ * answered in constant time by checking whether the interval of one node
+ * encloses the interval of the other. The nodes that are unreachable from
+ * the root (for post-dominators, the nodes that cannot reach the exit,
+ * e.g., in infinite loops) are not in the tree.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class Dominators<N> {
+
+    /**
+     * Key of the dominator tree stored in {@link IR}.
+     */
+    private static final String ID = "dominators";
+
+    /**
+     * Key of the post-dominator tree stored in {@link IR}.
+     */
+    private static final String POST_ID = "post-dominators";
+
+    /**
+     * Number of each node reachable from the root in depth-first preorder
+     * of the CFG, which is the index of the node in {@link #nodes}.
+     */
+    private final Map<N, Integer> numbers;
+
+    private final List<N> nodes;
+
+    /**
+     * Number of the immediate dominator of each node, or -1 for the root.
+     */
+    private final int[] idom;
+
+    /**
+     * Entering and leaving times of the nodes in the dominator tree.
+     */
+    private final int[] enter, leave;
+
+    private Dominators(CFG<N> cfg, boolean post) {
+        N root = post ? cfg.getExit() : cfg.getEntry();
+        numbers = Maps.newMap(cfg.getNumberOfNodes());
+        nodes = new ArrayList<>(cfg.getNumberOfNodes());
+        int[] parent = numberNodes(cfg, root, post);
+        idom = computeIDoms(cfg, parent, post);
+        enter = new int[nodes.size()];
+        leave = new int[nodes.size()];
+        numberTree();
+    }
+
+    /**
+     * @return the dominator tree of given CFG. If the CFG is the one
+     * stored in its IR, or the frozen form of that, the tree is computed
+     * at the first call and also stored in the IR.
+     */
+    public static <N> Dominators<N> of(CFG<N> cfg) {
+        return getResult(cfg, ID, () -> new Dominators<>(cfg, false));
+    }
+
+    /**
+     * @return the post-dominator tree of given CFG, which is stored
+     * in the IR as the one of {@link #of(CFG)}.
+     */
+    public static <N> Dominators<N> postOf(CFG<N> cfg) {
+        return getResult(cfg, POST_ID, () -> new Dominators<>(cfg, true));
+    }
+
+    /**
+     * @return the result on given CFG computed by {@code supplier}. If the
+     * CFG is the one stored in its IR, or the frozen form of that, the
+     * result is computed at the first call and stored in the IR by given
+     * key; otherwise, it is computed at each call.
+     */
+    static <R> R getResult(CFG<?> cfg, String key, Supplier<R> supplier) {
+        IR ir = cfg.getIR();
+        if (ir.getResult(CFGBuilder.ID) == cfg) {
+            return ir.getResult(key, supplier);
+        } else if (ir.getResult(FrozenCFG.ID) == cfg) {
+            return ir.getResult(FrozenCFG.ID + "/" + key, supplier);
+        }
+        return supplier.get();
+    }
+
+    /**
+     * Numbers the nodes reachable from the root in depth-first preorder.
+     *
+     * @return the number of the parent of each node in the depth-first
+     * spanning tree, or -1 for the root.
+     */
+    private int[] numberNodes(CFG<N> cfg, N root, boolean post) {
+        List<Integer> parents = new ArrayList<>();
+        Deque<Iterator<N>> stack = new ArrayDeque<>();
+        numbers.put(root, 0);
+        nodes.add(root);
+        parents.add(-1);
+        stack.push(getSuccsOf(cfg, root, post).iterator());
+        Deque<Integer> stackNumbers = new ArrayDeque<>();
+        stackNumbers.push(0);
+        while (!stack.isEmpty()) {
+            Iterator<N> succs = stack.peek();
+            if (succs.hasNext()) {
+                N succ = succs.next();
+                if (!numbers.containsKey(succ)) {
+                    int number = nodes.size();
+                    numbers.put(succ, number);
+                    nodes.add(succ);
+                    parents.add(stackNumbers.peek());
+                    stack.push(getSuccsOf(cfg, succ, post).iterator());
+                    stackNumbers.push(number);
+                }
+            } else {
+                stack.pop();
+                stackNumbers.pop();
+            }
+        }
+        return parents.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static <N> Set<N> getSuccsOf(CFG<N> cfg, N node, boolean post) {
+        return post ? cfg.getPredsOf(node) : cfg.getSuccsOf(node);
+    }
+
+    private static <N> Set<N> getPredsOf(CFG<N> cfg, N node, boolean post) {
+        return post ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+    }
+
+    /**
+     * Computes the immediate dominators by the simple version of the
+     * algorithm of Lengauer and Tarjan, i.e., with path compression
+     * but without balanced linking.
+     */
+    private int[] computeIDoms(CFG<N> cfg, int[] parent, boolean post) {
+        int n = nodes.size();
+        int[] semi = new int[n];
+        int[] label = new int[n];
+        int[] ancestor = new int[n];
+        int[] dom = new int[n];
+        for (int v = 0; v < n; ++v) {
+            semi[v] = v;
+            label[v] = v;
+        }
+        Arrays.fill(ancestor, -1);
+        // bucket[v] holds the nodes whose semi-dominator is v,
+        // as linked lists through next[]
+        int[] bucket = new int[n];
+        int[] next = new int[n];
+        Arrays.fill(bucket, -1);
+        for (int w = n - 1; w > 0; --w) {
+            for (N pred : getPredsOf(cfg, nodes.get(w), post)) {
+                Integer v = numbers.get(pred);
+                if (v != null) {
+                    int u = eval(v, ancestor, label, semi);
+                    if (semi[u] < semi[w]) {
+                        semi[w] = semi[u];
+                    }
+                }
+            }
+            next[w] = bucket[semi[w]];
+            bucket[semi[w]] = w;
+            int p = parent[w];
+            ancestor[w] = p;
+            for (int v = bucket[p]; v != -1; v = next[v]) {
+                int u = eval(v, ancestor, label, semi);
+                dom[v] = semi[u] < semi[v] ? u : p;
+            }
+            bucket[p] = -1;
+        }
+        dom[0] = -1;
+        for (int w = 1; w < n; ++w) {
+            if (dom[w] != semi[w]) {
+                dom[w] = dom[dom[w]];
+            }
+        }
+        return dom;
+    }
+
+    /**
+     * @return the node with the minimum semi-dominator on the path from
+     * {@code v} (exclusive of the root of its tree in the forest) to the
+     * root of its tree, compressing the path.
+     */
+    private static int eval(int v, int[] ancestor, int[] label, int[] semi) {
+        if (ancestor[v] == -1) {
+            return v;
+        }
+        // compress the path from v iteratively, from the top down
+        Deque<Integer> path = new ArrayDeque<>();
+        for (int x = v; ancestor[ancestor[x]] != -1; x = ancestor[x]) {
+            path.push(x);
+        }
+        while (!path.isEmpty()) {
+            int x = path.pop();
+            int a = ancestor[x];
+            if (semi[label[a]] < semi[label[x]]) {
+                label[x] = label[a];
+            }
+            ancestor[x] = ancestor[a];
+        }
+        return label[v];
+    }
+
+    /**
+     * Numbers the nodes by the entering and leaving times of
+     * a depth-first traversal of the dominator tree.
+     */
+    private void numberTree() {
+        int n = nodes.size();
+        // children of each node in the tree, as linked lists
+        int[] firstChild = new int[n];
+        int[] nextSibling = new int[n];
+        Arrays.fill(firstChild, -1);
+        for (int v = n - 1; v > 0; --v) {
+            nextSibling[v] = firstChild[idom[v]];
+            firstChild[idom[v]] = v;
+        }
+        int time = 0;
+        int[] child = new int[n];
+        Deque<Integer> stack = new ArrayDeque<>();
+        if (n > 0) {
+            enter[0] = time++;
+            child[0] = firstChild[0];
+            stack.push(0);
+        }
+        while (!stack.isEmpty()) {
+            int v = stack.peek();
+            int c = child[v];
+            if (c != -1) {
+                child[v] = nextSibling[c];
+                enter[c] = time++;
+                child[c] = firstChild[c];
+                stack.push(c);
+            } else {
+                leave[v] = time++;
+                stack.pop();
+            }
+        }
+    }
+
+    /**
+     * @return the root of this tree, i.e., the entry of the CFG
+     * for dominators, or the exit of the CFG for post-dominators.
+     */
+    public N getRoot() {
+        return nodes.get(0);
+    }
+
+    /**
+     * @return true if given node is in this tree, i.e., it is reachable
+     * from the root.
+     */
+    public boolean contains(N node) {
+        return numbers.containsKey(node);
+    }
+
+    /**
+     * @return the immediate dominator of given node, or null if the node
+     * is the root or is not in this tree.
+     */
+    @Nullable
+    public N getIDom(N node) {
+        Integer v = numbers.get(node);
+        return v == null || idom[v] == -1 ? null : nodes.get(idom[v]);
+    }
+
+    /**
+     * @return true if {@code a} dominates {@code b}. Every node in
+     * this tree dominates itself.
+     */
+    public boolean dominates(N a, N b) {
+        Integer va = numbers.get(a);
+        Integer vb = numbers.get(b);
+        return va != null && vb != null &&
+                enter[va] <= enter[vb] && leave[vb] <= leave[va];
+    }
+
+    /**
+     * @return true if {@code a} dominates {@code b} and they are different.
+     */
+    public boolean strictlyDominates(N a, N b) {
+        return !a.equals(b) && dominates(a, b);
+    }
+
+    /**
+     * @return the nodes in this tree in depth-first preorder of the CFG.
+     */
+    public List<N> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable CFG of statements in compressed sparse row (CSR) form. The
+ * nodes are identified by their indexes ({@link Stmt#getIndex()}), and
+ * the successors, the predecessors and the edges of each node are stored
+ * as consecutive ranges of int arrays, e.g., the successors of node
+ * {@code i} are {@code getSucc(k)} for {@code getSuccBegin(i) <= k <
+ * getSuccEnd(i)}. The kinds and the case values of the out edges are
+ * kept in parallel primitive arrays.
+ * <p>
+ * Iterating over the successors and predecessors through these ranges
+ * allocates nothing, which suits the hot loops of solvers. The methods
+ * of {@link CFG} are also supported, by views over the arrays, and return
+ * the same edges as the CFG which this CFG is frozen from.
+ */
+public class FrozenCFG implements CFG<Stmt> {
+
+    /**
+     * Key of the frozen CFG stored in {@link IR}.
+     */
+    public static final String ID = "frozen-cfg";
+
+    private static final Edge.Kind[] KINDS = Edge.Kind.values();
+
+    private final IR ir;
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    private final Set<Stmt> nodeSet;
+
+    /**
+     * The node of each index, or null for the indexes which are not nodes.
+     */
+    private final Stmt[] nodes;
+
+    private final int[] succStart;
+
+    /**
+     * Distinct successors of the nodes.
+     */
+    private final int[] succs;
+
+    private final int[] predStart;
+
+    /**
+     * Distinct predecessors of the nodes.
+     */
+    private final int[] preds;
+
+    private final int[] outEdgeStart;
+
+    private final int[] edgeTargets;
+
+    private final byte[] edgeKinds;
+
+    /**
+     * Case value of each edge, which is meaningful only for
+     * switch-case edges.
+     */
+    private final int[] edgeCaseValues;
+
+    private final Edge<Stmt>[] edges;
+
+    private final int[] inEdgeStart;
+
+    /**
+     * Positions of the in edges of the nodes in the edge arrays.
+     */
+    private final int[] inEdges;
+
+    @SuppressWarnings("unchecked")
+    private FrozenCFG(CFG<Stmt> cfg) {
+        ir = cfg.getIR();
+        entry = cfg.getEntry();
+        exit = cfg.getExit();
+        Set<Stmt> cfgNodes = Sets.newHybridOrderedSet();
+        cfgNodes.addAll(cfg.getNodes());
+        nodeSet = Collections.unmodifiableSet(cfgNodes);
+        int n = nodeSet.stream().mapToInt(Stmt::getIndex).max().orElse(-1) + 1;
+        nodes = new Stmt[n];
+        for (Stmt node : nodeSet) {
+            nodes[node.getIndex()] = node;
+        }
+        succStart = new int[n + 1];
+        predStart = new int[n + 1];
+        outEdgeStart = new int[n + 1];
+        inEdgeStart = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            Stmt node = nodes[i];
+            if (node != null) {
+                succStart[i + 1] = Set.copyOf(cfg.getSuccsOf(node)).size();
+                predStart[i + 1] = Set.copyOf(cfg.getPredsOf(node)).size();
+                outEdgeStart[i + 1] = cfg.getOutEdgesOf(node).size();
+                inEdgeStart[i + 1] = cfg.getInEdgesOf(node).size();
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            succStart[i + 1] += succStart[i];
+            predStart[i + 1] += predStart[i];
+            outEdgeStart[i + 1] += outEdgeStart[i];
+            inEdgeStart[i + 1] += inEdgeStart[i];
+        }
+        succs = new int[succStart[n]];
+        preds = new int[predStart[n]];
+        int nEdges = outEdgeStart[n];
+        edgeTargets = new int[nEdges];
+        edgeKinds = new byte[nEdges];
+        edgeCaseValues = new int[nEdges];
+        edges = (Edge<Stmt>[]) new Edge<?>[nEdges];
+        inEdges = new int[inEdgeStart[n]];
+        int[] nextInEdge = new int[n];
+        System.arraycopy(inEdgeStart, 0, nextInEdge, 0, n);
+        for (int i = 0; i < n; ++i) {
+            Stmt node = nodes[i];
+            if (node == null) {
+                continue;
+            }
+            addDistinct(succs, succStart[i], cfg.getSuccsOf(node));
+            addDistinct(preds, predStart[i], cfg.getPredsOf(node));
+            int k = outEdgeStart[i];
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                int target = edge.getTarget().getIndex();
+                edges[k] = edge;
+                edgeTargets[k] = target;
+                edgeKinds[k] = (byte) edge.getKind().ordinal();
+                if (edge.isSwitchCase()) {
+                    edgeCaseValues[k] = edge.getCaseValue();
+                }
+                inEdges[nextInEdge[target]++] = k;
+                ++k;
+            }
+        }
+    }
+
+    /**
+     * Stores the indexes of given nodes to the array from {@code begin},
+     * skipping the duplicate nodes, as the successors (predecessors)
+     * of a node in a CFG may contain duplicates if there are multiple
+     * edges between two nodes.
+     */
+    private static void addDistinct(int[] array, int begin, Collection<Stmt> nodes) {
+        int end = begin;
+        for (Stmt node : nodes) {
+            int index = node.getIndex();
+            boolean duplicate = false;
+            for (int k = begin; k < end && !duplicate; ++k) {
+                duplicate = array[k] == index;
+            }
+            if (!duplicate) {
+                array[end++] = index;
+            }
+        }
+    }
+
+    /**
+     * @return the frozen form of given CFG. If the CFG is the one stored
+     * in its IR, the frozen CFG is built at the first call and also
+     * stored in the IR.
+     */
+    public static FrozenCFG of(CFG<Stmt> cfg) {
+        if (cfg instanceof FrozenCFG frozen) {
+            return frozen;
+        }
+        IR ir = cfg.getIR();
+        return ir.getResult(CFGBuilder.ID) == cfg ?
+                ir.getResult(ID, () -> new FrozenCFG(cfg)) :
+                new FrozenCFG(cfg);
+    }
+
+    /**
+     * @return one plus the largest index of the nodes.
+     */
+    public int getIndexBound() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the node of given index.
+     */
+    public Stmt getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getSuccBegin(int index) {
+        return succStart[index];
+    }
+
+    public int getSuccEnd(int index) {
+        return succStart[index + 1];
+    }
+
+    /**
+     * @return the index of the k-th successor in the successor array.
+     */
+    public int getSucc(int k) {
+        return succs[k];
+    }
+
+    public int getPredBegin(int index) {
+        return predStart[index];
+    }
+
+    public int getPredEnd(int index) {
+        return predStart[index + 1];
+    }
+
+    /**
+     * @return the index of the k-th predecessor in the predecessor array.
+     */
+    public int getPred(int k) {
+        return preds[k];
+    }
+
+    public int getOutEdgeBegin(int index) {
+        return outEdgeStart[index];
+    }
+
+    public int getOutEdgeEnd(int index) {
+        return outEdgeStart[index + 1];
+    }
+
+    /**
+     * @return the index of the target of the k-th edge.
+     */
+    public int getEdgeTarget(int k) {
+        return edgeTargets[k];
+    }
+
+    public Edge.Kind getEdgeKind(int k) {
+        return KINDS[edgeKinds[k]];
+    }
+
+    /**
+     * @return the case value of the k-th edge, which must be
+     * a switch-case edge.
+     */
+    public int getEdgeCaseValue(int k) {
+        return edgeCaseValues[k];
+    }
+
+    /**
+     * @return the k-th edge.
+     */
+    public Edge<Stmt> getEdge(int k) {
+        return edges[k];
+    }
+
+    @Override
+    public IR getIR() {
+        return ir;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return ir.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return entry;
+    }
+
+    @Override
+    public Stmt getExit() {
+        return exit;
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return node == entry;
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return node == exit;
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getInEdgesOf(Stmt node) {
+        int i = node.getIndex();
+        return new RangeSet<>(inEdges, inEdgeStart[i], inEdgeStart[i + 1],
+                k -> edges[k]);
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getOutEdgesOf(Stmt node) {
+        int i = node.getIndex();
+        return new RangeSet<>(null, outEdgeStart[i], outEdgeStart[i + 1],
+                k -> edges[k]);
+    }
+
+    @Override
+    public int getInDegreeOf(Stmt node) {
+        int i = node.getIndex();
+        return inEdgeStart[i + 1] - inEdgeStart[i];
+    }
+
+    @Override
+    public int getOutDegreeOf(Stmt node) {
+        int i = node.getIndex();
+        return outEdgeStart[i + 1] - outEdgeStart[i];
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        int i = node.getIndex();
+        return i >= 0 && i < nodes.length && nodes[i] == node;
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        int i = source.getIndex();
+        int t = target.getIndex();
+        for (int k = succStart[i]; k < succStart[i + 1]; ++k) {
+            if (succs[k] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt node) {
+        int i = node.getIndex();
+        return new RangeSet<>(preds, predStart[i], predStart[i + 1], k -> nodes[k]);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        int i = node.getIndex();
+        return new RangeSet<>(succs, succStart[i], succStart[i + 1], k -> nodes[k]);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return nodeSet;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return nodeSet.size();
+    }
+
+    /**
+     * Unmodifiable view of a range of an int array as a set of elements.
+     * The elements in the range are distinct.
+     */
+    private static class RangeSet<E> extends AbstractSet<E> {
+
+        /**
+         * The array of the range, or null if the range
+         * is of the positions themselves.
+         */
+        private final int[] array;
+
+        private final int begin;
+
+        private final int end;
+
+        private final IntFunction<E> mapper;
+
+        private RangeSet(int[] array, int begin, int end, IntFunction<E> mapper) {
+            this.array = array;
+            this.begin = begin;
+            this.end = end;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int k = begin;
+
+                @Override
+                public boolean hasNext() {
+                    return k < end;
+                }
+
+                @Override
+                public E next() {
+                    if (k >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    int i = k++;
+                    return mapper.apply(array != null ? array[i] : i);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - begin;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loop-nesting forest of a CFG. A loop is the union of the natural loops
+ * of the back edges to the same header, where a back edge is an edge whose
+ * target dominates its source. The loops of a CFG are either disjoint or
+ * nested, and each loop is the child of the smallest loop enclosing it.
+ * <p>
+ * Cycles which are entered at more than one node (i.e., irreducible
+ * loops) have no back edges, thus they are not loops in this forest.
+ *
+ * @param <N> type of CFG nodes
+ * @see Dominators
+ */
+public class LoopForest<N> {
+
+    /**
+     * Key of the loop-nesting forest stored in {@link pascal.taie.ir.IR}.
+     */
+    private static final String ID = "loop-forest";
+
+    private final List<Loop<N>> loops = new ArrayList<>();
+
+    private final List<Loop<N>> topLevelLoops = new ArrayList<>();
+
+    /**
+     * The innermost loop of each node in loops.
+     */
+    private final Map<N, Loop<N>> loopOf = Maps.newMap();
+
+    private LoopForest(CFG<N> cfg, Dominators<N> dom) {
+        Map<N, Loop<N>> loopsByHeader = Maps.newMap();
+        for (N node : dom.getNodes()) {
+            for (N succ : cfg.getSuccsOf(node)) {
+                if (dom.dominates(succ, node)) {
+                    Loop<N> loop = loopsByHeader.computeIfAbsent(succ, Loop::new);
+                    loop.latches.add(node);
+                    collectBody(cfg, dom, loop, node);
+                }
+            }
+        }
+        loops.addAll(loopsByHeader.values());
+        // visit enclosing loops before the loops they enclose, so that
+        // the innermost loop of a node is the last loop containing it
+        loops.sort(Comparator.comparingInt((Loop<N> loop) -> loop.nodes.size())
+                .reversed());
+        for (Loop<N> loop : loops) {
+            Loop<N> parent = loopOf.get(loop.header);
+            if (parent != null) {
+                loop.parent = parent;
+                loop.depth = parent.depth + 1;
+                parent.children.add(loop);
+            } else {
+                topLevelLoops.add(loop);
+            }
+            for (N node : loop.nodes) {
+                loopOf.put(node, loop);
+            }
+        }
+    }
+
+    /**
+     * @return the loop-nesting forest of given CFG, which is stored in
+     * the IR as the dominator tree of {@link Dominators#of(CFG)}.
+     */
+    public static <N> LoopForest<N> of(CFG<N> cfg) {
+        // obtain the dominators before the forest is computed, as the
+        // results of the IR cannot be stored while one is being computed
+        Dominators<N> dom = Dominators.of(cfg);
+        return Dominators.getResult(cfg, ID, () -> new LoopForest<>(cfg, dom));
+    }
+
+    /**
+     * Adds the nodes of the natural loop of the back edge
+     * from {@code latch} to the header to the body of given loop.
+     */
+    private static <N> void collectBody(CFG<N> cfg, Dominators<N> dom,
+                                        Loop<N> loop, N latch) {
+        Deque<N> stack = new ArrayDeque<>();
+        if (loop.nodes.add(latch)) {
+            stack.push(latch);
+        }
+        while (!stack.isEmpty()) {
+            for (N pred : cfg.getPredsOf(stack.pop())) {
+                if (dom.contains(pred) && loop.nodes.add(pred)) {
+                    stack.push(pred);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all loops of the CFG, where enclosing loops
+     * precede the loops they enclose.
+     */
+    public List<Loop<N>> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    /**
+     * @return the loops which are not enclosed by other loops.
+     */
+    public List<Loop<N>> getTopLevelLoops() {
+        return Collections.unmodifiableList(topLevelLoops);
+    }
+
+    /**
+     * @return the innermost loop containing given node,
+     * or null if the node is in no loop.
+     */
+    @Nullable
+    public Loop<N> getLoopOf(N node) {
+        return loopOf.get(node);
+    }
+
+    /**
+     * @return true if given node is the header of a loop.
+     */
+    public boolean isLoopHeader(N node) {
+        Loop<N> loop = loopOf.get(node);
+        return loop != null && loop.header.equals(node);
+    }
+
+    /**
+     * @return the number of loops containing given node.
+     */
+    public int getDepth(N node) {
+        Loop<N> loop = loopOf.get(node);
+        return loop != null ? loop.depth : 0;
+    }
+
+    /**
+     * A loop in the forest.
+     */
+    public static class Loop<N> {
+
+        private final N header;
+
+        private final Set<N> nodes = Sets.newHybridOrderedSet();
+
+        private final Set<N> latches = Sets.newHybridOrderedSet();
+
+        @Nullable
+        private Loop<N> parent;
+
+        private final List<Loop<N>> children = new ArrayList<>();
+
+        private int depth = 1;
+
+        private Loop(N header) {
+            this.header = header;
+            nodes.add(header);
+        }
+
+        /**
+         * @return the header of this loop, which dominates all its nodes.
+         */
+        public N getHeader() {
+            return header;
+        }
+
+        /**
+         * @return the nodes of this loop, including the nodes of
+         * the loops it encloses.
+         */
+        public Set<N> getNodes() {
+            return Collections.unmodifiableSet(nodes);
+        }
+
+        /**
+         * @return the sources of the back edges to the header.
+         */
+        public Set<N> getLatches() {
+            return Collections.unmodifiableSet(latches);
+        }
+
+        public boolean contains(N node) {
+            return nodes.contains(node);
+        }
+
+        /**
+         * @return the smallest loop enclosing this loop,
+         * or null if this loop is a top-level loop.
+         */
+        @Nullable
+        public Loop<N> getParent() {
+            return parent;
+        }
+
+        /**
+         * @return the loops which are immediately enclosed by this loop.
+         */
+        public List<Loop<N>> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * @return the number of loops enclosing this loop, including itself.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        @Override
+        public String toString() {
+            return "Loop{header=" + header + ", size=" + nodes.size() + "}";
+        }
+    }
+}
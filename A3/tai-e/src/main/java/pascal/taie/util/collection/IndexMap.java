@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Map whose keys are {@link Indexable}, and whose mappings are stored in
+ * arrays at the indexes of the keys, so that lookups and updates need
+ * no hashing. It suits keys with dense indexes, e.g., the statements
+ * of an IR. The arrays grow as needed to hold the largest index.
+ * <p>
+ * This map does not permit null keys or keys that are not {@link Indexable}.
+ * It iterates over its mappings in increasing order of key indexes.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class IndexMap<K, V> extends AbstractMap<K, V> {
+
+    private Object[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int modCount;
+
+    public IndexMap() {
+        this(0);
+    }
+
+    /**
+     * @param capacity the initial capacity, i.e., one plus the largest
+     *                 index of the keys that can be held without growing
+     */
+    public IndexMap(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+    }
+
+    private static int indexOf(Object key) {
+        return ((Indexable) Objects.requireNonNull(key)).getIndex();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Indexable)) {
+            return false;
+        }
+        int index = indexOf(key);
+        return index < keys.length && key.equals(keys[index]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return containsKey(key) ? (V) values[indexOf(key)] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int index = indexOf(key);
+        if (index >= keys.length) {
+            int capacity = Math.max(index + 1, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        V old = (V) values[index];
+        if (keys[index] == null) {
+            ++size;
+            ++modCount;
+        } else if (!key.equals(keys[index])) {
+            throw new IllegalArgumentException(
+                    key + " has the same index as " + keys[index]);
+        }
+        keys[index] = key;
+        values[index] = value;
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        int index = indexOf(key);
+        V old = (V) values[index];
+        keys[index] = null;
+        values[index] = null;
+        --size;
+        ++modCount;
+        return old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                values[i] = function.apply((K) keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int next = advance(0);
+
+        private int last = -1;
+
+        private int expectedModCount = modCount;
+
+        private int advance(int i) {
+            while (i < keys.length && keys[i] == null) {
+                ++i;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new SimpleImmutableEntry<>((K) keys[last], (V) values[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            IndexMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hash map backed by a persistent hash array mapped trie (HAMT).
+ * <p>
+ * The trie nodes are immutable: updates copy the path from the root
+ * to the changed entry and share all other nodes, so {@link #copy()}
+ * takes constant time and maps derived from the same origin share most
+ * of their structure. Nodes are kept in canonical form (a sub-node that
+ * shrinks to a single entry is inlined into its parent), which makes the
+ * shape of the trie a function of its contents, and thus {@link #equals}
+ * can skip subtrees that are shared by both maps.
+ * <p>
+ * This map does not permit null keys.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Root of the trie, or null if this map is empty.
+     */
+    private BitmapNode root;
+
+    private int size;
+
+    /**
+     * Previous value of the key affected by the last update,
+     * used to compute the return values of {@link #put} and {@link #remove}.
+     */
+    private Object previous;
+
+    public PersistentHashMap() {
+    }
+
+    public PersistentHashMap(Map<? extends K, ? extends V> map) {
+        putAll(map);
+    }
+
+    private PersistentHashMap(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return a copy of this map, which shares all nodes with this map.
+     */
+    public PersistentHashMap<K, V> copy() {
+        return new PersistentHashMap<>(root, size);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Leaf<K, V> leaf = find(key);
+        return leaf != null ? leaf.value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> find(Object key) {
+        Objects.requireNonNull(key);
+        int hash = hash(key);
+        Object node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            if (node instanceof BitmapNode bitmapNode) {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                node = (bitmapNode.bitmap & bit) != 0 ?
+                        bitmapNode.slots[bitmapNode.index(bit)] : null;
+            } else if (node instanceof Leaf<?, ?> leaf) {
+                return leaf.hash == hash && leaf.key.equals(key) ?
+                        (Leaf<K, V>) leaf : null;
+            } else {
+                return (Leaf<K, V>) ((CollisionNode) node).find(key);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        int hash = hash(key);
+        previous = null;
+        if (root == null) {
+            root = new BitmapNode(new Leaf<>(hash, key, value), 0);
+            ++size;
+        } else {
+            root = insert(root, 0, hash, key, value);
+        }
+        V result = (V) previous;
+        previous = null;
+        return result;
+    }
+
+    /**
+     * Inserts a mapping into the subtrie of given node. The leaf of the
+     * mapping is created only if the map changes, so putting an existing
+     * mapping does not allocate.
+     */
+    private BitmapNode insert(BitmapNode node, int shift, int hash, K key, V value) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        int index = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            ++size;
+            return node.insert(bit, index, new Leaf<>(hash, key, value));
+        }
+        Object slot = node.slots[index];
+        Object newSlot;
+        if (slot instanceof Leaf<?, ?> old) {
+            if (old.hash == hash && old.key.equals(key)) {
+                previous = old.value;
+                if (Objects.equals(old.value, value)) {
+                    return node;
+                }
+                newSlot = new Leaf<>(hash, key, value);
+            } else {
+                ++size;
+                newSlot = merge(old, new Leaf<>(hash, key, value), shift + BITS);
+            }
+        } else if (slot instanceof BitmapNode subNode) {
+            newSlot = insert(subNode, shift + BITS, hash, key, value);
+        } else {
+            newSlot = insert((CollisionNode) slot, hash, key, value);
+        }
+        return newSlot == slot ? node : node.replace(index, newSlot);
+    }
+
+    private CollisionNode insert(CollisionNode node, int hash, K key, V value) {
+        for (int i = 0; i < node.leaves.length; ++i) {
+            Leaf<?, ?> old = node.leaves[i];
+            if (old.key.equals(key)) {
+                previous = old.value;
+                if (Objects.equals(old.value, value)) {
+                    return node;
+                }
+                Leaf<?, ?>[] leaves = node.leaves.clone();
+                leaves[i] = new Leaf<>(hash, key, value);
+                return new CollisionNode(leaves);
+            }
+        }
+        ++size;
+        Leaf<?, ?>[] leaves = Arrays.copyOf(node.leaves, node.leaves.length + 1);
+        leaves[node.leaves.length] = new Leaf<>(hash, key, value);
+        return new CollisionNode(leaves);
+    }
+
+    /**
+     * @return a node holding two leaves with different keys, which
+     * are at the same slot of the node at {@code shift - BITS}.
+     */
+    private static Object merge(Leaf<?, ?> leaf1, Leaf<?, ?> leaf2, int shift) {
+        if (shift >= Integer.SIZE) {
+            return new CollisionNode(new Leaf<?, ?>[]{ leaf1, leaf2 });
+        }
+        int bit1 = 1 << ((leaf1.hash >>> shift) & MASK);
+        int bit2 = 1 << ((leaf2.hash >>> shift) & MASK);
+        if (bit1 == bit2) {
+            return new BitmapNode(bit1, new Object[]{
+                    merge(leaf1, leaf2, shift + BITS) });
+        }
+        return Integer.compareUnsigned(bit1, bit2) < 0 ?
+                new BitmapNode(bit1 | bit2, new Object[]{ leaf1, leaf2 }) :
+                new BitmapNode(bit1 | bit2, new Object[]{ leaf2, leaf1 });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Objects.requireNonNull(key);
+        if (root == null) {
+            return null;
+        }
+        previous = null;
+        root = (BitmapNode) remove(root, 0, hash(key), key);
+        V result = (V) previous;
+        previous = null;
+        return result;
+    }
+
+    /**
+     * @return the given node if the key is absent; otherwise, the node
+     * without the key, a leaf if the resulting node should be inlined
+     * into its parent, or null if the resulting node is empty.
+     */
+    private Object remove(BitmapNode node, int shift, int hash, Object key) {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = node.index(bit);
+        Object slot = node.slots[index];
+        if (slot instanceof Leaf<?, ?> leaf) {
+            if (leaf.hash != hash || !leaf.key.equals(key)) {
+                return node;
+            }
+            previous = leaf.value;
+            --size;
+            if (node.slots.length == 1) {
+                return null;
+            }
+            if (shift > 0 && node.slots.length == 2 &&
+                    node.slots[1 - index] instanceof Leaf<?, ?> other) {
+                return other;
+            }
+            return node.delete(bit, index);
+        }
+        Object newSlot = slot instanceof BitmapNode subNode ?
+                remove(subNode, shift + BITS, hash, key) :
+                remove((CollisionNode) slot, key);
+        if (newSlot == slot) {
+            return node;
+        } else if (newSlot == null) {
+            return node.slots.length == 1 ? null : node.delete(bit, index);
+        } else if (shift > 0 && node.slots.length == 1 &&
+                newSlot instanceof Leaf) {
+            return newSlot;
+        } else {
+            return node.replace(index, newSlot);
+        }
+    }
+
+    private Object remove(CollisionNode node, Object key) {
+        Leaf<?, ?>[] leaves = node.leaves;
+        for (int i = 0; i < leaves.length; ++i) {
+            if (leaves[i].key.equals(key)) {
+                previous = leaves[i].value;
+                --size;
+                if (leaves.length == 2) {
+                    return leaves[1 - i];
+                }
+                Leaf<?, ?>[] newLeaves = new Leaf<?, ?>[leaves.length - 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, i);
+                System.arraycopy(leaves, i + 1, newLeaves, i, newLeaves.length - i);
+                return new CollisionNode(newLeaves);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentHashMap<?, ?> that) {
+            return size == that.size && nodeEquals(root, that.root);
+        }
+        return super.equals(o);
+    }
+
+    private static boolean nodeEquals(Object node1, Object node2) {
+        if (node1 == node2) {
+            return true;
+        }
+        if (node1 instanceof BitmapNode bitmapNode1 &&
+                node2 instanceof BitmapNode bitmapNode2) {
+            if (bitmapNode1.bitmap != bitmapNode2.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < bitmapNode1.slots.length; ++i) {
+                if (!nodeEquals(bitmapNode1.slots[i], bitmapNode2.slots[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (node1 instanceof Leaf<?, ?> leaf1 &&
+                node2 instanceof Leaf<?, ?> leaf2) {
+            return leaf1.key.equals(leaf2.key)
+                    && Objects.equals(leaf1.value, leaf2.value);
+        }
+        if (node1 instanceof CollisionNode collisionNode1 &&
+                node2 instanceof CollisionNode collisionNode2) {
+            if (collisionNode1.leaves.length != collisionNode2.leaves.length) {
+                return false;
+            }
+            for (Leaf<?, ?> leaf : collisionNode1.leaves) {
+                Leaf<?, ?> other = collisionNode2.find(leaf.key);
+                if (other == null || !Objects.equals(leaf.value, other.value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Trie node whose slots hold leaves and sub-nodes; a slot is present
+     * iff the corresponding bit of {@code bitmap} is set.
+     */
+    private static final class BitmapNode {
+
+        private final int bitmap;
+
+        private final Object[] slots;
+
+        private BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private BitmapNode(Leaf<?, ?> leaf, int shift) {
+            this(1 << ((leaf.hash >>> shift) & MASK), new Object[]{ leaf });
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private BitmapNode insert(int bit, int index, Object slot) {
+            Object[] newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            newSlots[index] = slot;
+            System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+            return new BitmapNode(bitmap | bit, newSlots);
+        }
+
+        private BitmapNode replace(int index, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[index] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private BitmapNode delete(int bit, int index) {
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+    }
+
+    /**
+     * Node holding leaves whose keys have the same hash.
+     */
+    private static final class CollisionNode {
+
+        private final Leaf<?, ?>[] leaves;
+
+        private CollisionNode(Leaf<?, ?>[] leaves) {
+            this.leaves = leaves;
+        }
+
+        private Leaf<?, ?> find(Object key) {
+            for (Leaf<?, ?> leaf : leaves) {
+                if (leaf.key.equals(key)) {
+                    return leaf;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Leaf<K, V> implements Map.Entry<K, V> {
+
+        private final int hash;
+
+        private final K key;
+
+        private final V value;
+
+        private Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && key.equals(e.getKey())
+                    && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Iterates over the trie as it was when the iterator was created,
+     * so that the map can be modified during iteration.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        /**
+         * Nodes that have not been fully visited, with the index of
+         * their next slot.
+         */
+        private final Deque<Object[]> nodes = new ArrayDeque<>();
+
+        private final Deque<int[]> indexes = new ArrayDeque<>();
+
+        private Leaf<K, V> next;
+
+        private Leaf<K, V> last;
+
+        private EntryIterator() {
+            if (root != null) {
+                push(root.slots);
+            }
+            advance();
+        }
+
+        private void push(Object[] slots) {
+            nodes.push(slots);
+            indexes.push(new int[1]);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Object[] slots = nodes.peek();
+                int[] index = indexes.peek();
+                if (index[0] == slots.length) {
+                    nodes.pop();
+                    indexes.pop();
+                    continue;
+                }
+                Object slot = slots[index[0]++];
+                if (slot instanceof Leaf<?, ?> leaf) {
+                    next = (Leaf<K, V>) leaf;
+                    return;
+                } else if (slot instanceof BitmapNode node) {
+                    push(node.slots);
+                } else {
+                    push(((CollisionNode) slot).leaves);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            PersistentHashMap.this.remove(last.key);
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MethodAnalysisSchedulerTest {
+
+    private static final AnalysisConfig CFG_CONFIG = new AnalysisConfig(
+            "control-flow graph", CFGBuilder.class.getName(), CFGBuilder.ID,
+            List.of(), new AnalysisOptions(Map.of("exception", "none", "dump", false)));
+
+    private static final AnalysisConfig LIVEVAR_CONFIG = new AnalysisConfig(
+            "live variables", LiveVariableAnalysis.class.getName(),
+            LiveVariableAnalysis.ID, List.of(CFGBuilder.ID),
+            new AnalysisOptions(Map.of()));
+
+    private static final AnalysisConfig CG_CONFIG = new AnalysisConfig(
+            "call graph", CallGraphBuilder.class.getName(), CallGraphBuilder.ID,
+            List.of(), new AnalysisOptions(Map.of()));
+
+    private static final AnalysisConfig RESULT_CONFIG = new AnalysisConfig(
+            "result processor", ResultProcessor.class.getName(), ResultProcessor.ID,
+            List.of(), new AnalysisOptions(Map.of()));
+
+    /**
+     * x = 1; y = x + n; return y;
+     */
+    private static IR buildIR() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var x = builder.newVar("x");
+        Var y = builder.newVar("y");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new Binary(y, new ArithmeticExp(ArithmeticExp.Op.ADD, x, n)));
+        builder.add(new Return(y));
+        return builder.build();
+    }
+
+    @Test
+    public void testRequiredAnalysisMustPrecede() {
+        try {
+            MethodAnalysisScheduler.of(List.of(LIVEVAR_CONFIG, CFG_CONFIG));
+            fail("expected ConfigException");
+        } catch (ConfigException e) {
+            // expected
+        }
+        MethodAnalysisScheduler.of(List.of(CFG_CONFIG, LIVEVAR_CONFIG));
+    }
+
+    @Test
+    public void testRunOnIRs() {
+        List<IR> irs = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            irs.add(buildIR());
+        }
+        MethodAnalysisScheduler scheduler = new MethodAnalysisScheduler(
+                List.of(new LiveVariableAnalysis(LIVEVAR_CONFIG)), new ForkJoinPool(4));
+        scheduler.runOnIRs(irs);
+        LiveVariableAnalysis expected = new LiveVariableAnalysis(LIVEVAR_CONFIG);
+        for (IR ir : irs) {
+            NodeResult<Stmt, SetFact<Var>> result = ir.getResult(LiveVariableAnalysis.ID);
+            NodeResult<Stmt, SetFact<Var>> expectedResult = expected.analyze(ir);
+            for (Stmt stmt : ir) {
+                assertEquals(expectedResult.getInFact(stmt), result.getInFact(stmt));
+                assertEquals(expectedResult.getOutFact(stmt), result.getOutFact(stmt));
+            }
+        }
+    }
+
+    @Test
+    public void testStagesOfPlan() {
+        assertEquals(List.of(List.of(CG_CONFIG), List.of(CFG_CONFIG, LIVEVAR_CONFIG),
+                        List.of(RESULT_CONFIG)),
+                MethodAnalysisScheduler.stagesOf(
+                        List.of(CG_CONFIG, CFG_CONFIG, LIVEVAR_CONFIG, RESULT_CONFIG)));
+        assertEquals(List.of(List.of(CFG_CONFIG, LIVEVAR_CONFIG)),
+                MethodAnalysisScheduler.stagesOf(List.of(CFG_CONFIG, LIVEVAR_CONFIG)));
+        assertEquals(List.of(List.of(CG_CONFIG, RESULT_CONFIG)),
+                MethodAnalysisScheduler.stagesOf(List.of(CG_CONFIG, RESULT_CONFIG)));
+        assertEquals(List.of(), MethodAnalysisScheduler.stagesOf(List.of()));
+    }
+}
@@ -34,6 +34,43 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testDCD(String inputClass, String solver) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:" + solver,
+                "-a", "constprop=edge-refine:false;solver:" + solver);
+    }
+
+    /**
+     * Runs dead code detection with given options for dead code detection,
+     * live variable analysis and constant propagation. Each analysis
+     * ignores the options which are not its own.
+     */
+    void testDCDWithOptions(String inputClass, String options) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, options,
+                "-a", "livevar=strongly:false;" + options,
+                "-a", "constprop=edge-refine:false;" + options);
+    }
+
+    void testDCDWithConstprop(String inputClass, String constpropOptions) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;" + constpropOptions);
+    }
+
+    /**
+     * Runs dead code detection in fused mode, where constant propagation
+     * runs inside dead code detection with the options given to constprop.
+     */
+    void testFusedDCD(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "fused:true",
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false");
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -58,4 +95,164 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testLoopsRPO() {
+        testDCD("Loops", "rpo");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchRPO() {
+        testDCD("UnreachableSwitchBranch", "rpo");
+    }
+
+    @Test
+    public void testLoopsWTO() {
+        testDCD("Loops", "wto");
+    }
+
+    @Test
+    public void testDeadAssignmentWTO() {
+        testDCD("DeadAssignment", "wto");
+    }
+
+    @Test
+    public void testUnreachableIfBranchPacked() {
+        testDCDWithConstprop("UnreachableIfBranch", "packed:true");
+    }
+
+    @Test
+    public void testLoopsPacked() {
+        testDCDWithConstprop("Loops", "packed:true");
+    }
+
+    @Test
+    public void testDeadAssignmentInFactsOnly() {
+        testDCDWithOptions("DeadAssignment", "in-facts-only:true");
+    }
+
+    @Test
+    public void testDeadAssignmentBlocks() {
+        testDCDWithOptions("DeadAssignment", "blocks:true");
+    }
+
+    @Test
+    public void testLoopsBlocksWTO() {
+        testDCDWithOptions("Loops", "blocks:true;solver:wto");
+    }
+
+    @Test
+    public void testControlFlowUnreachableInternFacts() {
+        testDCDWithOptions("ControlFlowUnreachable", "intern-facts:true");
+    }
+
+    @Test
+    public void testDeadAssignmentLiveQuery() {
+        testDCDWithOptions("DeadAssignment", "live-query:true");
+    }
+
+    @Test
+    public void testLoopsLiveQuery() {
+        testDCDWithOptions("Loops", "live-query:true");
+    }
+
+    @Test
+    public void testControlFlowUnreachableLiveQuery() {
+        testDCDWithOptions("ControlFlowUnreachable", "live-query:true");
+    }
+
+    @Test
+    public void testUnreachableIfBranchLiveQuery() {
+        testDCDWithOptions("UnreachableIfBranch", "live-query:true");
+    }
+
+    @Test
+    public void testLoopsParallel() {
+        testDCDWithOptions("Loops", "parallel-threshold:1");
+    }
+
+    @Test
+    public void testDeadAssignmentParallel() {
+        testDCDWithOptions("DeadAssignment", "parallel-threshold:1");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchParallel() {
+        testDCDWithOptions("UnreachableSwitchBranch", "parallel-threshold:1");
+    }
+
+    @Test
+    public void testLoopsFrozenCFG() {
+        testDCDWithOptions("Loops", "frozen-cfg:true");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchFrozenCFG() {
+        testDCDWithOptions("UnreachableSwitchBranch", "frozen-cfg:true");
+    }
+
+    @Test
+    public void testLoopsFrozenCFGWTO() {
+        testDCDWithOptions("Loops", "frozen-cfg:true;solver:wto");
+    }
+
+    @Test
+    public void testLoopsFrozenCFGBlocks() {
+        testDCDWithOptions("Loops", "frozen-cfg:true;blocks:true");
+    }
+
+    @Test
+    public void testLoopsFrozenCFGParallel() {
+        testDCDWithOptions("Loops", "frozen-cfg:true;parallel-threshold:1");
+    }
+
+    @Test
+    public void testControlFlowUnreachableSparse() {
+        testDCDWithConstprop("ControlFlowUnreachable", "sparse:true");
+    }
+
+    @Test
+    public void testUnreachableIfBranchSparse() {
+        testDCDWithConstprop("UnreachableIfBranch", "sparse:true");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchSparse() {
+        testDCDWithConstprop("UnreachableSwitchBranch", "sparse:true");
+    }
+
+    @Test
+    public void testDeadAssignmentSparse() {
+        testDCDWithConstprop("DeadAssignment", "sparse:true");
+    }
+
+    @Test
+    public void testLoopsSparse() {
+        testDCDWithConstprop("Loops", "sparse:true");
+    }
+
+    @Test
+    public void testControlFlowUnreachableFused() {
+        testFusedDCD("ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testUnreachableIfBranchFused() {
+        testFusedDCD("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchFused() {
+        testFusedDCD("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testDeadAssignmentFused() {
+        testFusedDCD("DeadAssignment");
+    }
+
+    @Test
+    public void testLoopsFused() {
+        testFusedDCD("Loops");
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.availexp.AvailableExpressionAnalysis;
+import pascal.taie.analysis.dataflow.analysis.availexp.ExpWrapper;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GenKillAnalysisTest {
+
+    /**
+     * Options of the solving machinery, each of which must not
+     * change the results.
+     */
+    private static final List<Object[]> OPTIONS = List.of(
+            new Object[0],
+            new Object[]{"solver", "wto"},
+            new Object[]{"blocks", true},
+            new Object[]{"in-facts-only", true},
+            new Object[]{"frozen-cfg", true},
+            new Object[]{"intern-facts", true},
+            new Object[]{"parallel-threshold", 1});
+
+    private static <E> Set<E> elements(SetFact<E> fact) {
+        return fact.stream().collect(Collectors.toSet());
+    }
+
+    /**
+     * x = 1; if (x == y) goto L; x = 2; L: z = x; return;
+     */
+    @Test
+    public void testReachingDefinitions() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newVar("x");
+        Var y = builder.newParam("y");
+        Var z = builder.newVar("z");
+        Stmt def1 = builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.EQ, x, y)));
+        Stmt def2 = builder.add(new AssignLiteral(x, IntLiteral.get(2)));
+        Stmt use = builder.add(new Copy(z, x));
+        builder.add(new Return());
+        cond.setTarget(use);
+        IR ir = builder.build();
+
+        for (Object[] options : OPTIONS) {
+            NodeResult<Stmt, SetFact<Stmt>> result = new ReachingDefinitionAnalysis(
+                    new AnalysisConfig(ReachingDefinitionAnalysis.ID, options))
+                    .analyze(ir);
+            assertEquals(Set.of(def1), elements(result.getInFact(def2)));
+            assertEquals(Set.of(def2), elements(result.getOutFact(def2)));
+            assertEquals(Set.of(def1, def2), elements(result.getInFact(use)));
+            assertEquals(Set.of(def1, def2, use), elements(result.getOutFact(use)));
+        }
+    }
+
+    /**
+     * a = p + y; if (p == y) goto L; p = 1; L: b = p + y; c = p' + y; return;
+     * where p' is another variable named p.
+     */
+    @Test
+    public void testAvailableExpressions() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var p = builder.newParam("p");
+        Var y = builder.newParam("y");
+        Var p2 = builder.newParam("p");
+        Var a = builder.newVar("a");
+        Var b = builder.newVar("b");
+        Var c = builder.newVar("c");
+        builder.add(new Binary(a, new ArithmeticExp(ArithmeticExp.Op.ADD, p, y)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.EQ, p, y)));
+        Stmt kill = builder.add(new AssignLiteral(p, IntLiteral.get(1)));
+        Stmt reuse = builder.add(new Binary(b, new ArithmeticExp(ArithmeticExp.Op.ADD, p, y)));
+        Stmt other = builder.add(new Binary(c, new ArithmeticExp(ArithmeticExp.Op.ADD, p2, y)));
+        builder.add(new Return());
+        cond.setTarget(reuse);
+        IR ir = builder.build();
+
+        for (Object[] options : OPTIONS) {
+            NodeResult<Stmt, SetFact<ExpWrapper>> result = new AvailableExpressionAnalysis(
+                    new AnalysisConfig(AvailableExpressionAnalysis.ID, options))
+                    .analyze(ir);
+            assertEquals(1, result.getInFact(kill).size());
+            assertTrue(result.getOutFact(kill).isEmpty());
+            // p + y is killed on one path to reuse
+            assertTrue(result.getInFact(reuse).isEmpty());
+            // the same expression as the first one
+            assertEquals(result.getInFact(kill), result.getOutFact(reuse));
+            // p' + y is a different expression from p + y
+            assertEquals(2, result.getOutFact(other).size());
+        }
+    }
+
+    /**
+     * a = 1; b = 2; L: if (a >= n) goto E; c = a + b; [b = a;] a = c; goto L;
+     * E: d = b; return d;
+     *
+     * @param previous if not null, the IR is built on its variables,
+     *                 with the bracketed statement inserted
+     */
+    private static IR buildLoop(IR previous) {
+        TestIRBuilder builder;
+        Var n, a, b, c, d;
+        if (previous == null) {
+            builder = new TestIRBuilder();
+            n = builder.newParam("n");
+            a = builder.newVar("a");
+            b = builder.newVar("b");
+            c = builder.newVar("c");
+            d = builder.newVar("d");
+        } else {
+            builder = new TestIRBuilder(previous);
+            n = builder.getVar("n");
+            a = builder.getVar("a");
+            b = builder.getVar("b");
+            c = builder.getVar("c");
+            d = builder.getVar("d");
+        }
+        builder.add(new AssignLiteral(a, IntLiteral.get(1)));
+        builder.add(new AssignLiteral(b, IntLiteral.get(2)));
+        If loop = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, a, n)));
+        builder.add(new Binary(c, new ArithmeticExp(ArithmeticExp.Op.ADD, a, b)));
+        if (previous != null) {
+            builder.add(new Copy(b, a));
+        }
+        builder.add(new Copy(a, c));
+        Goto back = builder.add(new Goto());
+        Stmt exit = builder.add(new Copy(d, b));
+        builder.add(new Return(d));
+        loop.setTarget(exit);
+        back.setTarget(loop);
+        return builder.build();
+    }
+
+    private static <E> void assertSameResult(
+            IR ir, NodeResult<Stmt, SetFact<E>> expected,
+            NodeResult<Stmt, SetFact<E>> actual) {
+        for (Stmt stmt : ir) {
+            assertEquals(expected.getInFact(stmt), actual.getInFact(stmt));
+            assertEquals(expected.getOutFact(stmt), actual.getOutFact(stmt));
+        }
+    }
+
+    @Test
+    public void testReanalyzeAfterEdit() {
+        IR previousIR = buildLoop(null);
+        IR ir = buildLoop(previousIR);
+        for (Object[] options : OPTIONS) {
+            LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                    new AnalysisConfig(LiveVariableAnalysis.ID, options));
+            NodeResult<Stmt, SetFact<Var>> previous = livevar.analyze(previousIR);
+            NodeResult<Stmt, SetFact<Var>> result =
+                    livevar.reanalyze(ir, previousIR, previous);
+            assertSameResult(ir, livevar.analyze(ir), result);
+
+            ReachingDefinitionAnalysis reachdef = new ReachingDefinitionAnalysis(
+                    new AnalysisConfig(ReachingDefinitionAnalysis.ID, options));
+            assertSameResult(ir, reachdef.analyze(ir),
+                    reachdef.reanalyze(ir, previousIR, reachdef.analyze(previousIR)));
+        }
+        // the facts of the statements after the loop are reused
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID));
+        NodeResult<Stmt, SetFact<Var>> previous = livevar.analyze(previousIR);
+        NodeResult<Stmt, SetFact<Var>> result = livevar.reanalyze(ir, previousIR, previous);
+        Stmt previousExit = previousIR.getStmt(previousIR.getStmts().size() - 2);
+        Stmt exit = ir.getStmt(ir.getStmts().size() - 2);
+        assertSame(previous.getInFact(previousExit), result.getInFact(exit));
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.ProductFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ProductAnalysisTest {
+
+    /**
+     * a = 1; b = 2; one = 1;
+     * L: if (a >= n) goto E; c = a + b; b = b * one; a = c; goto L;
+     * E: d = b; return d;
+     */
+    private static IR buildLoop() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var a = builder.newVar("a");
+        Var b = builder.newVar("b");
+        Var c = builder.newVar("c");
+        Var d = builder.newVar("d");
+        Var one = builder.newVar("one");
+        builder.add(new AssignLiteral(a, IntLiteral.get(1)));
+        builder.add(new AssignLiteral(b, IntLiteral.get(2)));
+        builder.add(new AssignLiteral(one, IntLiteral.get(1)));
+        If loop = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, a, n)));
+        builder.add(new Binary(c, new ArithmeticExp(ArithmeticExp.Op.ADD, a, b)));
+        builder.add(new Binary(b, new ArithmeticExp(ArithmeticExp.Op.MUL, b, one)));
+        builder.add(new Copy(a, c));
+        Goto back = builder.add(new Goto());
+        Stmt exit = builder.add(new Copy(d, b));
+        builder.add(new Return(d));
+        loop.setTarget(exit);
+        back.setTarget(loop);
+        return builder.build();
+    }
+
+    /**
+     * Checks that the projections of the result of the product are
+     * the same as the results of solving each analysis alone.
+     */
+    private static void assertSameAsAlone(
+            CFG<Stmt> cfg, List<? extends DataflowAnalysis<Stmt, ?>> analyses) {
+        ProductAnalysis<Stmt> product = new ProductAnalysis<>(analyses);
+        // the block solver rejects the analyses which transfer edges
+        List<Boolean> blockModes = transfersEdges(product, cfg) ?
+                List.of(false) : List.of(false, true);
+        for (String kind : List.of("worklist", "rpo", "wto")) {
+            for (boolean blocks : blockModes) {
+                NodeResult<Stmt, ProductFact> result =
+                        Solver.makeSolver(product, kind, blocks).solve(cfg);
+                for (int i = 0; i < analyses.size(); ++i) {
+                    NodeResult<Stmt, ?> expected = Solver.makeSolver(
+                            analyses.get(i), kind, blocks).solve(cfg);
+                    NodeResult<Stmt, ?> actual = product.project(result, i);
+                    for (Stmt stmt : cfg) {
+                        String message = kind + (blocks ? " blocks " : " ") +
+                                i + " " + stmt;
+                        assertEquals(message, expected.getInFact(stmt),
+                                actual.getInFact(stmt));
+                        assertEquals(message, expected.getOutFact(stmt),
+                                actual.getOutFact(stmt));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean transfersEdges(ProductAnalysis<Stmt> product, CFG<Stmt> cfg) {
+        for (Stmt stmt : cfg) {
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (product.needTransferEdge(edge)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testForwardProduct() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        assertSameAsAlone(cfg, List.of(
+                new VarAnalysis(true, false, false),
+                new VarAnalysis(true, false, true)));
+    }
+
+    @Test
+    public void testBackwardProduct() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        assertSameAsAlone(cfg, List.of(
+                new VarAnalysis(false, true, false),
+                new VarAnalysis(false, false, false),
+                new VarAnalysis(false, true, true)));
+    }
+
+    @Test
+    public void testProductWithoutEdgeTransfers() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        assertSameAsAlone(cfg, List.of(
+                new VarAnalysis(true, false, false),
+                new VarAnalysis(true, true, false)));
+        assertSameAsAlone(cfg, List.of(
+                new VarAnalysis(false, true, false),
+                new VarAnalysis(false, false, false)));
+    }
+
+    @Test
+    public void testMixedDirections() {
+        try {
+            new ProductAnalysis<>(List.of(
+                    new VarAnalysis(true, false, false),
+                    new VarAnalysis(false, true, false)));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Variables possibly defined on some path from the entry (forward),
+     * or variables possibly used on some path to the exit (backward),
+     * which are live variables if {@code kill} is true. If {@code refine}
+     * is true, the variables of the condition of an if statement are
+     * removed from the fact flowing through its true edge (false edge
+     * for backward analysis), so that the analysis transfers edges.
+     */
+    private static class VarAnalysis implements DataflowAnalysis<Stmt, SetFact<Var>> {
+
+        private final boolean forward;
+
+        private final boolean kill;
+
+        private final boolean refine;
+
+        private VarAnalysis(boolean forward, boolean kill, boolean refine) {
+            this.forward = forward;
+            this.kill = kill;
+            this.refine = refine;
+        }
+
+        @Override
+        public boolean isForward() {
+            return forward;
+        }
+
+        @Override
+        public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
+            return new SetFact<>();
+        }
+
+        @Override
+        public SetFact<Var> newInitialFact() {
+            return new SetFact<>();
+        }
+
+        @Override
+        public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+            target.union(fact);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+            if (forward) {
+                SetFact<Var> newOut = in.copy();
+                stmt.getDef().ifPresent(def -> newOut.add((Var) def));
+                if (newOut.equals(out)) {
+                    return false;
+                }
+                out.set(newOut);
+            } else {
+                SetFact<Var> newIn = out.copy();
+                if (kill) {
+                    stmt.getDef().ifPresent(def -> newIn.remove((Var) def));
+                }
+                for (RValue use : stmt.getUses()) {
+                    if (use instanceof Var var) {
+                        newIn.add(var);
+                    }
+                }
+                if (newIn.equals(in)) {
+                    return false;
+                }
+                in.set(newIn);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return refine && edge.getKind() ==
+                    (forward ? Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+        }
+
+        @Override
+        public SetFact<Var> transferEdge(Edge<Stmt> edge, SetFact<Var> nodeFact) {
+            SetFact<Var> result = nodeFact.copy();
+            for (RValue use : edge.getSource().getUses()) {
+                if (use instanceof Var var) {
+                    result.remove(var);
+                }
+            }
+            return result;
+        }
+    }
+}
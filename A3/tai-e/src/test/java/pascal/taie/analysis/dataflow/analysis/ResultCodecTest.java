@@ -0,0 +1,228 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.Analysis;
+import pascal.taie.analysis.ResultCache;
+import pascal.taie.analysis.ResultCodec;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.MapCPFact;
+import pascal.taie.analysis.dataflow.fact.BitSetKernel;
+import pascal.taie.analysis.dataflow.fact.DataflowResultCodec;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Catch;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the results decoded from {@link ResultCache} are the same
+ * as the computed ones, and which options the keys of the results cover.
+ */
+public class ResultCodecTest {
+
+    /**
+     * x = 1; c = 0; if (c == c) goto L; x = 2; L: y = x; return x;
+     */
+    private static IR buildIR() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newVar("x");
+        Var c = builder.newVar("c");
+        Var y = builder.newVar("y");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new AssignLiteral(c, IntLiteral.get(0)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.EQ, c, c)));
+        builder.add(new AssignLiteral(x, IntLiteral.get(2)));
+        Stmt use = builder.add(new Copy(y, x));
+        builder.add(new Return(x));
+        cond.setTarget(use);
+        return builder.build();
+    }
+
+    /**
+     * x = 1; return x; e = catch; return x;
+     * The catch handles the exceptions of the statements before it if
+     * {@code handled} is true.
+     */
+    private static IR buildCatch(boolean handled) {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newVar("x");
+        Var e = builder.newVar("e");
+        Stmt start = builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        Stmt end = builder.add(new Return(x));
+        Catch handler = builder.add(new Catch(e));
+        builder.add(new Return(x));
+        if (handled) {
+            builder.addExceptionEntry(start, end, handler, null);
+        }
+        return builder.build();
+    }
+
+    private static Path newCacheFile() throws IOException {
+        Path file = Files.createTempFile("tai-e-cache", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static ResultCache newCache() throws IOException {
+        return ResultCache.open(newCacheFile());
+    }
+
+    /**
+     * Caches given result, and returns the result decoded from the cache.
+     */
+    private static <R> R roundTrip(IR ir, Analysis analysis,
+                                   ResultCodec<R> codec, R result) throws IOException {
+        ResultCache cache = newCache();
+        cache.getOrAnalyze(ir, analysis, codec, () -> result);
+        return cache.getOrAnalyze(ir, analysis, codec, () -> {
+            throw new AssertionError("result is not cached");
+        });
+    }
+
+    private static <Fact> void assertSameResult(
+            IR ir, NodeResult<Stmt, Fact> expected, NodeResult<Stmt, Fact> actual) {
+        for (Stmt stmt : ir) {
+            assertEquals(expected.getInFact(stmt), actual.getInFact(stmt));
+            assertEquals(expected.getOutFact(stmt), actual.getOutFact(stmt));
+        }
+    }
+
+    private static CPFact toMap(CPFact fact) {
+        CPFact map = new MapCPFact();
+        map.copyFrom(fact);
+        return map;
+    }
+
+    @Test
+    public void testCPFactCodec() throws IOException {
+        IR ir = buildIR();
+        for (boolean packed : new boolean[]{false, true}) {
+            ConstantPropagation constprop = new ConstantPropagation(new AnalysisConfig(
+                    ConstantPropagation.ID, "sparse", true, "packed", packed));
+            NodeResult<Stmt, CPFact> result = constprop.analyze(ir);
+            NodeResult<Stmt, CPFact> decoded = roundTrip(ir, constprop,
+                    ((AbstractDataflowAnalysis<Stmt, CPFact>) constprop).getResultCodec(),
+                    result);
+            // the decoded facts may be of another implementation
+            for (Stmt stmt : ir) {
+                assertEquals(toMap(result.getInFact(stmt)), toMap(decoded.getInFact(stmt)));
+                assertEquals(toMap(result.getOutFact(stmt)), toMap(decoded.getOutFact(stmt)));
+            }
+        }
+    }
+
+    @Test
+    public void testSetFactCodec() throws IOException {
+        IR ir = buildIR();
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID));
+        NodeResult<Stmt, SetFact<Var>> result = livevar.analyze(ir);
+        assertSameResult(ir, result, roundTrip(ir, livevar,
+                new DataflowResultCodec<>(new GenKillAnalysis.SetFactCodec<>(
+                        ir.getVars(), BitSetKernel.scalar())),
+                result));
+    }
+
+    @Test
+    public void testDeadCodeCodec() throws IOException {
+        IR ir = buildIR();
+        DeadCodeDetection deadcode = new DeadCodeDetection(
+                new AnalysisConfig(DeadCodeDetection.ID, "fused", true));
+        Set<Stmt> result = deadcode.analyze(ir);
+        // the unreachable x = 2 and the dead y = x
+        assertEquals(Set.of(ir.getStmt(3), ir.getStmt(4)), result);
+        assertEquals(result, roundTrip(ir, deadcode,
+                new DeadCodeDetection.DeadCodeCodec(), result));
+    }
+
+    /**
+     * @return true if the result of given analysis on given IR is taken
+     * from the cache.
+     */
+    private static boolean isCached(ResultCache cache, IR ir, LiveVariableAnalysis livevar) {
+        AtomicBoolean analyzed = new AtomicBoolean();
+        cache.getOrAnalyze(ir, livevar, new DataflowResultCodec<>(
+                        new GenKillAnalysis.SetFactCodec<>(ir.getVars(), BitSetKernel.scalar())),
+                () -> {
+                    analyzed.set(true);
+                    return livevar.analyze(ir);
+                });
+        return !analyzed.get();
+    }
+
+    @Test
+    public void testKeys() throws IOException {
+        IR ir = buildIR();
+        ResultCache cache = newCache();
+        assertFalse(isCached(cache, ir, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID))));
+        // the paths do not affect the results
+        assertTrue(isCached(cache, ir, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID,
+                        "cache", newCacheFile().toString()))));
+        // the solving options do not affect the results
+        assertTrue(isCached(cache, ir, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "vector", true,
+                        "solver", "wto", "blocks", true, "in-facts-only", true))));
+        // the options of the analysis do
+        assertFalse(isCached(cache, ir, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", true))));
+        // the exception entries of the IR affect the results
+        ResultCache catchCache = newCache();
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID));
+        assertFalse(isCached(catchCache, buildCatch(false), livevar));
+        assertFalse(isCached(catchCache, buildCatch(true), livevar));
+        assertTrue(isCached(catchCache, buildCatch(true), livevar));
+        // a new version of the analysis does not reuse the results
+        assertFalse(isCached(cache, ir, new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID)) {
+            @Override
+            public int getSemanticsVersion() {
+                return super.getSemanticsVersion() + 1;
+            }
+        }));
+    }
+}
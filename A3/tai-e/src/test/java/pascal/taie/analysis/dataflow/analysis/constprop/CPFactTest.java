@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CPFactTest {
+
+    private static List<Var> newVars(int n) {
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        return vars;
+    }
+
+    @Test
+    public void testCopyBetweenImplementations() {
+        List<Var> vars = newVars(3);
+        PackedCPFact packed = new PackedCPFact(vars);
+        packed.update(vars.get(0), Value.makeConstant(1));
+        packed.update(vars.get(2), Value.getNAC());
+        CPFact map = new MapCPFact();
+        assertTrue(map.copyFrom(packed));
+        assertEquals(Value.makeConstant(1), map.get(vars.get(0)));
+        assertEquals(Value.getUndef(), map.get(vars.get(1)));
+        assertEquals(Value.getNAC(), map.get(vars.get(2)));
+        assertFalse(map.copyFrom(packed));
+
+        PackedCPFact packed2 = new PackedCPFact(vars);
+        assertTrue(packed2.copyFrom(map));
+        assertEquals(packed, packed2);
+        assertEquals(Set.of(vars.get(0), vars.get(2)), packed2.keySet());
+    }
+
+    @Test
+    public void testUpdateUndefRemoves() {
+        List<Var> vars = newVars(2);
+        for (CPFact fact : List.of(new MapCPFact(), new PackedCPFact(vars))) {
+            assertTrue(fact.update(vars.get(1), Value.makeConstant(3)));
+            assertFalse(fact.update(vars.get(1), Value.makeConstant(3)));
+            assertTrue(fact.update(vars.get(1), Value.getUndef()));
+            assertTrue(fact.keySet().isEmpty());
+        }
+    }
+
+    /**
+     * Checks that evaluation on packed values agrees with the one
+     * on {@link Value}s for all operators.
+     */
+    @Test
+    public void testPackedEvaluation() {
+        List<Value> values = List.of(Value.getUndef(), Value.getNAC(),
+                Value.makeConstant(0), Value.makeConstant(-7),
+                Value.makeConstant(3), Value.makeConstant(Integer.MIN_VALUE));
+        List<Opcode> ops = new ArrayList<>(List.of(Opcode.values()));
+        ops.add(null);
+        for (Opcode op : ops) {
+            for (Value v1 : values) {
+                for (Value v2 : values) {
+                    Value expected = ConstantPropagation.evaluate(op, v1, v2);
+                    long packed = PackedCPFact.evaluate(op,
+                            PackedCPFact.pack(v1), PackedCPFact.pack(v2));
+                    assertEquals(op + " " + v1 + " " + v2,
+                            expected, PackedCPFact.unpack(packed));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTransferKeepsBoundaryValues() {
+        List<Var> vars = newVars(3);
+        PackedCPFact in = new PackedCPFact(vars);
+        in.update(vars.get(0), Value.makeConstant(1));
+        PackedCPFact out = new PackedCPFact(vars);
+        out.update(vars.get(1), Value.getNAC());
+        assertTrue(out.transfer(in, 2, PackedCPFact.pack(5)));
+        assertEquals(Value.makeConstant(1), out.get(vars.get(0)));
+        assertEquals(Value.getNAC(), out.get(vars.get(1)));
+        assertEquals(Value.makeConstant(5), out.get(vars.get(2)));
+        assertFalse(out.transfer(in, 2, PackedCPFact.pack(5)));
+    }
+
+    /**
+     * Checks that compiled evaluators agree on packed and map facts.
+     */
+    @Test
+    public void testCompiledEvaluation() {
+        List<Var> vars = newVars(3);
+        PackedCPFact packed = new PackedCPFact(vars);
+        packed.update(vars.get(0), Value.makeConstant(6));
+        packed.update(vars.get(1), Value.makeConstant(0));
+        packed.update(vars.get(2), Value.getNAC());
+        CPFact map = new MapCPFact();
+        map.copyFrom(packed);
+        List<Exp> exps = List.of(vars.get(0), IntLiteral.get(4),
+                new ArithmeticExp(ArithmeticExp.Op.MUL, vars.get(0), vars.get(0)),
+                new ArithmeticExp(ArithmeticExp.Op.DIV, vars.get(2), vars.get(1)),
+                new ArithmeticExp(ArithmeticExp.Op.ADD, vars.get(0), vars.get(2)));
+        for (Exp exp : exps) {
+            Evaluator evaluator = Evaluators.compile(exp);
+            Value expected = ConstantPropagation.evaluate(exp, map);
+            assertEquals(exp.toString(), expected, evaluator.evaluate(map));
+            assertEquals(exp.toString(), expected, evaluator.evaluate(packed));
+            assertEquals(exp.toString(), PackedCPFact.pack(expected),
+                    evaluator.evaluatePacked(packed));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConstantPropagationTest {
+
+    /**
+     * x = 1; y = x + x; if (p > y) goto L; x = 3; L: z = x + y; return z;
+     */
+    private static IR buildBranch() {
+        return buildBranch(newBuilder(), 3);
+    }
+
+    /**
+     * @return a builder of new variables p, x, y and z.
+     */
+    private static TestIRBuilder newBuilder() {
+        TestIRBuilder builder = new TestIRBuilder();
+        builder.newParam("p");
+        builder.newVar("x");
+        builder.newVar("y");
+        builder.newVar("z");
+        return builder;
+    }
+
+    /**
+     * x = 1; y = x + x; if (p > y) goto L; x = value; L: z = x + y; return z;
+     */
+    private static IR buildBranch(TestIRBuilder builder, int value) {
+        Var p = builder.getVar("p");
+        Var x = builder.getVar("x");
+        Var y = builder.getVar("y");
+        Var z = builder.getVar("z");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new Binary(y, new ArithmeticExp(ArithmeticExp.Op.ADD, x, x)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.GT, p, y)));
+        builder.add(new AssignLiteral(x, IntLiteral.get(value)));
+        Stmt join = builder.add(new Binary(z, new ArithmeticExp(ArithmeticExp.Op.ADD, x, y)));
+        builder.add(new Return(z));
+        cond.setTarget(join);
+        return builder.build();
+    }
+
+    /**
+     * Solves with the data-flow solver, whose transfers use the evaluators
+     * compiled for the IR; the variables of the IR have no method.
+     */
+    @Test
+    public void testDenseSolving() {
+        for (boolean packed : List.of(false, true)) {
+            IR ir = buildBranch();
+            ConstantPropagation cp = new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID, "packed", packed));
+            NodeResult<Stmt, CPFact> result = cp.analyze(ir);
+            Var p = ir.getParams().get(0);
+            Var x = ir.getVar(1);
+            Var y = ir.getVar(2);
+            Var z = ir.getVar(3);
+            Stmt join = ir.getStmt(4);
+            assertEquals(Value.getNAC(), result.getInFact(ir.getStmt(0)).get(p));
+            assertEquals(Value.makeConstant(2), result.getOutFact(ir.getStmt(1)).get(y));
+            assertEquals(Value.makeConstant(3), result.getOutFact(ir.getStmt(3)).get(x));
+            assertEquals(Value.getNAC(), result.getInFact(join).get(x));
+            assertEquals(Value.makeConstant(2), result.getInFact(join).get(y));
+            assertEquals(Value.getNAC(), result.getOutFact(join).get(z));
+        }
+    }
+
+    /**
+     * Transfers a statement outside the solvers, where the evaluator
+     * of its expression is compiled on the fly.
+     */
+    @Test
+    public void testTransferNode() {
+        IR ir = buildBranch();
+        ConstantPropagation cp = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID));
+        Var x = ir.getVar(1);
+        Var y = ir.getVar(2);
+        CPFact in = cp.newInitialFact();
+        in.update(x, Value.makeConstant(1));
+        CPFact out = cp.newInitialFact();
+        assertTrue(cp.transferNode(ir.getStmt(1), in, out));
+        assertEquals(Value.makeConstant(2), out.get(y));
+        assertEquals(Value.makeConstant(1), out.get(x));
+    }
+
+    /**
+     * Re-analyzes an edit of the IR which assigns 1 instead of 3 to x
+     * before the join, built on the variables of the previous IR, whose
+     * result is reused, and built on new variables of the same names
+     * and indexes, which are analyzed from scratch.
+     */
+    @Test
+    public void testReanalyze() {
+        for (boolean packed : List.of(false, true)) {
+            ConstantPropagation cp = new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID, "packed", packed));
+            IR previousIR = buildBranch();
+            NodeResult<Stmt, CPFact> previous = cp.analyze(previousIR);
+            for (IR ir : List.of(buildBranch(new TestIRBuilder(previousIR), 1),
+                    buildBranch(newBuilder(), 1))) {
+                NodeResult<Stmt, CPFact> result = cp.reanalyze(ir, previousIR, previous);
+                NodeResult<Stmt, CPFact> expected = cp.analyze(ir);
+                for (Stmt stmt : ir) {
+                    assertEquals(expected.getInFact(stmt), result.getInFact(stmt));
+                    assertEquals(expected.getOutFact(stmt), result.getOutFact(stmt));
+                }
+                Stmt join = ir.getStmt(4);
+                assertEquals(Value.makeConstant(1), result.getInFact(join).get(ir.getVar(1)));
+                assertEquals(Value.makeConstant(3), result.getOutFact(join).get(ir.getVar(3)));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SCCPTest {
+
+    private static SCCP.Result solve(IR ir) {
+        ConstantPropagation cp = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID));
+        return cp.solveSparse(ir.getResult(CFGBuilder.ID));
+    }
+
+    /**
+     * x = 1; c = 0; if (c != c) goto L; x = 2; L: y = x;
+     */
+    @Test
+    public void testDefinitionOnlyReachingThroughDeadEdge() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newVar("x");
+        Var c = builder.newVar("c");
+        Var y = builder.newVar("y");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new AssignLiteral(c, IntLiteral.get(0)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.NE, c, c)));
+        Stmt redef = builder.add(new AssignLiteral(x, IntLiteral.get(2)));
+        Stmt use = builder.add(new Copy(y, x));
+        builder.add(new Return());
+        cond.setTarget(use);
+        IR ir = builder.build();
+
+        SCCP.Result result = solve(ir);
+        assertTrue(result.isExecutable(redef));
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(cond)) {
+            assertEquals(edge.getKind() == Edge.Kind.IF_FALSE,
+                    result.isExecutable(edge));
+        }
+        assertEquals(Value.makeConstant(2), result.getInFact(use).get(x));
+        assertEquals(Value.makeConstant(2), result.getOutFact(use).get(y));
+    }
+
+    /**
+     * x = 1; i = p; L: if (i > x) goto E; x = 1; goto L; E: y = x;
+     */
+    @Test
+    public void testLoop() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var p = builder.newParam("p");
+        Var x = builder.newVar("x");
+        Var i = builder.newVar("i");
+        Var y = builder.newVar("y");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new Copy(i, p));
+        If head = builder.add(new If(new ConditionExp(ConditionExp.Op.GT, i, x)));
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        Goto back = builder.add(new Goto());
+        Stmt use = builder.add(new Copy(y, x));
+        builder.add(new Return());
+        head.setTarget(use);
+        back.setTarget(head);
+        IR ir = builder.build();
+
+        SCCP.Result result = solve(ir);
+        assertEquals(Value.getNAC(), result.getInFact(head).get(i));
+        assertEquals(Value.makeConstant(1), result.getOutFact(use).get(y));
+    }
+
+    /**
+     * x = 1; if (p > x) goto L; x = 2; L: y = x; return; z = 3;
+     */
+    @Test
+    public void testUnknownCondition() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var p = builder.newParam("p");
+        Var x = builder.newVar("x");
+        Var y = builder.newVar("y");
+        Var z = builder.newVar("z");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        If cond = builder.add(new If(new ConditionExp(ConditionExp.Op.GT, p, x)));
+        builder.add(new AssignLiteral(x, IntLiteral.get(2)));
+        Stmt use = builder.add(new Copy(y, x));
+        builder.add(new Return());
+        Stmt dead = builder.add(new AssignLiteral(z, IntLiteral.get(3)));
+        cond.setTarget(use);
+        IR ir = builder.build();
+
+        SCCP.Result result = solve(ir);
+        assertEquals(Value.getNAC(), result.getOutFact(use).get(y));
+        assertFalse(result.isExecutable(dead));
+        assertTrue(result.getOutFact(dead).keySet().isEmpty());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the vector kernel computes the same words and the same
+ * changed flags as the scalar kernel on random words. The lengths cover
+ * the words which do not fill a whole vector, which are processed by
+ * the scalar tail loops of the vector kernel.
+ */
+public class BitSetKernelTest {
+
+    private static final int ROUNDS = 2000;
+
+    /**
+     * Longest word array, which spans a few vectors of the widest species.
+     */
+    private static final int MAX_WORDS = 40;
+
+    private final BitSetKernel scalar = BitSetKernel.scalar();
+
+    private final BitSetKernel vector = BitSetKernel.vector();
+
+    @Test
+    public void testVectorKernelIsLoaded() {
+        // the tests run with module jdk.incubator.vector
+        assertNotSame(scalar, vector);
+    }
+
+    @Test
+    public void testOr() {
+        Random random = new Random(0);
+        for (int r = 0; r < ROUNDS; ++r) {
+            long[] words = randomWords(random, random.nextInt(MAX_WORDS + 1));
+            // or() works on the first other.length words
+            long[] other = randomWords(random, random.nextInt(words.length + 1));
+            long[] expected = words.clone();
+            long[] actual = words.clone();
+            assertEquals(scalar.or(expected, other), vector.or(actual, other));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testAnd() {
+        Random random = new Random(1);
+        for (int r = 0; r < ROUNDS; ++r) {
+            long[] words = randomWords(random, random.nextInt(MAX_WORDS + 1));
+            long[] other = randomWords(random, random.nextInt(MAX_WORDS + 1));
+            long[] expected = words.clone();
+            long[] actual = words.clone();
+            assertEquals(scalar.and(expected, other), vector.and(actual, other));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testAndNot() {
+        Random random = new Random(2);
+        for (int r = 0; r < ROUNDS; ++r) {
+            long[] words = randomWords(random, random.nextInt(MAX_WORDS + 1));
+            long[] other = randomWords(random, random.nextInt(MAX_WORDS + 1));
+            long[] expected = words.clone();
+            long[] actual = words.clone();
+            assertEquals(scalar.andNot(expected, other), vector.andNot(actual, other));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testGenKill() {
+        Random random = new Random(3);
+        for (int r = 0; r < ROUNDS; ++r) {
+            int n = random.nextInt(MAX_WORDS + 1);
+            long[] words = randomWords(random, n);
+            long[] fact = randomWords(random, n);
+            long[] gen = random.nextBoolean() ? randomWords(random, n) : null;
+            long[] kill = random.nextBoolean() ? randomWords(random, n) : null;
+            long[] expected = words.clone();
+            long[] actual = words.clone();
+            assertEquals(scalar.genKill(expected, fact, gen, kill),
+                    vector.genKill(actual, fact, gen, kill));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testUnchangedWords() {
+        Random random = new Random(4);
+        for (int n = 0; n <= MAX_WORDS; ++n) {
+            long[] words = randomWords(random, n);
+            // a change in the last word is only seen by the tail loop
+            // when n is not a multiple of the vector length
+            long[] tail = words.clone();
+            if (n > 0) {
+                tail[n - 1] = ~tail[n - 1];
+            }
+            assertEquals(scalar.or(words.clone(), words), vector.or(words.clone(), words));
+            assertEquals(scalar.or(words.clone(), tail), vector.or(words.clone(), tail));
+            assertEquals(scalar.and(words.clone(), words), vector.and(words.clone(), words));
+            assertEquals(scalar.and(words.clone(), tail), vector.and(words.clone(), tail));
+            assertEquals(scalar.genKill(words.clone(), words, null, null),
+                    vector.genKill(words.clone(), words, null, null));
+            assertEquals(scalar.genKill(words.clone(), tail, null, null),
+                    vector.genKill(words.clone(), tail, null, null));
+        }
+    }
+
+    @Test
+    public void testTailWordMasking() {
+        Random random = new Random(5);
+        for (int size = 1; size <= MAX_WORDS * 64; size += 1 + random.nextInt(97)) {
+            List<Element> universe = universe(size);
+            BitSetFact<Element> full = new BitSetFact<>(universe, vector);
+            full.fill();
+            assertEquals(size, full.size());
+            BitSetFact<Element> scalarFact = randomFact(random, universe, scalar);
+            BitSetFact<Element> vectorFact = new BitSetFact<>(universe, vector);
+            vectorFact.set(scalarFact);
+            // no operation sets the bits beyond the universe
+            assertEquals(scalarFact.union(full), vectorFact.union(full));
+            assertEquals(size, vectorFact.size());
+            BitSetFact<Element> kill = randomFact(random, universe, scalar);
+            assertEquals(scalarFact.setGenKill(full, null, kill),
+                    vectorFact.setGenKill(full, null, kill));
+            assertEquals(scalarFact, vectorFact);
+            assertTrue(vectorFact.size() <= size);
+            assertEquals(scalarFact.intersect(kill), vectorFact.intersect(kill));
+            assertEquals(scalarFact.difference(full), vectorFact.difference(full));
+            assertTrue(vectorFact.isEmpty());
+        }
+    }
+
+    private static long[] randomWords(Random random, int n) {
+        long[] words = new long[n];
+        for (int i = 0; i < n; ++i) {
+            // sparse, dense and random words
+            words[i] = switch (random.nextInt(4)) {
+                case 0 -> 0L;
+                case 1 -> -1L;
+                default -> random.nextLong();
+            };
+        }
+        return words;
+    }
+
+    private static BitSetFact<Element> randomFact(
+            Random random, List<Element> universe, BitSetKernel kernel) {
+        BitSetFact<Element> fact = new BitSetFact<>(universe, kernel);
+        universe.forEach(e -> {
+            if (random.nextBoolean()) {
+                fact.add(e);
+            }
+        });
+        return fact;
+    }
+
+    private static List<Element> universe(int size) {
+        List<Element> universe = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            universe.add(new Element(i));
+        }
+        return universe;
+    }
+
+    private record Element(int index) implements Indexable {
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DataflowResultTest {
+
+    @Test
+    public void testRebuiltOutFactIsCached() {
+        DataflowResult<String, List<String>> result = new DataflowResult<>();
+        result.setInFact("a", List.of("in-a"));
+        result.setInFact("b", List.of("in-b"));
+        result.setOutFact("a", List.of("out-a"));
+        List<String> built = new ArrayList<>();
+        result.discardOutFacts(node -> {
+            built.add(node);
+            return List.of("rebuilt-" + node);
+        });
+        List<String> out = result.getOutFact("a");
+        assertEquals(List.of("rebuilt-a"), out);
+        assertSame(out, result.getOutFact("a"));
+        assertEquals(List.of("rebuilt-b"), result.getOutFact("b"));
+        assertEquals(List.of("rebuilt-a"), result.getOutFact("a"));
+        assertEquals(List.of("a", "b", "a"), built);
+        assertEquals(List.of("in-a"), result.getInFact("a"));
+    }
+}
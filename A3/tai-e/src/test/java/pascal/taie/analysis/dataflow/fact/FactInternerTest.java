@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FactInternerTest {
+
+    @Test
+    public void testEqualFactsShareInstance() {
+        FactInterner<SetFact<String>> interner = new FactInterner<>();
+        SetFact<String> ab = new SetFact<>(List.of("a", "b"));
+        SetFact<String> ba = new SetFact<>(List.of("b", "a"));
+        SetFact<String> c = new SetFact<>(List.of("c"));
+        assertSame(ab, interner.intern(ab));
+        assertSame(ab, interner.intern(ba));
+        assertSame(c, interner.intern(c));
+        assertSame(ab, interner.intern(ab));
+        assertNull(interner.intern(null));
+        assertEquals(4, interner.getRequests());
+        assertEquals(2, interner.getUniqueFacts());
+        assertEquals(0.5, interner.getDedupRatio(), 0);
+        assertEquals("4 facts -> 2 unique facts (dedup ratio 0.50)",
+                interner.toString());
+    }
+
+    @Test
+    public void testEmptyInterner() {
+        FactInterner<SetFact<String>> interner = new FactInterner<>();
+        assertEquals(0, interner.getRequests());
+        assertEquals(0, interner.getUniqueFacts());
+        assertEquals(0, interner.getDedupRatio(), 0);
+    }
+
+    @Test
+    public void testStatistics() {
+        FactInterner.Statistics statistics = new FactInterner.Statistics();
+        for (int n : List.of(1, 3)) {
+            FactInterner<SetFact<String>> interner = new FactInterner<>();
+            for (int i = 0; i < n; ++i) {
+                interner.intern(new SetFact<>(List.of("a")));
+            }
+            interner.intern(new SetFact<>(List.of("b")));
+            statistics.record(interner);
+        }
+        assertEquals(6, statistics.getRequests());
+        assertEquals(4, statistics.getUniqueFacts());
+        assertEquals(1 - 4.0 / 6, statistics.getDedupRatio(), 1e-9);
+    }
+
+    @Test
+    public void testCheckedInternerDetectsModification() {
+        FactInterner<SetFact<String>> interner = new FactInterner<>(true);
+        assertTrue(interner.isChecked());
+        SetFact<String> fact = interner.intern(new SetFact<>(List.of("a")));
+        SetFact<String> other = new SetFact<>(List.of("b"));
+        assertTrue(interner.isUnmodified(fact));
+        fact.add("c");
+        assertFalse(interner.isUnmodified(fact));
+        // facts which are not canonical facts of the interner are not checked
+        other.add("c");
+        assertTrue(interner.isUnmodified(other));
+        // an unchecked interner does not detect modifications
+        FactInterner<SetFact<String>> unchecked = new FactInterner<>();
+        assertFalse(unchecked.isChecked());
+        SetFact<String> uncheckedFact = unchecked.intern(new SetFact<>(List.of("a")));
+        uncheckedFact.add("c");
+        assertTrue(unchecked.isUnmodified(uncheckedFact));
+    }
+
+    @Test
+    public void testInternedResult() {
+        DataflowResult<String, SetFact<String>> result = new DataflowResult<>();
+        result.setInFact("x", new SetFact<>(List.of("a")));
+        result.setOutFact("x", new SetFact<>(List.of("a", "b")));
+        result.setInFact("y", new SetFact<>(List.of("a", "b")));
+        result.setOutFact("y", new SetFact<>(List.of("a", "b")));
+        FactInterner<SetFact<String>> interner = new FactInterner<>(true);
+        result.intern(interner);
+        assertSame(result.getOutFact("x"), result.getInFact("y"));
+        assertSame(result.getOutFact("x"), result.getOutFact("y"));
+        assertNotSame(result.getInFact("x"), result.getInFact("y"));
+        assertEquals(4, interner.getRequests());
+        assertEquals(2, interner.getUniqueFacts());
+    }
+
+    @Test
+    public void testModifiedFactOfResultFailsAssertion() {
+        DataflowResult<String, SetFact<String>> result = new DataflowResult<>();
+        result.setInFact("x", new SetFact<>(List.of("a")));
+        result.setInFact("y", new SetFact<>(List.of("a")));
+        result.intern(new FactInterner<>(true));
+        // modifying the fact of x also modifies the shared fact of y
+        result.getInFact("x").add("b");
+        boolean failed = false;
+        try {
+            result.getInFact("y");
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        // the modification is caught when assertions are enabled
+        assertEquals(DataflowResult.class.desiredAssertionStatus(), failed);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResultQueryTest {
+
+    /**
+     * x = 1; y = x; x = x + y; z = y; return x;
+     */
+    private static IR buildIR() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newVar("x");
+        Var y = builder.newVar("y");
+        Var z = builder.newVar("z");
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new Copy(y, x));
+        builder.add(new Binary(x, new ArithmeticExp(ArithmeticExp.Op.ADD, x, y)));
+        builder.add(new Copy(z, y));
+        builder.add(new Return(x));
+        return builder.build();
+    }
+
+    private static List<Stmt> visited(ResultQuery<?> query) {
+        List<Stmt> stmts = new ArrayList<>();
+        query.forEach(cursor -> stmts.add(cursor.getStmt()));
+        return stmts;
+    }
+
+    private static List<Stmt> stmts(IR ir, int... indexes) {
+        List<Stmt> stmts = new ArrayList<>();
+        for (int i : indexes) {
+            stmts.add(ir.getStmt(i));
+        }
+        return stmts;
+    }
+
+    @Test
+    public void testOrder() {
+        IR ir = buildIR();
+        CountingResult result = new CountingResult();
+        assertEquals(ir.getStmts(), visited(ResultQuery.of(ir, result)));
+        assertEquals(ir.getStmts().size(), ResultQuery.of(ir, result).count());
+    }
+
+    @Test
+    public void testRelatedTo() {
+        IR ir = buildIR();
+        Var x = ir.getVar(0), y = ir.getVar(1), z = ir.getVar(2);
+        CountingResult result = new CountingResult();
+        // x = x + y both defines and uses x, and is visited once
+        assertEquals(stmts(ir, 0, 1, 2, 4),
+                visited(ResultQuery.of(ir, result).relatedTo(x)));
+        assertEquals(stmts(ir, 1, 2, 3),
+                visited(ResultQuery.of(ir, result).relatedTo(y)));
+        assertEquals(stmts(ir, 3),
+                visited(ResultQuery.of(ir, result).relatedTo(z)));
+        assertEquals(stmts(ir, 1, 2),
+                visited(ResultQuery.of(ir, result).relatedTo(x).relatedTo(y)));
+    }
+
+    @Test
+    public void testOfKind() {
+        IR ir = buildIR();
+        Var x = ir.getVar(0);
+        CountingResult result = new CountingResult();
+        assertEquals(stmts(ir, 1, 3),
+                visited(ResultQuery.of(ir, result).ofKind(Copy.class)));
+        assertEquals(stmts(ir, 1),
+                visited(ResultQuery.of(ir, result).ofKind(Copy.class).relatedTo(x)));
+        assertEquals(stmts(ir, 1),
+                visited(ResultQuery.of(ir, result).relatedTo(x).ofKind(Copy.class)));
+        assertEquals(0, ResultQuery.of(ir, result).ofKind(Binary.class)
+                .filter(stmt -> stmt.getIndex() < 2).count());
+    }
+
+    @Test
+    public void testLazyFacts() {
+        IR ir = buildIR();
+        CountingResult result = new CountingResult();
+        ResultQuery.of(ir, result).count();
+        assertEquals(0, result.fetches);
+        ResultQuery.of(ir, result).forEach(cursor -> {
+            // each fact is fetched once per statement
+            assertSame(cursor.getInFact(), cursor.getInFact());
+            assertSame(cursor.getOutFact(), cursor.getOutFact());
+        });
+        assertEquals(2 * ir.getStmts().size(), result.fetches);
+        // no fact is converted to string unless the cursor is printed
+        assertEquals(0, result.toStrings);
+    }
+
+    @Test
+    public void testPrint() {
+        IR ir = buildIR();
+        Var y = ir.getVar(1);
+        CountingResult result = new CountingResult();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResultQuery.of(ir, result).relatedTo(y).print(new PrintStream(bytes));
+        StringBuilder expected = new StringBuilder();
+        for (Stmt stmt : stmts(ir, 1, 2, 3)) {
+            expected.append(IRPrinter.toString(stmt)).append(" out")
+                    .append(System.lineSeparator());
+        }
+        assertEquals(expected.toString(), bytes.toString());
+        assertEquals(3, result.toStrings);
+    }
+
+    /**
+     * Result which creates a fact at every fetch,
+     * and counts the fetches and the conversions of facts to strings.
+     */
+    private static class CountingResult implements NodeResult<Stmt, Object> {
+
+        private int fetches;
+
+        private int toStrings;
+
+        @Override
+        public Object getInFact(Stmt stmt) {
+            return newFact("in");
+        }
+
+        @Override
+        public Object getOutFact(Stmt stmt) {
+            return newFact("out");
+        }
+
+        private Object newFact(String name) {
+            ++fetches;
+            return new Object() {
+                @Override
+                public String toString() {
+                    ++toStrings;
+                    return name;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.util.Indexable;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SetFactTest {
+
+    @Test
+    public void testNewFactIsModifiable() {
+        SetFact<String> fact = new SetFact<>();
+        assertTrue(fact.add("a"));
+        assertTrue(fact.contains("a"));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        SetFact<String> fact = new SetFact<>(List.of("a", "b"));
+        SetFact<String> copy = fact.copy();
+        assertEquals(fact, copy);
+        copy.add("c");
+        fact.remove("a");
+        assertFalse(fact.contains("c"));
+        assertTrue(copy.contains("a"));
+        assertEquals(3, copy.size());
+    }
+
+    @Test
+    public void testEqualsAcrossImplementations() {
+        List<Element> universe = List.of(new Element(0), new Element(1), new Element(2));
+        BitSetFact<Element> bits = new BitSetFact<>(universe);
+        bits.add(universe.get(0));
+        bits.add(universe.get(2));
+        SetFact<Element> set = new SetFact<>(List.of(universe.get(2), universe.get(0)));
+        assertEquals(set, bits);
+        assertEquals(bits, set);
+        assertEquals(set.hashCode(), bits.hashCode());
+        // facts over an equal universe which is not the same list
+        BitSetFact<Element> other = new BitSetFact<>(List.copyOf(universe));
+        other.union(set);
+        assertEquals(bits, other);
+        assertEquals(bits.hashCode(), other.hashCode());
+        set.add(universe.get(1));
+        assertNotEquals(set, bits);
+        assertNotEquals(bits, set);
+    }
+
+    private record Element(int index) implements Indexable {
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReversePostOrderQueueTest {
+
+    /**
+     * @return the name of given node, i.e., entry, exit or its index.
+     */
+    static String nameOf(CFG<Stmt> cfg, Stmt node) {
+        return cfg.isEntry(node) ? "entry" :
+                cfg.isExit(node) ? "exit" : String.valueOf(node.getIndex());
+    }
+
+    /**
+     * @return the number of nodes visited by the solver of given kind
+     * when solving {@link SolverTest.VarAnalysis} on given CFG.
+     */
+    static long countIterations(CFG<Stmt> cfg, String kind, boolean forward)
+            throws IOException {
+        Path file = Files.createTempFile("tai-e-metrics", ".json");
+        file.toFile().deleteOnExit();
+        SolverMetrics metrics = new SolverMetrics(file);
+        metrics.solve("test", Solver.makeSolver(
+                new SolverTest.VarAnalysis(forward), kind), cfg, false);
+        return metrics.getMethodMetrics().get(0).iterations();
+    }
+
+    @Test
+    public void testReversePostOrderOfNestedLoops() {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        // the statements in program order, as the loops are well-structured
+        assertEquals(List.of("entry", "0", "1", "2", "3", "4", "5", "6", "7",
+                        "8", "9", "10", "11", "12", "13", "14", "exit"),
+                ReversePostOrderQueue.reversePostOrder(cfg, true)
+                        .stream().map(node -> nameOf(cfg, node)).toList());
+        // each loop head precedes its body on the reverse CFG
+        assertEquals(List.of("exit", "14", "3", "13", "12", "11", "10", "5",
+                        "9", "8", "7", "6", "4", "2", "1", "0", "entry"),
+                ReversePostOrderQueue.reversePostOrder(cfg, false)
+                        .stream().map(node -> nameOf(cfg, node)).toList());
+    }
+
+    @Test
+    public void testPollsInReversePostOrder() {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        List<Stmt> order = ReversePostOrderQueue.reversePostOrder(cfg, true);
+        ReversePostOrderQueue<Stmt> queue = new ReversePostOrderQueue<>(cfg, true);
+        assertTrue(queue.add(order.get(9)));
+        assertTrue(queue.add(order.get(4)));
+        // adding a pending node has no effect
+        assertFalse(queue.add(order.get(9)));
+        assertEquals(2, queue.size());
+        assertEquals(order.get(4), queue.poll());
+        // a node before the polled ones is still polled first
+        assertTrue(queue.add(order.get(1)));
+        assertEquals(order.get(1), queue.poll());
+        assertEquals(order.get(9), queue.poll());
+        assertNull(queue.poll());
+        queue.addAllNodes();
+        assertEquals(order.size(), queue.size());
+        for (Stmt node : order) {
+            assertEquals(node, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testIterationsOfNestedLoops() throws IOException {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        // each node is visited once, plus the revisits of the loops
+        assertEquals(22, countIterations(cfg, "rpo", true));
+        assertEquals(21, countIterations(cfg, "rpo", false));
+        for (boolean forward : List.of(true, false)) {
+            assertTrue(countIterations(cfg, "rpo", forward) <=
+                    countIterations(cfg, "worklist", forward));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.FactInterner;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SolverMetricsTest {
+
+    private static Path newMetricsFile() throws IOException {
+        Path file = Files.createTempFile("tai-e-metrics", ".json");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Checks that the recorded calls are the ones that the solvers make,
+     * and that the largest fact is the largest one of the result.
+     */
+    @Test
+    public void testCounts() throws IOException {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        for (boolean forward : List.of(true, false)) {
+            for (String kind : List.of("worklist", "rpo", "wto")) {
+                for (boolean blocks : List.of(false, true)) {
+                    for (int parallelThreshold : List.of(0, 1)) {
+                        CountingAnalysis analysis = new CountingAnalysis(
+                                new SolverTest.VarAnalysis(forward));
+                        SolverMetrics metrics = new SolverMetrics(newMetricsFile());
+                        NodeResult<Stmt, SetFact<Var>> result = metrics.solve("test",
+                                Solver.makeSolver(analysis, kind, blocks, parallelThreshold),
+                                cfg, false);
+                        long transfers = analysis.transfers.get();
+                        long meets = analysis.meets.get();
+                        SolverMetrics.MethodMetrics m = metrics.getMethodMetrics().get(0);
+                        assertEquals(cfg.getNumberOfNodes(), m.nodes());
+                        assertEquals(transfers, m.transfers());
+                        assertEquals(meets, m.meets());
+                        if (blocks) {
+                            // each iteration visits a block of one or more nodes
+                            assertTrue(m.iterations() > 0 && m.iterations() <= transfers);
+                        } else {
+                            assertEquals(transfers, m.iterations());
+                        }
+                        int maxFactSize = 0;
+                        for (Stmt stmt : cfg) {
+                            maxFactSize = Math.max(maxFactSize, Math.max(
+                                    result.getInFact(stmt).size(),
+                                    result.getOutFact(stmt).size()));
+                        }
+                        assertEquals(maxFactSize, m.maxFactSize());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        CFG<Stmt> cfg = SolverTest.buildLoop().getResult(CFGBuilder.ID);
+        Path file = newMetricsFile();
+        SolverMetrics metrics = new SolverMetrics(file);
+        metrics.solve("forward", Solver.makeSolver(
+                new SolverTest.VarAnalysis(true)), cfg, false);
+        metrics.solve("backward", Solver.makeSolver(
+                new SolverTest.VarAnalysis(false)), cfg, false);
+        metrics.solve("backward", Solver.makeSolver(
+                new SolverTest.VarAnalysis(false), "wto"), cfg, true);
+        metrics.export();
+
+        JsonNode json = new ObjectMapper().readTree(file.toFile());
+        JsonNode backward = json.get("analyses").get("backward");
+        assertEquals(2, backward.get("methods").asInt());
+        SolverMetrics.AnalysisMetrics expected =
+                metrics.getAnalysisMetrics().get("backward");
+        assertEquals(expected.transfers(), backward.get("transfers").asLong());
+        assertEquals(expected.iterations(), backward.get("iterations").asLong());
+        assertEquals(expected.meets(), backward.get("meets").asLong());
+        assertEquals(expected.maxFactSize(), backward.get("maxFactSize").asInt());
+        assertEquals(1, json.get("analyses").get("forward").get("methods").asInt());
+        // the methods are listed from the slowest one
+        JsonNode methods = json.get("methods");
+        assertEquals(3, methods.size());
+        for (int i = 1; i < methods.size(); ++i) {
+            assertTrue(methods.get(i - 1).get("nanos").asLong() >=
+                    methods.get(i).get("nanos").asLong());
+        }
+        for (JsonNode method : methods) {
+            assertEquals(cfg.getNumberOfNodes(), method.get("nodes").asInt());
+            assertTrue(method.get("transfers").asLong() >= cfg.getNumberOfNodes());
+        }
+    }
+
+    @Test
+    public void testExportInterning() throws IOException {
+        Path file = newMetricsFile();
+        SolverMetrics metrics = new SolverMetrics(file);
+        metrics.export();
+        // no interning section without interned results
+        assertFalse(new ObjectMapper().readTree(file.toFile()).has("interning"));
+
+        for (int unique : List.of(1, 2)) {
+            FactInterner<String> interner = new FactInterner<>();
+            for (int i = 0; i < 4; ++i) {
+                interner.intern(String.valueOf(i % unique));
+            }
+            metrics.recordInterning("test", interner);
+        }
+        metrics.export();
+        JsonNode interning = new ObjectMapper().readTree(file.toFile())
+                .get("interning").get("test");
+        assertEquals(8, interning.get("requests").asLong());
+        assertEquals(3, interning.get("uniqueFacts").asLong());
+        assertEquals(1 - 3.0 / 8, interning.get("dedupRatio").asDouble(), 1e-9);
+    }
+
+    /**
+     * Analysis which counts the transfers and meets of another analysis.
+     */
+    private static class CountingAnalysis implements DataflowAnalysis<Stmt, SetFact<Var>> {
+
+        private final DataflowAnalysis<Stmt, SetFact<Var>> analysis;
+
+        private final AtomicLong transfers = new AtomicLong();
+
+        private final AtomicLong meets = new AtomicLong();
+
+        private CountingAnalysis(DataflowAnalysis<Stmt, SetFact<Var>> analysis) {
+            this.analysis = analysis;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public SetFact<Var> newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+            meets.incrementAndGet();
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+            transfers.incrementAndGet();
+            return analysis.transferNode(stmt, in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public SetFact<Var> transferEdge(Edge<Stmt> edge, SetFact<Var> nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.FrozenCFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SolverTest {
+
+    /**
+     * i = 0; s = 0; one = 1;
+     * L: if (i >= n) goto E; t = s + i; s = t; i = i + one; goto L;
+     * E: return s;
+     */
+    static IR buildLoop() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var i = builder.newVar("i");
+        Var s = builder.newVar("s");
+        Var t = builder.newVar("t");
+        Var one = builder.newVar("one");
+        builder.add(new AssignLiteral(i, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(s, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(one, IntLiteral.get(1)));
+        If loop = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, i, n)));
+        builder.add(new Binary(t, new ArithmeticExp(ArithmeticExp.Op.ADD, s, i)));
+        builder.add(new Copy(s, t));
+        builder.add(new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one)));
+        Goto back = builder.add(new Goto());
+        Stmt exit = builder.add(new Return(s));
+        loop.setTarget(exit);
+        back.setTarget(loop);
+        return builder.build();
+    }
+
+    /**
+     * i = 0; s = 0; one = 1;
+     * L1: if (i >= n) goto E; j = 0;
+     * L2: if (j >= i) goto M; t = s + j; s = t; j = j + one; goto L2;
+     * M: if (s >= n) goto K; s = s + one;
+     * K: i = i + one; goto L1;
+     * E: return s;
+     */
+    static IR buildNestedLoops() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var i = builder.newVar("i");
+        Var j = builder.newVar("j");
+        Var s = builder.newVar("s");
+        Var t = builder.newVar("t");
+        Var one = builder.newVar("one");
+        builder.add(new AssignLiteral(i, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(s, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(one, IntLiteral.get(1)));
+        If outer = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, i, n)));
+        builder.add(new AssignLiteral(j, IntLiteral.get(0)));
+        If inner = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, j, i)));
+        builder.add(new Binary(t, new ArithmeticExp(ArithmeticExp.Op.ADD, s, j)));
+        builder.add(new Copy(s, t));
+        builder.add(new Binary(j, new ArithmeticExp(ArithmeticExp.Op.ADD, j, one)));
+        Goto innerBack = builder.add(new Goto());
+        If branch = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, s, n)));
+        builder.add(new Binary(s, new ArithmeticExp(ArithmeticExp.Op.ADD, s, one)));
+        Stmt join = builder.add(new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one)));
+        Goto outerBack = builder.add(new Goto());
+        Stmt exit = builder.add(new Return(s));
+        outer.setTarget(exit);
+        inner.setTarget(branch);
+        innerBack.setTarget(inner);
+        branch.setTarget(join);
+        outerBack.setTarget(outer);
+        return builder.build();
+    }
+
+    private static void assertSameFacts(CFG<Stmt> cfg,
+                                        NodeResult<Stmt, SetFact<Var>> expected,
+                                        NodeResult<Stmt, SetFact<Var>> actual) {
+        for (Stmt stmt : cfg) {
+            assertEquals(expected.getInFact(stmt), actual.getInFact(stmt));
+            assertEquals(expected.getOutFact(stmt), actual.getOutFact(stmt));
+        }
+    }
+
+    @Test
+    public void testSolversAgree() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        for (boolean forward : List.of(true, false)) {
+            VarAnalysis analysis = new VarAnalysis(forward);
+            NodeResult<Stmt, SetFact<Var>> expected =
+                    Solver.makeSolver(analysis).solve(cfg);
+            for (String kind : List.of("worklist", "rpo", "wto")) {
+                for (boolean blocks : List.of(false, true)) {
+                    assertSameFacts(cfg, expected,
+                            Solver.makeSolver(analysis, kind, blocks).solve(cfg));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the solvers agree on a frozen CFG, whose adjacency
+     * they iterate by indexes, and on the CFG it freezes.
+     */
+    @Test
+    public void testSolversAgreeOnFrozenCFG() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        FrozenCFG frozen = FrozenCFG.of(cfg);
+        for (boolean forward : List.of(true, false)) {
+            VarAnalysis analysis = new VarAnalysis(forward);
+            NodeResult<Stmt, SetFact<Var>> expected =
+                    Solver.makeSolver(analysis).solve(cfg);
+            for (String kind : List.of("worklist", "rpo", "wto")) {
+                for (boolean blocks : List.of(false, true)) {
+                    for (int parallelThreshold : List.of(0, 1)) {
+                        assertSameFacts(cfg, expected, Solver.makeSolver(
+                                analysis, kind, blocks, parallelThreshold).solve(frozen));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the parallel solver agrees with the sequential one
+     * when it splits the loops into regions of different sizes.
+     */
+    @Test
+    public void testParallelSolverSplitsLoops() {
+        CFG<Stmt> cfg = buildNestedLoops().getResult(CFGBuilder.ID);
+        for (CFG<Stmt> graph : List.of(cfg, FrozenCFG.of(cfg))) {
+            for (boolean forward : List.of(true, false)) {
+                VarAnalysis analysis = new VarAnalysis(forward);
+                NodeResult<Stmt, SetFact<Var>> expected =
+                        Solver.makeSolver(analysis).solve(cfg);
+                for (int minRegionSize : List.of(1, 2, 3, ParallelSolver.MIN_REGION_SIZE)) {
+                    Solver<Stmt, SetFact<Var>> solver = new ParallelSolver<>(
+                            Solver.makeSolver(analysis), 1, minRegionSize);
+                    assertSameFacts(cfg, expected, solver.solve(graph));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelResolve() {
+        CFG<Stmt> cfg = buildNestedLoops().getResult(CFGBuilder.ID);
+        List<Stmt> stmts = cfg.getIR().getStmts();
+        for (boolean forward : List.of(true, false)) {
+            VarAnalysis analysis = new VarAnalysis(forward);
+            NodeResult<Stmt, SetFact<Var>> expected =
+                    Solver.makeSolver(analysis).solve(cfg);
+            for (int minRegionSize : List.of(1, ParallelSolver.MIN_REGION_SIZE)) {
+                Solver<Stmt, SetFact<Var>> solver = new ParallelSolver<>(
+                        Solver.makeSolver(analysis), 1, minRegionSize);
+                // the inner loop, whose changes affect both loops
+                assertSameFacts(cfg, expected, solver.resolve(cfg, expected,
+                        stmts.subList(5, 10), false));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentQueriesOfBlockResult() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        VarAnalysis analysis = new VarAnalysis(false);
+        NodeResult<Stmt, SetFact<Var>> expected =
+                Solver.makeSolver(analysis).solve(cfg);
+        NodeResult<Stmt, SetFact<Var>> result =
+                Solver.makeSolver(analysis, null, true).solve(cfg);
+        List<Stmt> stmts = List.copyOf(cfg.getNodes());
+        // queries of different threads replay different blocks
+        java.util.stream.IntStream.range(0, 10_000).parallel().forEach(k -> {
+            Stmt stmt = stmts.get(k % stmts.size());
+            assertEquals(expected.getInFact(stmt), result.getInFact(stmt));
+            assertEquals(expected.getOutFact(stmt), result.getOutFact(stmt));
+        });
+    }
+
+    @Test
+    public void testBlockSolverRejectsEdgeTransfer() {
+        CFG<Stmt> cfg = buildLoop().getResult(CFGBuilder.ID);
+        VarAnalysis analysis = new VarAnalysis(true) {
+            @Override
+            public boolean needTransferEdge(Edge<Stmt> edge) {
+                return edge.getSource() instanceof If;
+            }
+        };
+        try {
+            Solver.makeSolver(analysis, null, true).solve(cfg);
+            fail("Block solver should reject edge transfers");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Live variables (backward), or variables possibly defined
+     * on some path from the entry (forward).
+     */
+    static class VarAnalysis implements DataflowAnalysis<Stmt, SetFact<Var>> {
+
+        private final boolean forward;
+
+        VarAnalysis(boolean forward) {
+            this.forward = forward;
+        }
+
+        @Override
+        public boolean isForward() {
+            return forward;
+        }
+
+        @Override
+        public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
+            return new SetFact<>();
+        }
+
+        @Override
+        public SetFact<Var> newInitialFact() {
+            return new SetFact<>();
+        }
+
+        @Override
+        public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+            target.union(fact);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+            if (forward) {
+                SetFact<Var> newOut = in.copy();
+                stmt.getDef().ifPresent(def -> newOut.add((Var) def));
+                if (newOut.equals(out)) {
+                    return false;
+                }
+                out.set(newOut);
+            } else {
+                SetFact<Var> newIn = out.copy();
+                stmt.getDef().ifPresent(def -> newIn.remove((Var) def));
+                for (RValue use : stmt.getUses()) {
+                    if (use instanceof Var var) {
+                        newIn.add(var);
+                    }
+                }
+                if (newIn.equals(in)) {
+                    return false;
+                }
+                in.set(newIn);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public SetFact<Var> transferEdge(Edge<Stmt> edge, SetFact<Var> nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
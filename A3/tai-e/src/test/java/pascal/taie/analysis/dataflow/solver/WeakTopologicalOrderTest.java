@@ -0,0 +1,119 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pascal.taie.analysis.dataflow.solver.ReversePostOrderQueueTest.countIterations;
+import static pascal.taie.analysis.dataflow.solver.ReversePostOrderQueueTest.nameOf;
+
+public class WeakTopologicalOrderTest {
+
+    /**
+     * @return given WTO elements in Bourdoncle's notation, where each
+     * component is parenthesized, e.g., "0 (1 2) 3".
+     */
+    private static String format(CFG<Stmt> cfg,
+                                 List<WeakTopologicalOrder.Element<Stmt>> elements) {
+        return elements.stream()
+                .map(e -> e.isComponent() ?
+                        "(" + nameOf(cfg, e.getHead()) + " " + format(cfg, e.getBody()) + ")" :
+                        nameOf(cfg, e.getHead()))
+                .collect(Collectors.joining(" "));
+    }
+
+    @Test
+    public void testOrderOfNestedLoops() {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        assertEquals("entry 0 1 2 (3 4 (5 6 7 8 9) 10 11 12 13) 14 exit",
+                format(cfg, new WeakTopologicalOrder<>(cfg, true).getElements()));
+        assertEquals("exit 14 (3 13 12 11 10 (5 9 8 7 6) 4) 2 1 0 entry",
+                format(cfg, new WeakTopologicalOrder<>(cfg, false).getElements()));
+    }
+
+    /**
+     * Checks that every edge goes forward in the WTO, or goes back to
+     * the head of a component which contains its source.
+     */
+    @Test
+    public void testEdgesOfNestedLoops() {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        for (boolean forward : List.of(true, false)) {
+            Map<Stmt, Integer> positions = Maps.newMap();
+            Map<Stmt, List<Stmt>> enclosingHeads = Maps.newMap();
+            flatten(new WeakTopologicalOrder<>(cfg, forward).getElements(),
+                    new ArrayList<>(), positions, enclosingHeads);
+            assertEquals(cfg.getNumberOfNodes(), positions.size());
+            for (Stmt node : cfg) {
+                Set<Stmt> succs = forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+                for (Stmt succ : succs) {
+                    assertTrue(node + " -> " + succ,
+                            positions.get(succ) > positions.get(node) ||
+                                    enclosingHeads.get(node).contains(succ));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the position of each node in the WTO, and the heads of
+     * the components which contain it, including itself if it is a head.
+     */
+    private static void flatten(List<WeakTopologicalOrder.Element<Stmt>> elements,
+                                List<Stmt> heads, Map<Stmt, Integer> positions,
+                                Map<Stmt, List<Stmt>> enclosingHeads) {
+        for (WeakTopologicalOrder.Element<Stmt> e : elements) {
+            Stmt head = e.getHead();
+            positions.put(head, positions.size());
+            if (e.isComponent()) {
+                List<Stmt> inner = new ArrayList<>(heads);
+                inner.add(head);
+                enclosingHeads.put(head, inner);
+                flatten(e.getBody(), inner, positions, enclosingHeads);
+            } else {
+                enclosingHeads.put(head, heads);
+            }
+        }
+    }
+
+    @Test
+    public void testIterationsOfNestedLoops() throws IOException {
+        CFG<Stmt> cfg = SolverTest.buildNestedLoops().getResult(CFGBuilder.ID);
+        // the components are iterated until their heads are stable
+        assertEquals(36, countIterations(cfg, "wto", true));
+        assertEquals(31, countIterations(cfg, "wto", false));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import org.junit.Test;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DefUseIndexTest {
+
+    /**
+     * 0: i = 0; 1: s = 0; 2: one = 1;
+     * 3: if (i >= n) goto 8; 4: t = s + i; 5: s = t;
+     * 6: i = i + one; 7: goto 3;
+     * 8: return s;
+     * where n is a parameter, and u is neither defined nor used.
+     */
+    private static IR buildLoop() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var i = builder.newVar("i");
+        Var s = builder.newVar("s");
+        Var t = builder.newVar("t");
+        Var one = builder.newVar("one");
+        builder.newVar("u");
+        builder.add(new AssignLiteral(i, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(s, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(one, IntLiteral.get(1)));
+        If loop = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, i, n)));
+        builder.add(new Binary(t, new ArithmeticExp(ArithmeticExp.Op.ADD, s, i)));
+        builder.add(new Copy(s, t));
+        builder.add(new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one)));
+        Goto back = builder.add(new Goto());
+        Stmt exit = builder.add(new Return(s));
+        loop.setTarget(exit);
+        back.setTarget(loop);
+        return builder.build();
+    }
+
+    private static Var var(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static List<Stmt> stmts(IR ir, int... indexes) {
+        return Arrays.stream(indexes).mapToObj(ir::getStmt).toList();
+    }
+
+    @Test
+    public void testDefsAndUsesOfVar() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        Var i = var(ir, "i");
+        Var s = var(ir, "s");
+        Var t = var(ir, "t");
+        assertEquals(stmts(ir, 0, 6), index.defsOf(i));
+        assertEquals(stmts(ir, 3, 4, 6), index.usesOf(i));
+        assertEquals(stmts(ir, 1, 5), index.defsOf(s));
+        assertEquals(stmts(ir, 4, 8), index.usesOf(s));
+        assertEquals(stmts(ir, 4), index.defsOf(t));
+        assertEquals(stmts(ir, 5), index.usesOf(t));
+        assertEquals(2, index.getDefCount(i));
+        assertEquals(3, index.getUseCount(i));
+        assertEquals(1, index.getDefCount(t));
+        assertEquals(1, index.getUseCount(t));
+    }
+
+    @Test
+    public void testDefsOfStmt() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        // the name of the variable defined by each statement, or ""
+        List<String> defined = List.of("i", "s", "one", "", "t", "s", "i", "", "");
+        for (Stmt stmt : ir) {
+            String name = defined.get(stmt.getIndex());
+            for (Var var : ir.getVars()) {
+                assertEquals(stmt + " defines " + var,
+                        var.getName().equals(name), index.defines(stmt, var));
+            }
+        }
+    }
+
+    @Test
+    public void testUsesOfStmt() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        // each use of the index is a use of the statement, and vice versa
+        for (Stmt stmt : ir) {
+            for (Var var : ir.getVars()) {
+                assertEquals(stmt + " uses " + var,
+                        stmt.getUses().contains(var), index.usesOf(var).contains(stmt));
+            }
+        }
+    }
+
+    @Test
+    public void testDuplicateUses() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var x = builder.newParam("x");
+        Var y = builder.newVar("y");
+        builder.add(new Binary(y, new ArithmeticExp(ArithmeticExp.Op.ADD, x, x)));
+        builder.add(new Return(y));
+        IR ir = builder.build();
+        DefUseIndex index = DefUseIndex.of(ir);
+        // a statement which uses a variable twice is listed once
+        assertEquals(stmts(ir, 0), index.usesOf(x));
+        assertEquals(1, index.getUseCount(x));
+    }
+
+    @Test
+    public void testParam() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        Var n = var(ir, "n");
+        // parameters have no defining statements
+        assertTrue(index.defsOf(n).isEmpty());
+        assertEquals(0, index.getDefCount(n));
+        assertEquals(stmts(ir, 3), index.usesOf(n));
+        assertTrue(index.reachingDefsOf(ir.getStmt(3), n).isEmpty());
+    }
+
+    @Test
+    public void testNeverDefinedVar() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        Var u = var(ir, "u");
+        assertTrue(index.defsOf(u).isEmpty());
+        assertTrue(index.usesOf(u).isEmpty());
+        assertEquals(0, index.getDefCount(u));
+        assertEquals(0, index.getUseCount(u));
+        for (Stmt stmt : ir) {
+            assertFalse(index.defines(stmt, u));
+            assertTrue(index.reachingDefsOf(stmt, u).isEmpty());
+        }
+        try {
+            index.defsOf(u).get(0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReachingDefs() {
+        IR ir = buildLoop();
+        DefUseIndex index = DefUseIndex.of(ir);
+        Var i = var(ir, "i");
+        Var s = var(ir, "s");
+        Var t = var(ir, "t");
+        // the definitions before the loop and along the back edge
+        assertEquals(Set.copyOf(stmts(ir, 0, 6)), index.reachingDefsOf(ir.getStmt(3), i));
+        assertEquals(Set.copyOf(stmts(ir, 1, 5)), index.reachingDefsOf(ir.getStmt(4), s));
+        assertEquals(Set.copyOf(stmts(ir, 1, 5)), index.reachingDefsOf(ir.getStmt(8), s));
+        // i = i + one uses the definition before it, not itself
+        assertEquals(Set.copyOf(stmts(ir, 0, 6)), index.reachingDefsOf(ir.getStmt(6), i));
+        assertEquals(Set.copyOf(stmts(ir, 4)), index.reachingDefsOf(ir.getStmt(5), t));
+        // no definition reaches the entry
+        assertTrue(index.reachingDefsOf(ir.getStmt(0), i).isEmpty());
+    }
+
+    @Test
+    public void testIndexIsStoredInIR() {
+        IR ir = buildLoop();
+        assertSame(DefUseIndex.of(ir), DefUseIndex.of(ir));
+    }
+}
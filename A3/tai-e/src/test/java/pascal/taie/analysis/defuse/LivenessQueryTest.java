@@ -0,0 +1,145 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LivenessQueryTest {
+
+    /**
+     * 0: x = 0; 1: x = 1; 2: i = 0; 3: d = 5;
+     * 4: if (i >= n) goto 7; 5: i = i + x; 6: goto 4;
+     * 7: return i;
+     * where n is a parameter.
+     */
+    private static IR buildLoop() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var x = builder.newVar("x");
+        Var i = builder.newVar("i");
+        Var d = builder.newVar("d");
+        builder.add(new AssignLiteral(x, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(x, IntLiteral.get(1)));
+        builder.add(new AssignLiteral(i, IntLiteral.get(0)));
+        builder.add(new AssignLiteral(d, IntLiteral.get(5)));
+        If loop = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, i, n)));
+        builder.add(new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, x)));
+        Goto back = builder.add(new Goto());
+        Stmt exit = builder.add(new Return(i));
+        loop.setTarget(exit);
+        back.setTarget(loop);
+        return builder.build();
+    }
+
+    private static Var var(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testLiveAfterDef() {
+        IR ir = buildLoop();
+        LivenessQuery query = LivenessQuery.of(ir);
+        // x = 1 reaches the use of x in the loop
+        assertTrue(query.isLiveOut(ir.getStmt(1), var(ir, "x")));
+        assertTrue(query.isLiveOut(ir.getStmt(2), var(ir, "i")));
+    }
+
+    @Test
+    public void testDeadAfterDef() {
+        IR ir = buildLoop();
+        LivenessQuery query = LivenessQuery.of(ir);
+        // x = 0 is redefined before any use
+        assertFalse(query.isLiveOut(ir.getStmt(0), var(ir, "x")));
+        // d is never used
+        Var d = var(ir, "d");
+        for (Stmt stmt : ir) {
+            assertFalse(query.isLiveOut(stmt, d));
+        }
+        // nothing is live after the return
+        for (Var var : ir.getVars()) {
+            assertFalse(query.isLiveOut(ir.getStmt(7), var));
+        }
+    }
+
+    @Test
+    public void testLiveAcrossBackEdge() {
+        IR ir = buildLoop();
+        LivenessQuery query = LivenessQuery.of(ir);
+        Var x = var(ir, "x");
+        Var n = var(ir, "n");
+        // x is used by the next iteration after its use in the loop body
+        assertTrue(query.isLiveOut(ir.getStmt(5), x));
+        assertTrue(query.isLiveOut(ir.getStmt(6), x));
+        assertTrue(query.isLiveOut(ir.getStmt(4), x));
+        // n is live along the back edge although the body does not use it
+        assertTrue(query.isLiveOut(ir.getStmt(5), n));
+        assertTrue(query.isLiveOut(ir.getStmt(6), n));
+        // i = i + x defines i, which is live along the back edge
+        assertTrue(query.isLiveOut(ir.getStmt(5), var(ir, "i")));
+    }
+
+    @Test
+    public void testSameAsLiveVariableAnalysis() {
+        IR ir = buildLoop();
+        LivenessQuery query = LivenessQuery.of(ir);
+        NodeResult<Stmt, SetFact<Var>> result = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID)).analyze(ir);
+        for (Stmt stmt : ir) {
+            for (Var var : ir.getVars()) {
+                assertEquals(stmt + " " + var,
+                        result.getOutFact(stmt).contains(var), query.isLiveOut(stmt, var));
+            }
+        }
+    }
+
+    @Test
+    public void testQueryIsStoredInIR() {
+        IR ir = buildLoop();
+        assertSame(LivenessQuery.of(ir), LivenessQuery.of(ir));
+    }
+}
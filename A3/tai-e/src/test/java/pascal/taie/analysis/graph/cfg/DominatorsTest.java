@@ -0,0 +1,150 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import org.junit.Test;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.TestIRBuilder;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DominatorsTest {
+
+    /**
+     * 0: i = 0; 1: L1: if (i >= n) goto E; 2: j = 0;
+     * 3: L2: if (j >= n) goto N; 4: j = i; 5: goto L2;
+     * 6: N: i = j; 7: goto L1; 8: E: return;
+     */
+    private static IR buildNestedLoops() {
+        TestIRBuilder builder = new TestIRBuilder();
+        Var n = builder.newParam("n");
+        Var i = builder.newVar("i");
+        Var j = builder.newVar("j");
+        builder.add(new AssignLiteral(i, IntLiteral.get(0)));
+        If outer = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, i, n)));
+        builder.add(new AssignLiteral(j, IntLiteral.get(0)));
+        If inner = builder.add(new If(new ConditionExp(ConditionExp.Op.GE, j, n)));
+        builder.add(new Copy(j, i));
+        Goto innerBack = builder.add(new Goto());
+        Stmt next = builder.add(new Copy(i, j));
+        Goto outerBack = builder.add(new Goto());
+        Stmt exit = builder.add(new Return());
+        outer.setTarget(exit);
+        inner.setTarget(next);
+        innerBack.setTarget(inner);
+        outerBack.setTarget(outer);
+        return builder.build();
+    }
+
+    @Test
+    public void testDominators() {
+        IR ir = buildNestedLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Dominators<Stmt> dom = Dominators.of(cfg);
+        assertEquals(cfg.getEntry(), dom.getRoot());
+        assertNull(dom.getIDom(cfg.getEntry()));
+        assertEquals(ir.getStmt(1), dom.getIDom(ir.getStmt(8)));
+        assertEquals(ir.getStmt(3), dom.getIDom(ir.getStmt(6)));
+        for (Stmt stmt : ir) {
+            assertTrue(dom.dominates(cfg.getEntry(), stmt));
+            assertTrue(dom.dominates(stmt, stmt));
+            assertFalse(dom.strictlyDominates(stmt, stmt));
+        }
+        assertTrue(dom.dominates(ir.getStmt(3), ir.getStmt(7)));
+        assertFalse(dom.dominates(ir.getStmt(3), ir.getStmt(8)));
+        assertFalse(dom.dominates(ir.getStmt(4), ir.getStmt(6)));
+    }
+
+    @Test
+    public void testPostDominators() {
+        IR ir = buildNestedLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Dominators<Stmt> postDom = Dominators.postOf(cfg);
+        assertEquals(cfg.getExit(), postDom.getRoot());
+        assertEquals(ir.getStmt(8), postDom.getIDom(ir.getStmt(1)));
+        assertEquals(ir.getStmt(1), postDom.getIDom(ir.getStmt(7)));
+        assertEquals(ir.getStmt(3), postDom.getIDom(ir.getStmt(5)));
+        assertTrue(postDom.dominates(ir.getStmt(1), ir.getStmt(2)));
+        assertFalse(postDom.dominates(ir.getStmt(4), ir.getStmt(3)));
+    }
+
+    @Test
+    public void testLoopForest() {
+        IR ir = buildNestedLoops();
+        LoopForest<Stmt> forest = LoopForest.of(ir.getResult(CFGBuilder.ID));
+        List<LoopForest.Loop<Stmt>> loops = forest.getLoops();
+        assertEquals(2, loops.size());
+        LoopForest.Loop<Stmt> outer = loops.get(0);
+        LoopForest.Loop<Stmt> inner = loops.get(1);
+        assertEquals(List.of(outer), forest.getTopLevelLoops());
+        assertEquals(ir.getStmt(1), outer.getHeader());
+        assertEquals(ir.getStmt(3), inner.getHeader());
+        assertEquals(Set.of(ir.getStmt(3), ir.getStmt(4), ir.getStmt(5)),
+                inner.getNodes());
+        assertEquals(7, outer.getNodes().size());
+        assertSame(inner, forest.getLoopOf(ir.getStmt(4)));
+        assertSame(outer, forest.getLoopOf(ir.getStmt(6)));
+        assertNull(forest.getLoopOf(ir.getStmt(8)));
+        assertTrue(forest.isLoopHeader(ir.getStmt(3)));
+        assertFalse(forest.isLoopHeader(ir.getStmt(4)));
+        assertEquals(2, forest.getDepth(ir.getStmt(5)));
+        assertEquals(0, forest.getDepth(ir.getStmt(0)));
+    }
+
+    @Test
+    public void testResultsStoredInIR() {
+        IR ir = buildNestedLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        assertSame(Dominators.of(cfg), Dominators.of(cfg));
+        assertSame(Dominators.postOf(cfg), Dominators.postOf(cfg));
+        assertNotSame(Dominators.of(cfg), Dominators.postOf(cfg));
+        assertSame(LoopForest.of(cfg), LoopForest.of(cfg));
+        // the frozen CFG has its own results, which agree with the ones
+        // of the CFG
+        FrozenCFG frozen = FrozenCFG.of(cfg);
+        Dominators<Stmt> frozenDom = Dominators.of(frozen);
+        assertSame(frozenDom, Dominators.of(frozen));
+        assertNotSame(Dominators.of(cfg), frozenDom);
+        for (Stmt stmt : ir) {
+            assertEquals(Dominators.of(cfg).getIDom(stmt), frozenDom.getIDom(stmt));
+        }
+        assertEquals(2, LoopForest.of(frozen).getLoops().size());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.ir;
+
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Catch;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds small IRs for unit tests without the frontend.
+ * The built IRs have no declaring method, and their CFGs, which are
+ * built and stored together with the IRs, have no exceptional edges.
+ */
+public class TestIRBuilder {
+
+    private final List<Var> vars;
+
+    private final List<Var> params;
+
+    private final List<Stmt> stmts = new ArrayList<>();
+
+    private final List<ExceptionEntry> exceptionEntries = new ArrayList<>();
+
+    public TestIRBuilder() {
+        vars = new ArrayList<>();
+        params = new ArrayList<>();
+    }
+
+    /**
+     * Creates a builder which reuses the variables of given IR,
+     * e.g., for building an edited version of the IR.
+     */
+    public TestIRBuilder(IR ir) {
+        vars = new ArrayList<>(ir.getVars());
+        params = new ArrayList<>(ir.getParams());
+    }
+
+    /**
+     * @return a new int variable.
+     */
+    public Var newVar(String name) {
+        return newVar(name, PrimitiveType.INT);
+    }
+
+    public Var newVar(String name, Type type) {
+        Var var = new Var(null, name, type, vars.size());
+        vars.add(var);
+        return var;
+    }
+
+    /**
+     * @return a new int parameter.
+     */
+    public Var newParam(String name) {
+        Var param = newVar(name);
+        params.add(param);
+        return param;
+    }
+
+    /**
+     * @return the variable of given name.
+     */
+    public Var getVar(String name) {
+        return vars.stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Appends a statement to the IR.
+     *
+     * @return the appended statement.
+     */
+    public <S extends Stmt> S add(S stmt) {
+        stmts.add(stmt);
+        return stmt;
+    }
+
+    /**
+     * Adds an exception entry to the IR, which the CFG ignores.
+     */
+    public void addExceptionEntry(Stmt start, Stmt end, Catch handler,
+                                  @Nullable ClassType catchType) {
+        exceptionEntries.add(new ExceptionEntry(start, end, handler, catchType));
+    }
+
+    /**
+     * Builds the IR and its CFG. The targets of jumps must have been set.
+     */
+    public IR build() {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(null, null, List.copyOf(params), Set.of(),
+                List.copyOf(vars), List.copyOf(stmts), List.copyOf(exceptionEntries));
+        AnalysisConfig config = new AnalysisConfig(CFGBuilder.ID,
+                "exception", "none", "dump", false);
+        ir.storeResult(CFGBuilder.ID, new CFGBuilder(config).analyze(ir));
+        return ir;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentHashMapTest {
+
+    /**
+     * Key whose hash code is given explicitly, for creating collisions.
+     */
+    private record Key(int hash, int id) {
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+        Key k1 = new Key(1, 1);
+        Key k2 = new Key(2, 2);
+        assertNull(map.put(k1, 10));
+        assertNull(map.put(k2, 20));
+        assertEquals(10, (int) map.put(k1, 11));
+        assertEquals(2, map.size());
+        assertEquals(11, (int) map.get(k1));
+        assertEquals(20, (int) map.remove(k2));
+        assertNull(map.remove(k2));
+        assertFalse(map.containsKey(k2));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testPutSameValue() {
+        PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+        Key k = new Key(7, 0);
+        map.put(k, 1);
+        PersistentHashMap<Key, Integer> copy = map.copy();
+        assertEquals(1, (int) map.put(k, 1));
+        assertEquals(1, map.size());
+        assertEquals(copy, map);
+    }
+
+    @Test
+    public void testFullHashCollisions() {
+        PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+        for (int i = 0; i < 5; ++i) {
+            assertNull(map.put(new Key(42, i), i));
+        }
+        map.put(new Key(43, 0), -1);
+        assertEquals(6, map.size());
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(i, (int) map.get(new Key(42, i)));
+        }
+        assertNull(map.get(new Key(42, 5)));
+        assertEquals(3, (int) map.put(new Key(42, 3), 30));
+        assertEquals(6, map.size());
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(i == 3 ? 30 : i, (int) map.remove(new Key(42, i)));
+            assertEquals(5 - i, map.size());
+        }
+        assertEquals(Map.of(new Key(43, 0), -1), map);
+    }
+
+    @Test
+    public void testRemoveCollapsesToCanonicalForm() {
+        // keys 0 and 32 share the lowest 5 bits of their hashes,
+        // so they are in a sub-node of the root
+        PersistentHashMap<Key, Integer> expected = new PersistentHashMap<>();
+        expected.put(new Key(0, 0), 0);
+        expected.put(new Key(1, 1), 1);
+        PersistentHashMap<Key, Integer> map = expected.copy();
+        map.put(new Key(32, 2), 2);
+        map.put(new Key(1 << 10, 3), 3);
+        map.put(new Key(0, 4), 4);
+        map.remove(new Key(32, 2));
+        map.remove(new Key(1 << 10, 3));
+        map.remove(new Key(0, 4));
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        // the same contents built in another order
+        PersistentHashMap<Key, Integer> other = new PersistentHashMap<>();
+        other.put(new Key(0, 4), 4);
+        other.put(new Key(1, 1), 1);
+        other.put(new Key(0, 0), 0);
+        other.remove(new Key(0, 4));
+        assertEquals(expected, other);
+        map.remove(new Key(0, 0));
+        map.remove(new Key(1, 1));
+        assertTrue(map.isEmpty());
+        assertEquals(new PersistentHashMap<>(), map);
+    }
+
+    @Test
+    public void testEqualsWithSharedSubtrees() {
+        PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+        for (int i = 0; i < 1000; ++i) {
+            map.put(i, i);
+        }
+        PersistentHashMap<Integer, Integer> copy = map.copy();
+        assertEquals(map, copy);
+        copy.put(500, -1);
+        assertNotEquals(map, copy);
+        assertNotEquals(copy, map);
+        copy.put(500, 500);
+        assertEquals(map, copy);
+        copy.remove(999);
+        assertNotEquals(map, copy);
+        copy.put(999, 999);
+        assertEquals(map, copy);
+        assertEquals(new HashMap<>(map), copy);
+        assertEquals(copy, new HashMap<>(map));
+        // copies are independent
+        copy.clear();
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(0);
+        PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+        Map<Key, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; ++i) {
+            // few distinct hashes to create deep sub-nodes and collisions
+            Key key = new Key(random.nextInt(64) * (1 << random.nextInt(32)),
+                    random.nextInt(4));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Integer value = random.nextInt(3);
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(new PersistentHashMap<>(expected), map);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        PersistentHashMap<Integer, Integer> map = new PersistentHashMap<>();
+        for (int i = 0; i < 100; ++i) {
+            map.put(i, i);
+        }
+        Iterator<Map.Entry<Integer, Integer>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(50, map.size());
+        map.keySet().forEach(k -> assertTrue(k % 2 == 1));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import javax.annotation.Nullable;
+
+/**
+ * Kernel which processes the words of the widest vector of the platform
+ * at a time, and the remaining words by the scalar loops. Whether a call
+ * changes the words is accumulated in a vector of differences, which
+ * is reduced once at the end of the call.
+ */
+final class VectorBitSetKernel extends BitSetKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    boolean or(long[] words, long[] other) {
+        int bound = SPECIES.loopBound(other.length);
+        LongVector diff = LongVector.zero(SPECIES);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, words, i);
+            LongVector word = old.or(LongVector.fromArray(SPECIES, other, i));
+            word.intoArray(words, i);
+            diff = diff.or(word.lanewise(VectorOperators.XOR, old));
+        }
+        boolean changed = false;
+        for (int i = bound; i < other.length; ++i) {
+            long old = words[i];
+            words[i] = old | other[i];
+            changed |= words[i] != old;
+        }
+        return changed || isChanged(diff);
+    }
+
+    @Override
+    boolean and(long[] words, long[] other) {
+        int n = Math.min(words.length, other.length);
+        int bound = SPECIES.loopBound(n);
+        LongVector diff = LongVector.zero(SPECIES);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, words, i);
+            LongVector word = old.and(LongVector.fromArray(SPECIES, other, i));
+            word.intoArray(words, i);
+            diff = diff.or(word.lanewise(VectorOperators.XOR, old));
+        }
+        boolean changed = false;
+        for (int i = bound; i < words.length; ++i) {
+            long old = words[i];
+            words[i] = i < other.length ? old & other[i] : 0;
+            changed |= words[i] != old;
+        }
+        return changed || isChanged(diff);
+    }
+
+    @Override
+    boolean andNot(long[] words, long[] other) {
+        int n = Math.min(words.length, other.length);
+        int bound = SPECIES.loopBound(n);
+        LongVector diff = LongVector.zero(SPECIES);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector old = LongVector.fromArray(SPECIES, words, i);
+            LongVector word = old.lanewise(VectorOperators.AND_NOT,
+                    LongVector.fromArray(SPECIES, other, i));
+            word.intoArray(words, i);
+            diff = diff.or(word.lanewise(VectorOperators.XOR, old));
+        }
+        boolean changed = false;
+        for (int i = bound; i < n; ++i) {
+            long old = words[i];
+            words[i] = old & ~other[i];
+            changed |= words[i] != old;
+        }
+        return changed || isChanged(diff);
+    }
+
+    @Override
+    boolean genKill(long[] words, long[] fact,
+                    @Nullable long[] gen, @Nullable long[] kill) {
+        int bound = SPECIES.loopBound(words.length);
+        LongVector diff = LongVector.zero(SPECIES);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            LongVector word = LongVector.fromArray(SPECIES, fact, i);
+            if (kill != null) {
+                word = word.lanewise(VectorOperators.AND_NOT,
+                        LongVector.fromArray(SPECIES, kill, i));
+            }
+            if (gen != null) {
+                word = word.or(LongVector.fromArray(SPECIES, gen, i));
+            }
+            LongVector old = LongVector.fromArray(SPECIES, words, i);
+            word.intoArray(words, i);
+            diff = diff.or(word.lanewise(VectorOperators.XOR, old));
+        }
+        boolean changed = false;
+        for (int i = bound; i < words.length; ++i) {
+            long word = fact[i];
+            if (kill != null) {
+                word &= ~kill[i];
+            }
+            if (gen != null) {
+                word |= gen[i];
+            }
+            changed |= words[i] != word;
+            words[i] = word;
+        }
+        return changed || isChanged(diff);
+    }
+
+    private static boolean isChanged(LongVector diff) {
+        return diff.reduceLanes(VectorOperators.OR) != 0;
+    }
+}
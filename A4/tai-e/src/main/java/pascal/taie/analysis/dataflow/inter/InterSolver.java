@@ -27,6 +27,7 @@ import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.util.collection.SetQueue;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
@@ -44,20 +45,36 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * Collector of the metrics of solving, or null if they are not recorded.
+     */
+    @Nullable
+    private final InterSolverMetrics<Method, Node> metrics;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    /**
+     * @param metrics the collector which the solver records its metrics
+     *                to, or null if they are not recorded
+     */
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
-                ICFG<Method, Node> icfg) {
+                ICFG<Method, Node> icfg,
+                @Nullable InterSolverMetrics<Method, Node> metrics) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.metrics = metrics;
     }
 
     DataflowResult<Node, Fact> solve() {
+        long start = System.nanoTime();
         result = new DataflowResult<>();
         initialize();
         doSolve();
+        if (metrics != null) {
+            metrics.recordTime(System.nanoTime() - start);
+        }
         return result;
     }
 
@@ -93,7 +110,13 @@ class InterSolver<Method, Node, Fact> {
                 analysis.meetInto(transferOut, result.getInFact(node));
             }
 
-            if (analysis.transferNode(node, result.getInFact(node), result.getOutFact(node))) {
+            boolean changed = analysis.transferNode(
+                    node, result.getInFact(node), result.getOutFact(node));
+            if (metrics != null) {
+                metrics.recordVisit(node, icfg.getInEdgesOf(node).size(),
+                        result.getInFact(node), result.getOutFact(node));
+            }
+            if (changed) {
                 for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
                     Node outNode = outEdge.getTarget();
                     if (!workList.contains(outNode))
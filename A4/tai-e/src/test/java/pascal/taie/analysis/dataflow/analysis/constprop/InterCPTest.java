@@ -22,10 +22,19 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class InterCPTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
@@ -57,4 +66,29 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testExampleMetrics() throws IOException {
+        Path file = Files.createTempFile("tai-e-metrics", ".json");
+        file.toFile().deleteOnExit();
+        Tests.test("Example", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;metrics:" + file,
+                "-a", "cg=algorithm:cha");
+        JsonNode metrics = new ObjectMapper().readTree(file.toFile())
+                .get("analyses").get(InterConstantPropagation.ID);
+        long iterations = metrics.get("iterations").asLong();
+        assertTrue(iterations > 0);
+        assertEquals(iterations, metrics.get("transfers").asLong());
+        assertEquals(metrics.get("edgeTransfers").asLong(), metrics.get("meets").asLong());
+        // the iterations of the methods sum to the total, most visited first
+        long sum = 0;
+        long previous = Long.MAX_VALUE;
+        for (JsonNode method : metrics.get("methods")) {
+            long methodIterations = method.get("iterations").asLong();
+            assertTrue(methodIterations <= previous);
+            previous = methodIterations;
+            sum += methodIterations;
+        }
+        assertEquals(iterations, sum);
+    }
 }
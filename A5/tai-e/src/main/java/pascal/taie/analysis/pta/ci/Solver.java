@@ -29,8 +29,10 @@ import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.ReachableStmts;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.ClassHierarchy;
@@ -53,8 +55,15 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Whether the statements which are unreachable in their methods
+     * are skipped, see {@link ReachableStmts}.
+     */
+    private final boolean skipDeadCode;
+
+    Solver(HeapModel heapModel, boolean skipDeadCode) {
         this.heapModel = heapModel;
+        this.skipDeadCode = skipDeadCode;
     }
 
     /**
@@ -86,7 +95,8 @@ class Solver {
     private void addReachable(JMethod method) {
         if (callGraph.contains(method)) return;
         callGraph.addReachableMethod(method);
-        for (Stmt stmt : method.getIR().getStmts()) {
+        IR ir = method.getIR();
+        for (Stmt stmt : skipDeadCode ? ReachableStmts.of(ir) : ir.getStmts()) {
             stmt.accept(stmtProcessor);
         }
     }
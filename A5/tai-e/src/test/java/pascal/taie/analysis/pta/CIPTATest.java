@@ -78,4 +78,33 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testExampleSkipDeadCode() {
+        Tests.testCIPTA(DIR, "Example", "skip-dead-code:true");
+    }
+
+    @Test
+    public void testCallSkipDeadCode() {
+        Tests.testCIPTA(DIR, "Call", "skip-dead-code:true");
+    }
+
+    @Test
+    public void testStaticCallSkipDeadCode() {
+        Tests.testCIPTA(DIR, "StaticCall", "skip-dead-code:true");
+    }
+
+    @Test
+    public void testMergeParamSkipDeadCode() {
+        Tests.testCIPTA(DIR, "MergeParam", "skip-dead-code:true");
+    }
+
+    /**
+     * The call to dead() is in a branch whose condition is constant false,
+     * thus its parameter is absent from the expected results.
+     */
+    @Test
+    public void testDeadBranchSkipDeadCode() {
+        Tests.testCIPTA(DIR, "DeadBranch", "skip-dead-code:true");
+    }
 }
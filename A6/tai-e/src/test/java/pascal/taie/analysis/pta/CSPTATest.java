@@ -93,4 +93,28 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testCallSkipDeadCode() {
+        Tests.testCSPTA(DIR, "Call", "skip-dead-code:true");
+    }
+
+    @Test
+    public void testOneObjectSkipDeadCode() {
+        Tests.testCSPTA(DIR, "OneObject", "cs:1-obj;skip-dead-code:true");
+    }
+
+    @Test
+    public void testTwoCallSkipDeadCode() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call;skip-dead-code:true");
+    }
+
+    /**
+     * The call to dead() is in a branch whose condition is constant false,
+     * thus its parameter is absent from the expected results.
+     */
+    @Test
+    public void testDeadBranchSkipDeadCode() {
+        Tests.testCSPTA(DIR, "DeadBranch", "skip-dead-code:true");
+    }
 }
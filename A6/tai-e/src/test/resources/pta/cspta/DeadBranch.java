@@ -0,0 +1,20 @@
+class DeadBranch {
+
+    public static void main(String[] args) {
+        A a = new A();
+        int flag = 0;
+        if (flag > 0) {
+            dead(a);
+        }
+        live(a);
+    }
+
+    static void dead(A d) {
+    }
+
+    static void live(A l) {
+    }
+}
+
+class A {
+}
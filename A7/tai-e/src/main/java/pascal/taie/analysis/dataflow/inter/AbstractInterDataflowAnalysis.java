@@ -34,6 +34,8 @@ import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
 
+import java.nio.file.Path;
+
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
  *
@@ -117,13 +119,24 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     protected abstract Fact transferReturnEdge(ReturnEdge<Node> edge, Fact returnOut);
     // ----------------------------------------------------------------
 
+    /**
+     * Solves this analysis on the ICFG of the program. If option
+     * {@code metrics} gives a file, the metrics of the solver are
+     * exported to the file as {@link InterSolverMetrics} describes.
+     */
     @Override
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        String metricsFile = getOptions().getString("metrics");
+        InterSolverMetrics<Method, Node> metrics = metricsFile != null ?
+                new InterSolverMetrics<>(icfg) : null;
+        solver = new InterSolver<>(this, icfg, metrics);
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
+        if (metrics != null) {
+            metrics.export(getId(), Path.of(metricsFile));
+        }
         return result;
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.util.collection.Maps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collector of the cost of {@link InterSolver}, which records the number
+ * of work-list iterations (i.e., visited nodes), of node transfers, of
+ * edge transfers and meets, the size of the largest fact and the solving
+ * time. The iterations and the largest facts are also recorded per method
+ * of the visited nodes, so that the methods which dominate the solving
+ * can be found. The metrics are exported as JSON, with the methods listed
+ * from the most visited one.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ */
+class InterSolverMetrics<Method, Node> {
+
+    private static final Logger logger = LogManager.getLogger(InterSolverMetrics.class);
+
+    private final ICFG<Method, Node> icfg;
+
+    private final Map<Method, MethodCounters> methods = Maps.newMap();
+
+    private long iterations;
+
+    private long edgeTransfers;
+
+    private int maxFactSize;
+
+    private long nanos;
+
+    InterSolverMetrics(ICFG<Method, Node> icfg) {
+        this.icfg = icfg;
+    }
+
+    /**
+     * Records a visit of given node, which transfers its in-edges,
+     * meets them into its IN fact, and transfers the node.
+     */
+    void recordVisit(Node node, int inEdges, Object in, Object out) {
+        ++iterations;
+        edgeTransfers += inEdges;
+        int factSize = Math.max(sizeOf(in), sizeOf(out));
+        maxFactSize = Math.max(maxFactSize, factSize);
+        MethodCounters counters = methods.computeIfAbsent(
+                icfg.getContainingMethodOf(node), m -> new MethodCounters());
+        ++counters.iterations;
+        counters.maxFactSize = Math.max(counters.maxFactSize, factSize);
+    }
+
+    /**
+     * Records the solving time.
+     */
+    void recordTime(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the number of elements of given fact, or 0 if its size
+     * is unknown.
+     */
+    private static int sizeOf(Object fact) {
+        return fact instanceof MapFact<?, ?> mapFact ? mapFact.keySet().size() : 0;
+    }
+
+    /**
+     * @return the metrics recorded so far. Each iteration transfers
+     * one node, and each edge transfer is followed by a meet.
+     */
+    Metrics getMetrics(String analysis) {
+        List<MethodMetrics> methodMetrics = new ArrayList<>();
+        methods.forEach((method, counters) -> methodMetrics.add(new MethodMetrics(
+                String.valueOf(method), counters.iterations, counters.maxFactSize)));
+        methodMetrics.sort(Comparator.comparingLong(MethodMetrics::iterations).reversed());
+        return new Metrics(analysis, iterations, iterations, edgeTransfers,
+                edgeTransfers, maxFactSize, nanos, methodMetrics);
+    }
+
+    /**
+     * Writes the metrics recorded so far to given file.
+     */
+    void export(String analysis, Path file) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("analyses", Map.of(analysis, getMetrics(analysis)));
+        try {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValue(file.toFile(), json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export solver metrics to " + file, e);
+        }
+        logger.info("Exported solver metrics of {} to {}", analysis, file);
+    }
+
+    private static class MethodCounters {
+
+        private long iterations;
+
+        private int maxFactSize;
+    }
+
+    /**
+     * Metrics of solving an inter-procedural analysis.
+     *
+     * @param analysis      ID of the analysis
+     * @param iterations    number of nodes visited by the solver
+     * @param transfers     number of node transfers
+     * @param edgeTransfers number of edge transfers
+     * @param meets         number of meets
+     * @param maxFactSize   number of elements of the largest fact
+     * @param nanos         solving time in nanoseconds
+     * @param methods       metrics of the methods of the visited nodes
+     */
+    record Metrics(String analysis, long iterations, long transfers,
+                   long edgeTransfers, long meets, int maxFactSize,
+                   long nanos, List<MethodMetrics> methods) {
+    }
+
+    /**
+     * Metrics of the nodes of a method.
+     *
+     * @param method      signature of the method
+     * @param iterations  number of visits of the nodes of the method
+     * @param maxFactSize number of elements of the largest fact of the method
+     */
+    record MethodMetrics(String method, long iterations, int maxFactSize) {
+    }
+}
@@ -30,6 +30,7 @@ import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.ReachableStmts;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
@@ -48,6 +49,7 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
@@ -77,11 +79,18 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Whether the statements which are unreachable in their methods
+     * are skipped, see {@link ReachableStmts}.
+     */
+    private final boolean skipDeadCode;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.skipDeadCode = options.getBooleanOrDefault("skip-dead-code", false);
     }
 
     void solve() {
@@ -111,7 +120,8 @@ class Solver {
 
         callGraph.addReachableMethod(csMethod);
 
-        for (Stmt stmt : csMethod.getMethod().getIR().getStmts()) {
+        IR ir = csMethod.getMethod().getIR();
+        for (Stmt stmt : skipDeadCode ? ReachableStmts.of(ir) : ir.getStmts()) {
             stmt.accept(new StmtProcessor(csMethod));
         }
     }
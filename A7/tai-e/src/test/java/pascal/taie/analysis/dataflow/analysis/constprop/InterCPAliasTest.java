@@ -39,6 +39,16 @@ public class InterCPAliasTest {
         );
     }
 
+    /**
+     * Runs the test with pointer analysis that skips the statements
+     * in constant-dead branches, which must not change the results.
+     */
+    void testSkipDeadCode(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;skip-dead-code:true", "-a", "cg=algorithm:cspta");
+    }
+
     @Test
     public void testArray() {
         test("Array");
@@ -83,4 +93,14 @@ public class InterCPAliasTest {
     public void testStaticFieldMultiStores() {
         test("StaticFieldMultiStores");
     }
+
+    @Test
+    public void testArrayLoopsSkipDeadCode() {
+        testSkipDeadCode("ArrayLoops");
+    }
+
+    @Test
+    public void testObjSensSkipDeadCode() {
+        testSkipDeadCode("ObjSens");
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cheap conditional-constant pre-pass for pointer analysis, which finds
+ * the statements of a method that are reachable from its entry when the
+ * branches whose conditions are constant only take the feasible way.
+ * <p>
+ * A variable is treated as constant only if it is not a parameter and
+ * is defined exactly once in the method, by an assignment of int literal.
+ * As every use of a local variable is preceded by its definition, such
+ * variable holds the literal at all its uses, thus the pruning is sound.
+ * Handlers of exceptions are reachable if any statement in the range of
+ * their exception entries is reachable.
+ */
+public final class ReachableStmts {
+
+    /**
+     * Key of the reachable statements stored in {@link IR}.
+     */
+    private static final String ID = "reachable-stmts";
+
+    private ReachableStmts() {
+    }
+
+    /**
+     * @return the reachable statements of given IR in the order of
+     * their indexes. The result is computed once and stored in the IR.
+     */
+    public static List<Stmt> of(IR ir) {
+        return ir.getResult(ID, () -> compute(ir));
+    }
+
+    private static List<Stmt> compute(IR ir) {
+        List<Stmt> stmts = ir.getStmts();
+        if (stmts.isEmpty()) {
+            return List.of();
+        }
+        Map<Var, Integer> constants = collectConstants(ir);
+        BitSet reachable = new BitSet(stmts.size());
+        Deque<Stmt> workList = new ArrayDeque<>();
+        reach(stmts.get(0), reachable, workList);
+        boolean changed = true;
+        while (changed) {
+            while (!workList.isEmpty()) {
+                Stmt stmt = workList.poll();
+                for (Stmt succ : getSuccsOf(stmt, stmts, constants)) {
+                    reach(succ, reachable, workList);
+                }
+            }
+            changed = false;
+            for (ExceptionEntry entry : ir.getExceptionEntries()) {
+                int start = entry.start().getIndex();
+                int end = entry.end().getIndex();
+                int next = reachable.nextSetBit(start);
+                if (next >= 0 && next < end && !reachable.get(entry.handler().getIndex())) {
+                    reach(entry.handler(), reachable, workList);
+                    changed = true;
+                }
+            }
+        }
+        if (reachable.cardinality() == stmts.size()) {
+            return stmts;
+        }
+        return reachable.stream().mapToObj(stmts::get).toList();
+    }
+
+    private static void reach(Stmt stmt, BitSet reachable, Deque<Stmt> workList) {
+        if (!reachable.get(stmt.getIndex())) {
+            reachable.set(stmt.getIndex());
+            workList.add(stmt);
+        }
+    }
+
+    /**
+     * @return the variables which are defined exactly once by an assignment
+     * of int literal, and their values.
+     */
+    private static Map<Var, Integer> collectConstants(IR ir) {
+        Map<Var, Integer> constants = Maps.newMap();
+        Set<Var> nonConstants = Sets.newSet();
+        nonConstants.addAll(ir.getParams());
+        if (ir.getThis() != null) {
+            nonConstants.add(ir.getThis());
+        }
+        for (Stmt stmt : ir) {
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var var && !nonConstants.contains(var)) {
+                    if (!constants.containsKey(var) &&
+                            stmt instanceof AssignLiteral assign &&
+                            assign.getRValue() instanceof IntLiteral literal) {
+                        constants.put(var, literal.getValue());
+                    } else {
+                        constants.remove(var);
+                        nonConstants.add(var);
+                    }
+                }
+            });
+        }
+        return constants;
+    }
+
+    private static List<Stmt> getSuccsOf(Stmt stmt, List<Stmt> stmts,
+                                         Map<Var, Integer> constants) {
+        int next = stmt.getIndex() + 1;
+        Stmt fallThrough = next < stmts.size() ? stmts.get(next) : null;
+        if (stmt instanceof If ifStmt) {
+            Boolean cond = evaluate(ifStmt.getCondition(), constants);
+            if (cond == null) {
+                return fallThrough != null ?
+                        List.of(ifStmt.getTarget(), fallThrough) :
+                        List.of(ifStmt.getTarget());
+            } else if (cond) {
+                return List.of(ifStmt.getTarget());
+            } else {
+                return fallThrough != null ? List.of(fallThrough) : List.of();
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Integer value = constants.get(switchStmt.getVar());
+            if (value == null) {
+                List<Stmt> targets = new ArrayList<>(switchStmt.getTargets());
+                targets.add(switchStmt.getDefaultTarget());
+                return targets;
+            }
+            for (Pair<Integer, Stmt> caseTarget : switchStmt.getCaseTargets()) {
+                if (caseTarget.first().intValue() == value) {
+                    return List.of(caseTarget.second());
+                }
+            }
+            return List.of(switchStmt.getDefaultTarget());
+        } else if (stmt instanceof Goto gotoStmt) {
+            return List.of(gotoStmt.getTarget());
+        } else if (stmt.canFallThrough() && fallThrough != null) {
+            return List.of(fallThrough);
+        } else {
+            return List.of();
+        }
+    }
+
+    /**
+     * @return the value of given condition, or null if it is not constant.
+     */
+    @Nullable
+    private static Boolean evaluate(ConditionExp cond, Map<Var, Integer> constants) {
+        Integer v1 = constants.get(cond.getOperand1());
+        Integer v2 = constants.get(cond.getOperand2());
+        if (v1 == null || v2 == null) {
+            return null;
+        }
+        int i1 = v1, i2 = v2;
+        return switch (cond.getOperator()) {
+            case EQ -> i1 == i2;
+            case NE -> i1 != i2;
+            case LT -> i1 < i2;
+            case GT -> i1 > i2;
+            case LE -> i1 <= i2;
+            case GE -> i1 >= i2;
+        };
+    }
+}
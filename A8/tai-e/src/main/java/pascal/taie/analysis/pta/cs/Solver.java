@@ -30,6 +30,7 @@ import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.ReachableStmts;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
@@ -49,6 +50,7 @@ import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.InvokeInstanceExp;
 import pascal.taie.ir.exp.Var;
@@ -84,11 +86,18 @@ public class Solver {
 
     private Map<CSVar, Set<Invoke>> taintTransfersMap=new HashMap<>();
 
+    /**
+     * Whether the statements which are unreachable in their methods
+     * are skipped, see {@link ReachableStmts}.
+     */
+    private final boolean skipDeadCode;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.skipDeadCode = options.getBooleanOrDefault("skip-dead-code", false);
     }
 
     public AnalysisOptions getOptions() {
@@ -132,7 +141,8 @@ public class Solver {
 
         callGraph.addReachableMethod(csMethod);
 
-        for (Stmt stmt : csMethod.getMethod().getIR().getStmts()) {
+        IR ir = csMethod.getMethod().getIR();
+        for (Stmt stmt : skipDeadCode ? ReachableStmts.of(ir) : ir.getStmts()) {
             stmt.accept(new StmtProcessor(csMethod));
         }
     }
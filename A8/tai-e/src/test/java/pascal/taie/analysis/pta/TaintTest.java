@@ -70,4 +70,16 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testSimpleTaintSkipDeadCode() {
+        Tests.testCSPTA(DIR, "SimpleTaint",
+                "skip-dead-code:true;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintInListSkipDeadCode() {
+        Tests.testCSPTA(DIR, "TaintInList",
+                "cs:2-obj;skip-dead-code:true;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
 }